@@ -1,9 +1,230 @@
+import capture.FrameExporter;
+import game.GDV5;
+import game.MultiBallGame;
 import game.PongGame;
+import game.PongRenderer;
+import game.Warmup;
+import net.LinkConditioner;
+import sim.PaddleAI;
+import sim.Rng;
+import server.GameServer;
+import telemetry.StartupTimer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import java.util.Locale;
 
 public class Main {
-    public static void main(String[] args) {
-        PongGame pg = new PongGame();
+    public static void main(String[] args) throws IOException {
+        StartupTimer.mark("main");
+        long seed = Rng.randomSeed();
+        boolean dirtyRegions = false;
+        boolean debugOverlay = false;
+        String record = null;
+        String[] net = null;
+        int latency = 0;
+        double loss = 0;
+        String cpu = null;
+        PaddleAI.Difficulty difficulty = PaddleAI.Difficulty.NORMAL;
+        int balls = 0;
+        int spectatorPort = -1;
+        int serverPort = -1;
+        String[] theme = null;
+        String capture = null;
+        String events = null;
+        int[] window = null;
+        boolean fullscreen = false;
+        double renderScale = 1.0;
+        int physicsRate = 0;
+        int renderRate = 0;
+        boolean startupReport = false;
+        boolean exitAfterStartup = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--dirty-regions":
+                    dirtyRegions = true;
+                    break;
+                case "--debug-overlay":
+                    debugOverlay = true;
+                    break;
+                case "--record":
+                    record = args[++i];
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--net":
+                    // <localPort> <host:port> <left|right>
+                    net = new String[] {args[++i], args[++i], args[++i]};
+                    break;
+                case "--latency":
+                    latency = Integer.parseInt(args[++i]);
+                    break;
+                case "--loss":
+                    loss = Double.parseDouble(args[++i]);
+                    break;
+                case "--cpu":
+                    // left, right or both
+                    cpu = args[++i];
+                    break;
+                case "--difficulty":
+                    difficulty = PaddleAI.Difficulty.valueOf(args[++i].toUpperCase(Locale.ROOT));
+                    break;
+                case "--spectators":
+                    spectatorPort = Integer.parseInt(args[++i]);
+                    break;
+                case "--server":
+                    serverPort = Integer.parseInt(args[++i]);
+                    break;
+                case "--theme":
+                    // <ball image> <paddle image>, as resource names
+                    theme = new String[] {args[++i], args[++i]};
+                    break;
+                case "--capture":
+                    // a .raw file for raw RGB24 video, otherwise a directory of PNG frames
+                    capture = args[++i];
+                    break;
+                case "--events":
+                    // directory for the rotating match event log
+                    events = args[++i];
+                    break;
+                case "--window": {
+                    // <width>x<height>
+                    String[] size = args[++i].split("x");
+                    window = new int[] {Integer.parseInt(size[0]), Integer.parseInt(size[1])};
+                    break;
+                }
+                case "--fullscreen":
+                    fullscreen = true;
+                    break;
+                case "--render-scale":
+                    renderScale = Double.parseDouble(args[++i]);
+                    break;
+                case "--physics-rate":
+                    physicsRate = Integer.parseInt(args[++i]);
+                    break;
+                case "--render-rate":
+                    renderRate = Integer.parseInt(args[++i]);
+                    break;
+                case "--startup-report":
+                    startupReport = true;
+                    break;
+                case "--exit-after-startup":
+                    // e.g. to time startups or to train a class data sharing archive
+                    exitAfterStartup = true;
+                    break;
+                case "--balls":
+                    balls = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    System.out.println("Unknown option: " + args[i]);
+            }
+        }
+        if (record != null && net != null) {
+            System.out.println("Error: --record cannot be combined with --net -> netplay matches are not recorded");
+            System.exit(1);
+        }
+
+        if (serverPort >= 0) {
+            // headless: host rooms until killed, reporting tick lag every ten seconds
+            GameServer server = new GameServer(new InetSocketAddress(serverPort),
+                    Runtime.getRuntime().availableProcessors(), seed);
+            server.start();
+            while (true) {
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                server.report(System.out, 5);
+            }
+        }
+
+        // connect to the display and load fonts in the background while the game is built
+        Warmup.start("toolkit", Warmup::toolkit);
+        if (balls > 0) {
+            MultiBallGame mb = new MultiBallGame(balls, seed);
+            StartupTimer.mark("game created");
+            afterStartup(mb, startupReport, exitAfterStartup);
+            mb.setDebugOverlay(debugOverlay);
+            setDisplay(mb, window, fullscreen, renderScale);
+            mb.start();
+            return;
+        }
+
+        Warmup.start("fonts", () -> PongRenderer.warmUp(GDV5.DEFAULT_WIDTH, GDV5.DEFAULT_HEIGHT));
+        PongGame pg = new PongGame(seed);
+        StartupTimer.mark("game created");
+        afterStartup(pg, startupReport, exitAfterStartup);
+        pg.setDirtyRegions(dirtyRegions);
+        pg.setDebugOverlay(debugOverlay);
+        setDisplay(pg, window, fullscreen, renderScale);
+        if (physicsRate > 0) {
+            pg.setFrames(physicsRate);
+        }
+        if (renderRate > 0) {
+            // draw at the display's rate, blending the last two physics ticks
+            pg.setRenderFrames(renderRate);
+            pg.setInterpolation(true);
+        }
+        if (theme != null) {
+            pg.setTheme(theme[0], theme[1]);
+        }
+        if (capture != null) {
+            pg.startCapture(Paths.get(capture),
+                    capture.endsWith(".raw") ? FrameExporter.Format.RAW : FrameExporter.Format.PNG);
+        }
+        if (spectatorPort >= 0) {
+            pg.startSpectatorServer(spectatorPort, 10_000);
+        }
+        if (net != null) {
+            String host = net[1].substring(0, net[1].lastIndexOf(':'));
+            int port = Integer.parseInt(net[1].substring(net[1].lastIndexOf(':') + 1));
+            pg.startNetplay(Integer.parseInt(net[0]), new InetSocketAddress(host, port), net[2].equals("left"),
+                    new LinkConditioner(latency, 0, loss, seed));
+        } else {
+            if (cpu != null) {
+                if (!cpu.equals("right")) {
+                    pg.setComputerPlayer(true, difficulty);
+                }
+                if (!cpu.equals("left")) {
+                    pg.setComputerPlayer(false, difficulty);
+                }
+            }
+            if (record != null) {
+                pg.startRecording(Paths.get(record));
+            }
+            if (events != null) {
+                pg.startEventLog(Paths.get(events));
+            }
+        }
         pg.start();
     }
-}
 
+    /**
+     * Prints the startup milestones and/or exits once the game's first frame is on screen.
+     */
+    private static void afterStartup(GDV5 game, boolean report, boolean exit) {
+        if (!report && !exit) {
+            return;
+        }
+        game.whenStarted().thenRun(() -> {
+            StartupTimer.report(System.out);
+            if (exit) {
+                System.exit(0);
+            }
+        });
+    }
+
+    /**
+     * Applies the window size, fullscreen and render resolution options to a game.
+     */
+    private static void setDisplay(GDV5 game, int[] window, boolean fullscreen, double renderScale) {
+        if (window != null) {
+            game.setWindowSize(window[0], window[1]);
+        }
+        game.setFullscreen(fullscreen);
+        game.setRenderScale(renderScale);
+    }
+}
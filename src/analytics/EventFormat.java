@@ -0,0 +1,74 @@
+package analytics;
+
+/**
+ * Layout of a match event log file.
+ * <p>
+ * A fixed-size header is followed by fixed-size records, one per event, in the order they
+ * happened. A record is the tick (8 bytes), the event type and side (1 byte each), two 16-bit
+ * values and one 32-bit float, whose meaning depends on the type:
+ * <pre>
+ * type         side             a          b              value
+ * PADDLE_HIT   paddle           hit pos    speed (px/s)   spin factor
+ * WALL_BOUNCE  wall (0 top)     ball x     0              0
+ * POINT        scorer           left score right score    0
+ * GAME_OVER    winner           left score right score    0
+ * RESTART      0                0          0              0
+ * </pre>
+ * Sides are 0 for left and 1 for right. The hit position is the ball's center relative to the
+ * paddle's top edge in 1/HIT_POSITION_SCALE pixels. All values are big-endian. A record cut short by a
+ * crash at the end of a file is ignored.
+ */
+final class EventFormat {
+    static final int MAGIC = 0x50504556; // "PPEV"
+    static final short VERSION = 2;
+
+    // Header fields
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 4;
+    static final int RECORD_BYTES_OFFSET = 6;
+    static final int SEED_OFFSET = 8;
+    static final int TICKS_PER_SECOND_OFFSET = 16;
+    static final int WIDTH_OFFSET = 20;
+    static final int HEIGHT_OFFSET = 24;
+    static final int CREATED_MILLIS_OFFSET = 28;
+    static final int HEADER_BYTES = 40;
+
+    static final int RECORD_BYTES = 8 + 1 + 1 + 2 + 2 + 4;
+    // Fixed-point scale of a paddle hit's position
+    static final double HIT_POSITION_SCALE = 64;
+
+    // Event types
+    static final byte PADDLE_HIT = 1;
+    static final byte WALL_BOUNCE = 2;
+    static final byte POINT = 3;
+    static final byte GAME_OVER = 4;
+    static final byte RESTART = 5;
+
+    // Files are named events-000001.pev, events-000002.pev, ... in the order they were written
+    static final String FILE_PREFIX = "events-";
+    static final String FILE_SUFFIX = ".pev";
+
+    private EventFormat() {
+    }
+
+    /**
+     * @return File name of the log file with the given sequence number
+     */
+    static String fileName(long sequence) {
+        return String.format("%s%06d%s", FILE_PREFIX, sequence, FILE_SUFFIX);
+    }
+
+    /**
+     * @return Sequence number of a log file name, or -1 if it is not one
+     */
+    static long sequenceOf(String fileName) {
+        if (!fileName.startsWith(FILE_PREFIX) || !fileName.endsWith(FILE_SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(fileName.substring(FILE_PREFIX.length(), fileName.length() - FILE_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
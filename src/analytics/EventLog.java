@@ -0,0 +1,227 @@
+package analytics;
+
+import sim.MatchListener;
+import sim.PongSimulation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes the events of a match to a rotating set of log files in the background.
+ * <p>
+ * Set as a PongSimulation's listener, each event is copied into an EventRing on the thread
+ * stepping the match, which allocates nothing and never waits. A writer thread wakes every
+ * FLUSH_NANOS, or at once while events keep coming, and writes whatever has arrived in one
+ * batch. When a file would grow past its size limit the writer starts the next one and
+ * deletes the oldest files beyond the number to keep. Numbering continues after any files
+ * already in the directory, so logs of earlier runs are kept (and rotated) too.
+ * <p>
+ * See EventFormat for the file layout and EventLogReader for reading it back.
+ */
+public class EventLog implements MatchListener, Closeable {
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    public static final long DEFAULT_MAX_FILE_BYTES = 16L << 20;
+    public static final int DEFAULT_KEEP_FILES = 8;
+    // How long the writer sleeps when the ring is empty
+    private static final long FLUSH_NANOS = 100_000_000L;
+    private static final int BATCH_RECORDS = 4096;
+
+    private final Path directory;
+    private final long maxFileBytes;
+    private final int keepFiles;
+    private final ByteBuffer header = ByteBuffer.allocate(EventFormat.HEADER_BYTES);
+    private final EventRing ring;
+    private final Thread writer;
+    private volatile boolean closed = false;
+
+    // Writer thread state
+    private final ByteBuffer batch = ByteBuffer.allocateDirect(BATCH_RECORDS * EventFormat.RECORD_BYTES);
+    private FileChannel channel;
+    private long sequence;
+    private long fileBytes;
+    private IOException failure;
+
+    // Statistics
+    private volatile long eventsWritten = 0;
+    private volatile long bytesWritten = 0;
+    private volatile long filesStarted = 0;
+
+    /**
+     * Starts logging with the default ring capacity, file size and number of files.
+     * @param directory Directory for the log files, created if missing
+     * @param sim Match whose settings go in each file's header
+     */
+    public EventLog(Path directory, PongSimulation sim) throws IOException {
+        this(directory, sim, DEFAULT_CAPACITY, DEFAULT_MAX_FILE_BYTES, DEFAULT_KEEP_FILES);
+    }
+
+    /**
+     * @param directory Directory for the log files, created if missing
+     * @param sim Match whose settings go in each file's header
+     * @param capacity Events buffered between the game and the writer
+     * @param maxFileBytes Size at which the writer moves on to a new file
+     * @param keepFiles Number of newest files kept; older ones are deleted
+     */
+    public EventLog(Path directory, PongSimulation sim, int capacity, long maxFileBytes, int keepFiles)
+            throws IOException {
+        this.directory = directory;
+        this.maxFileBytes = Math.max(maxFileBytes, EventFormat.HEADER_BYTES + EventFormat.RECORD_BYTES);
+        this.keepFiles = Math.max(1, keepFiles);
+        this.ring = new EventRing(capacity);
+        header.putInt(EventFormat.MAGIC_OFFSET, EventFormat.MAGIC);
+        header.putShort(EventFormat.VERSION_OFFSET, EventFormat.VERSION);
+        header.putShort(EventFormat.RECORD_BYTES_OFFSET, (short) EventFormat.RECORD_BYTES);
+        header.putLong(EventFormat.SEED_OFFSET, sim.getSeed());
+        header.putInt(EventFormat.TICKS_PER_SECOND_OFFSET, sim.getTicksPerSecond());
+        header.putInt(EventFormat.WIDTH_OFFSET, sim.getWidth());
+        header.putInt(EventFormat.HEIGHT_OFFSET, sim.getHeight());
+
+        Files.createDirectories(directory);
+        for (Path file : EventLogReader.files(directory)) {
+            sequence = Math.max(sequence, EventFormat.sequenceOf(file.getFileName().toString()));
+        }
+        startFile();
+        writer = new Thread(this::writeLoop, "Event log writer");
+        writer.setDaemon(true);
+        writer.setPriority(Thread.MIN_PRIORITY);
+        writer.start();
+    }
+
+    @Override
+    public void onPaddleHit(long tick, boolean left, double spinFactor, double hitPosition, double speed) {
+        ring.offer(EventFormat.PADDLE_HIT, tick, left ? 0 : 1, (int) Math.round(hitPosition * EventFormat.HIT_POSITION_SCALE),
+                (int) Math.round(speed), (float) spinFactor);
+    }
+
+    @Override
+    public void onWallBounce(long tick, boolean top, int ballX) {
+        ring.offer(EventFormat.WALL_BOUNCE, tick, top ? 0 : 1, ballX, 0, 0);
+    }
+
+    @Override
+    public void onPoint(long tick, boolean left, int leftScore, int rightScore) {
+        ring.offer(EventFormat.POINT, tick, left ? 0 : 1, leftScore, rightScore, 0);
+    }
+
+    @Override
+    public void onGameOver(long tick, boolean leftWon, int leftScore, int rightScore) {
+        ring.offer(EventFormat.GAME_OVER, tick, leftWon ? 0 : 1, leftScore, rightScore, 0);
+    }
+
+    @Override
+    public void onRestart(long tick) {
+        ring.offer(EventFormat.RESTART, tick, 0, 0, 0, 0);
+    }
+
+    /**
+     * Writer thread: writes batches until closed, then whatever is left.
+     */
+    private void writeLoop() {
+        while (true) {
+            boolean stopping = closed; // read before draining, so events published before close() are taken
+            batch.clear();
+            int events = ring.drain(batch);
+            if (events > 0) {
+                batch.flip();
+                try {
+                    write(batch);
+                    eventsWritten += events;
+                } catch (IOException e) {
+                    System.out.println("Error writing event log -> " + e.getMessage());
+                    failure = e;
+                    return;
+                }
+            }
+            if (events == BATCH_RECORDS) {
+                continue; // more may be waiting
+            }
+            if (stopping) {
+                return;
+            }
+            LockSupport.parkNanos(this, FLUSH_NANOS);
+        }
+    }
+
+    private void write(ByteBuffer records) throws IOException {
+        while (records.hasRemaining()) {
+            long room = (maxFileBytes - fileBytes) / EventFormat.RECORD_BYTES * EventFormat.RECORD_BYTES;
+            if (room <= 0) {
+                channel.close();
+                startFile();
+                continue;
+            }
+            int limit = records.limit();
+            records.limit((int) Math.min(limit, records.position() + room));
+            while (records.hasRemaining()) {
+                int written = channel.write(records);
+                fileBytes += written;
+                bytesWritten += written;
+            }
+            records.limit(limit);
+        }
+    }
+
+    /**
+     * Opens the next file, writes its header and deletes the oldest files beyond keepFiles.
+     */
+    private void startFile() throws IOException {
+        sequence++;
+        channel = FileChannel.open(directory.resolve(EventFormat.fileName(sequence)), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        header.putLong(EventFormat.CREATED_MILLIS_OFFSET, System.currentTimeMillis());
+        header.clear();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        fileBytes = EventFormat.HEADER_BYTES;
+        filesStarted++;
+
+        List<Path> files = new ArrayList<>(EventLogReader.files(directory));
+        for (int i = 0; i < files.size() - keepFiles; i++) {
+            Files.deleteIfExists(files.get(i));
+        }
+    }
+
+    /**
+     * Writes every event published so far and closes the current file. Later events are dropped.
+     * @throws IOException If writing any event failed
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /** @return Directory the log files are written to */
+    public Path getDirectory() { return directory; }
+    /** @return Events published by the match, including dropped ones */
+    public long getEventsPublished() { return ring.getOffered(); }
+    /** @return Events dropped because the writer fell a whole ring behind */
+    public long getEventsDropped() { return ring.getDropped(); }
+    /** @return Events written to files */
+    public long getEventsWritten() { return eventsWritten; }
+    /** @return Event bytes written to files, excluding headers */
+    public long getBytesWritten() { return bytesWritten; }
+    /** @return Files started by this log, including the first */
+    public long getFilesStarted() { return filesStarted; }
+}
@@ -0,0 +1,80 @@
+package analytics;
+
+import sim.PaddleAI;
+import sim.PongSimulation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Checks the event log end to end on computer-played matches.
+ * <p>
+ * An AI vs AI match is stepped with an EventLog attached, restarted whenever it ends, and the
+ * files are read back into an EventReport. Every published event must be written and read
+ * back, and each paddle's hits must be spread over its length: at least MIN_BINS of the
+ * position bins must be used, and the two end bins together must hold less than
+ * MAX_END_SHARE of the hits.
+ * <p>
+ * Usage: {@code java -cp out analytics.EventLogCheck [ticks]}
+ * <br>
+ * Exits with 1 if a check fails.
+ */
+public class EventLogCheck {
+    private static final int MIN_BINS = 6;
+    private static final double MAX_END_SHARE = 0.5;
+    private static final long SEED = 42;
+
+    public static void main(String[] args) throws IOException {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        Path directory = Files.createTempDirectory("event-log-check");
+        PongSimulation sim = new PongSimulation(PongSimulation.DEFAULT_WIDTH, PongSimulation.DEFAULT_HEIGHT, SEED, true);
+        PaddleAI left = new PaddleAI(true, PaddleAI.Difficulty.HARD, 1);
+        PaddleAI right = new PaddleAI(false, PaddleAI.Difficulty.NORMAL, 2);
+        EventLog log = new EventLog(directory, sim);
+        sim.setListener(log);
+        for (int i = 0; i < ticks; i++) {
+            sim.step(sim.isGameOver() ? PongSimulation.RESTART : left.inputs(sim) | right.inputs(sim));
+        }
+        log.close();
+
+        EventReport report = new EventReport();
+        for (Path file : EventLogReader.files(directory)) {
+            EventLogReader.read(file, report);
+            Files.delete(file);
+        }
+        Files.delete(directory);
+
+        boolean ok = log.getEventsWritten() == log.getEventsPublished() && report.getEvents() == log.getEventsWritten();
+        System.out.printf("%d ticks: %d events published, %d written, %d read back %s%n", ticks,
+                log.getEventsPublished(), log.getEventsWritten(), report.getEvents(), ok ? "ok" : "MISMATCH");
+        for (boolean side : new boolean[]{true, false}) {
+            ok &= checkSpread(side ? "Left" : "Right", report.getHitPositions(side));
+        }
+        System.exit(ok ? 0 : 1);
+    }
+
+    /**
+     * Prints a paddle's hit position bins.
+     * @return False if the hits are not spread across the paddle
+     */
+    private static boolean checkSpread(String name, long[] bins) {
+        long hits = 0;
+        int used = 0;
+        for (long count : bins) {
+            hits += count;
+            if (count > 0) {
+                used++;
+            }
+        }
+        double endShare = hits == 0 ? 1 : (double) (bins[0] + bins[bins.length - 1]) / hits;
+        boolean ok = used >= MIN_BINS && endShare < MAX_END_SHARE;
+        StringBuilder counts = new StringBuilder();
+        for (long count : bins) {
+            counts.append(' ').append(count);
+        }
+        System.out.printf("%s paddle: %d hits in %d of %d bins, %.0f%% in the end bins:%s %s%n", name, hits, used,
+                bins.length, 100 * endShare, counts, ok ? "ok" : "NOT SPREAD");
+        return ok;
+    }
+}
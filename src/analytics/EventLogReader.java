@@ -0,0 +1,133 @@
+package analytics;
+
+import sim.MatchListener;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Reads event log files back, replaying their events into a MatchListener.
+ */
+public final class EventLogReader {
+    private static final int READ_RECORDS = 4096;
+
+    /**
+     * Settings of the match a log file was written for.
+     */
+    public static final class Header {
+        final long seed;
+        final int ticksPerSecond;
+        final int width;
+        final int height;
+        final long createdMillis;
+
+        Header(ByteBuffer buf) {
+            seed = buf.getLong(EventFormat.SEED_OFFSET);
+            ticksPerSecond = buf.getInt(EventFormat.TICKS_PER_SECOND_OFFSET);
+            width = buf.getInt(EventFormat.WIDTH_OFFSET);
+            height = buf.getInt(EventFormat.HEIGHT_OFFSET);
+            createdMillis = buf.getLong(EventFormat.CREATED_MILLIS_OFFSET);
+        }
+
+        /** @return Seed of the match */
+        public long getSeed() { return seed; }
+        /** @return Ticks per second of the match */
+        public int getTicksPerSecond() { return ticksPerSecond; }
+        /** @return Field width */
+        public int getWidth() { return width; }
+        /** @return Field height */
+        public int getHeight() { return height; }
+        /** @return Wall-clock time the file was started, in milliseconds since the epoch */
+        public long getCreatedMillis() { return createdMillis; }
+    }
+
+    private EventLogReader() {
+    }
+
+    /**
+     * @return The event log files in a directory, oldest first
+     */
+    public static List<Path> files(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                EventFormat.FILE_PREFIX + "*" + EventFormat.FILE_SUFFIX)) {
+            for (Path file : stream) {
+                if (EventFormat.sequenceOf(file.getFileName().toString()) >= 0) {
+                    files.add(file);
+                }
+            }
+        }
+        files.sort(Comparator.comparingLong(f -> EventFormat.sequenceOf(f.getFileName().toString())));
+        return files;
+    }
+
+    /**
+     * Replays every event in a log file, in order.
+     * @param file Log file
+     * @param listener Receives the events
+     * @return The file's header
+     * @throws IOException If the file cannot be read or is not an event log
+     */
+    public static Header read(Path file, MatchListener listener) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(EventFormat.HEADER_BYTES);
+            while (head.hasRemaining() && channel.read(head) >= 0) {
+                // keep reading
+            }
+            if (head.hasRemaining() || head.getInt(EventFormat.MAGIC_OFFSET) != EventFormat.MAGIC) {
+                throw new IOException("Not an event log: " + file);
+            }
+            if (head.getShort(EventFormat.VERSION_OFFSET) != EventFormat.VERSION
+                    || head.getShort(EventFormat.RECORD_BYTES_OFFSET) != EventFormat.RECORD_BYTES) {
+                throw new IOException("Unsupported event log version: " + file);
+            }
+            Header header = new Header(head);
+
+            ByteBuffer buf = ByteBuffer.allocate(READ_RECORDS * EventFormat.RECORD_BYTES);
+            while (channel.read(buf) >= 0 || buf.position() >= EventFormat.RECORD_BYTES) {
+                buf.flip();
+                while (buf.remaining() >= EventFormat.RECORD_BYTES) {
+                    dispatch(buf, listener);
+                }
+                buf.compact();
+            }
+            return header;
+        }
+    }
+
+    private static void dispatch(ByteBuffer buf, MatchListener listener) {
+        long tick = buf.getLong();
+        byte type = buf.get();
+        boolean first = buf.get() == 0;
+        int a = buf.getShort();
+        int b = buf.getShort();
+        float value = buf.getFloat();
+        switch (type) {
+            case EventFormat.PADDLE_HIT:
+                listener.onPaddleHit(tick, first, value, a / EventFormat.HIT_POSITION_SCALE, b);
+                break;
+            case EventFormat.WALL_BOUNCE:
+                listener.onWallBounce(tick, first, a);
+                break;
+            case EventFormat.POINT:
+                listener.onPoint(tick, first, a, b);
+                break;
+            case EventFormat.GAME_OVER:
+                listener.onGameOver(tick, first, a, b);
+                break;
+            case EventFormat.RESTART:
+                listener.onRestart(tick);
+                break;
+            default:
+                // unknown types from a newer writer are skipped
+        }
+    }
+}
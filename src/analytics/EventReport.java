@@ -0,0 +1,193 @@
+package analytics;
+
+import sim.MatchListener;
+import sim.PongSimulation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Summarizes event logs: rally lengths, where the ball hits the paddles, and points and games
+ * won by each side.
+ * <p>
+ * A rally runs from a serve to the point that ends it. Rallies are followed across rotated
+ * files; when the tick count goes backwards a new game session started, and the rally in
+ * progress is dropped.
+ * <p>
+ * Usage: {@code java -cp out analytics.EventReport directory|file...}
+ */
+public class EventReport implements MatchListener {
+    private static final int MAX_RALLY_HITS = 64;
+    private static final int HIT_BINS = 10;
+    private static final int BAR_WIDTH = 40;
+
+    // Rally in progress; rallyStart is -1 until a serve has been seen
+    private long rallyStart = -1;
+    private int rallyHits = 0;
+    private int rallyBounces = 0;
+    private long lastTick = -1;
+
+    // Totals
+    private final long[] rallyLengths = new long[MAX_RALLY_HITS + 1]; // by paddle hits, last bin and over
+    private long rallies = 0;
+    private long rallyTicks = 0;
+    private long longestRallyTicks = 0;
+    private long rallyWallBounces = 0;
+    private final long[][] hitPositions = new long[2][HIT_BINS];
+    private final long[] hits = new long[2];
+    private final double[] hitSpeed = new double[2];
+    private final long[] points = new long[2];
+    private final long[] games = new long[2];
+    private long events = 0;
+
+    @Override
+    public void onPaddleHit(long tick, boolean left, double spinFactor, double hitPosition, double speed) {
+        see(tick);
+        rallyHits++;
+        int side = left ? 0 : 1;
+        // hits on the corners, with the ball's center beyond the paddle, count in the end bins
+        int bin = (int) Math.floor(hitPosition / PongSimulation.PADDLE_HEIGHT * HIT_BINS);
+        hitPositions[side][Math.max(0, Math.min(HIT_BINS - 1, bin))]++;
+        hits[side]++;
+        hitSpeed[side] += speed;
+    }
+
+    @Override
+    public void onWallBounce(long tick, boolean top, int ballX) {
+        see(tick);
+        rallyBounces++;
+    }
+
+    @Override
+    public void onPoint(long tick, boolean left, int leftScore, int rightScore) {
+        see(tick);
+        points[left ? 0 : 1]++;
+        if (rallyStart >= 0) {
+            long ticks = tick - rallyStart;
+            rallyLengths[Math.min(rallyHits, MAX_RALLY_HITS)]++;
+            rallies++;
+            rallyTicks += ticks;
+            longestRallyTicks = Math.max(longestRallyTicks, ticks);
+            rallyWallBounces += rallyBounces;
+        }
+        serve(tick);
+    }
+
+    @Override
+    public void onGameOver(long tick, boolean leftWon, int leftScore, int rightScore) {
+        see(tick);
+        games[leftWon ? 0 : 1]++;
+    }
+
+    @Override
+    public void onRestart(long tick) {
+        see(tick);
+        serve(tick);
+    }
+
+    private void see(long tick) {
+        events++;
+        if (tick < lastTick) {
+            rallyStart = -1; // a new session: the rally in progress was cut off
+        }
+        lastTick = tick;
+    }
+
+    private void serve(long tick) {
+        rallyStart = tick;
+        rallyHits = 0;
+        rallyBounces = 0;
+    }
+
+    /**
+     * @return Rally length in paddle hits at the given fraction of rallies
+     */
+    private int rallyPercentile(double fraction) {
+        long rank = (long) Math.ceil(fraction * rallies);
+        long seen = 0;
+        for (int hits = 0; hits <= MAX_RALLY_HITS; hits++) {
+            seen += rallyLengths[hits];
+            if (seen >= rank && seen > 0) {
+                return hits;
+            }
+        }
+        return MAX_RALLY_HITS;
+    }
+
+    /** @return Events seen so far */
+    long getEvents() { return events; }
+
+    /**
+     * @return Hits of one paddle per hit position bin, top to bottom
+     */
+    long[] getHitPositions(boolean left) {
+        return hitPositions[left ? 0 : 1].clone();
+    }
+
+    private void print(int ticksPerSecond) {
+        System.out.printf("%d events, %d rallies, points left %d / right %d, games left %d / right %d%n",
+                events, rallies, points[0], points[1], games[0], games[1]);
+        if (rallies > 0) {
+            long totalHits = 0;
+            for (int h = 0; h <= MAX_RALLY_HITS; h++) {
+                totalHits += h * rallyLengths[h];
+            }
+            System.out.printf("Rally length: mean %.1f hits (p50 %d, p90 %d, p99 %d%s), mean %.1f s, longest %.1f s, %.1f wall bounces%n",
+                    (double) totalHits / rallies, rallyPercentile(0.5), rallyPercentile(0.9), rallyPercentile(0.99),
+                    rallyLengths[MAX_RALLY_HITS] > 0 ? ", capped at " + MAX_RALLY_HITS : "",
+                    rallyTicks / (double) rallies / ticksPerSecond, longestRallyTicks / (double) ticksPerSecond,
+                    rallyWallBounces / (double) rallies);
+        }
+        for (int side = 0; side < 2; side++) {
+            if (hits[side] == 0) {
+                continue;
+            }
+            System.out.printf("%s paddle: %d hits, mean ball speed after a hit %.0f px/s; ball center from the paddle's top:%n",
+                    side == 0 ? "Left" : "Right", hits[side], hitSpeed[side] / hits[side]);
+            long most = 1;
+            for (long count : hitPositions[side]) {
+                most = Math.max(most, count);
+            }
+            for (int bin = 0; bin < HIT_BINS; bin++) {
+                long count = hitPositions[side][bin];
+                System.out.printf("  %3d..%3d px %6.1f%% %s%n", bin * PongSimulation.PADDLE_HEIGHT / HIT_BINS,
+                        (bin + 1) * PongSimulation.PADDLE_HEIGHT / HIT_BINS,
+                        100.0 * count / hits[side], "#".repeat((int) (BAR_WIDTH * count / most)));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: EventReport directory|file...");
+            return;
+        }
+        List<Path> files = new ArrayList<>();
+        for (String arg : args) {
+            Path path = Paths.get(arg);
+            if (Files.isDirectory(path)) {
+                files.addAll(EventLogReader.files(path));
+            } else {
+                files.add(path);
+            }
+        }
+        EventReport report = new EventReport();
+        int ticksPerSecond = 0;
+        for (Path file : files) {
+            EventLogReader.Header header = EventLogReader.read(file, report);
+            if (ticksPerSecond != 0 && header.getTicksPerSecond() != ticksPerSecond) {
+                System.out.println("Warning: " + file + " was written at " + header.getTicksPerSecond()
+                        + " ticks per second; rally times assume " + ticksPerSecond);
+            }
+            if (ticksPerSecond == 0) {
+                ticksPerSecond = header.getTicksPerSecond();
+            }
+        }
+        System.out.println(files.size() + " log files");
+        report.print(Math.max(1, ticksPerSecond));
+    }
+}
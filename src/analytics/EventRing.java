@@ -0,0 +1,96 @@
+package analytics;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-producer/single-consumer ring buffer of match events.
+ * <p>
+ * The game thread offers events and the log writer drains them. Every field has its own
+ * preallocated array, so offering an event is a few array stores and an ordered store of the
+ * tail index, which publishes the slot to the consumer; nothing is allocated and nothing
+ * waits. If the writer falls a whole buffer behind, new events are dropped and counted.
+ */
+final class EventRing {
+    private final int mask;
+    private final long[] ticks;
+    private final byte[] types;
+    private final byte[] sides;
+    private final short[] as;
+    private final short[] bs;
+    private final float[] values;
+
+    private final AtomicLong head = new AtomicLong(); // next slot to read, written by the consumer
+    private final AtomicLong tail = new AtomicLong(); // next slot to write, written by the producer
+    private long headSeen = 0; // producer's last read of head, so a roomy ring is not re-read per event
+    private volatile long dropped = 0;
+
+    /**
+     * @param capacity Number of buffered events, rounded up to a power of two
+     */
+    EventRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.ticks = new long[size];
+        this.types = new byte[size];
+        this.sides = new byte[size];
+        this.as = new short[size];
+        this.bs = new short[size];
+        this.values = new float[size];
+    }
+
+    /**
+     * Adds an event. Called only from the producer thread.
+     * @return False if the buffer was full and the event was dropped
+     */
+    boolean offer(byte type, long tick, int side, int a, int b, float value) {
+        long t = tail.get();
+        if (t - headSeen > mask) {
+            headSeen = head.get();
+            if (t - headSeen > mask) {
+                dropped++;
+                return false;
+            }
+        }
+        int i = (int) t & mask;
+        ticks[i] = tick;
+        types[i] = type;
+        sides[i] = (byte) side;
+        as[i] = (short) a;
+        bs[i] = (short) b;
+        values[i] = value;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Encodes as many available events as fit into the buffer as EventFormat records. Called
+     * only from the consumer thread.
+     * @return Number of events drained
+     */
+    int drain(ByteBuffer out) {
+        long h = head.get();
+        long t = Math.min(tail.get(), h + out.remaining() / EventFormat.RECORD_BYTES);
+        for (long n = h; n < t; n++) {
+            int i = (int) n & mask;
+            out.putLong(ticks[i]);
+            out.put(types[i]);
+            out.put(sides[i]);
+            out.putShort(as[i]);
+            out.putShort(bs[i]);
+            out.putFloat(values[i]);
+        }
+        head.lazySet(t);
+        return (int) (t - h);
+    }
+
+    /** @return Number of events offered, including dropped ones */
+    long getOffered() {
+        return tail.get() + dropped;
+    }
+
+    /** @return Number of events dropped because the buffer was full */
+    long getDropped() {
+        return dropped;
+    }
+}
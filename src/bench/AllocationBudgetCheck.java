@@ -0,0 +1,115 @@
+package bench;
+
+import game.GDV5;
+import game.PongGame;
+import sim.PaddleAI;
+
+import java.awt.Canvas;
+import java.awt.Graphics2D;
+import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Checks that the steady state of the game allocates no more than a budget per frame.
+ * <p>
+ * An AI vs AI match is played one update and one draw per frame into an offscreen image, with
+ * full repaints and with dirty regions, and restarted with a tap on R whenever it ends, so
+ * points and game overs are part of the measured frames. The frame is warmed up until every
+ * cached layer has been rendered and the JIT has stopped compiling, since the JDK's image drawing
+ * only stops allocating once escape analysis has removed its temporaries. Then the bytes each
+ * frame allocates on the game thread are read from the HotSpot ThreadMXBean. The check fails if
+ * the average over all measured frames exceeds the budget.
+ * <p>
+ * The Graphics is created once, outside the measured frames; the one GDV5.render() gets from
+ * the buffer strategy every frame is not part of update() and draw().
+ * <p>
+ * Usage: {@code java -Djava.awt.headless=true -cp out bench.AllocationBudgetCheck [frames] [budgetBytesPerFrame]}
+ * <br>
+ * Exits with 1 if any scenario is over budget.
+ */
+public class AllocationBudgetCheck {
+    private static final int WARMUP_FRAMES = 20_000;
+    // Warm-up goes on in chunks of this many frames until a chunk passes without JIT compilation
+    private static final int WARMUP_CHUNK = 10_000;
+    private static final int MAX_WARMUP_FRAMES = 300_000;
+    private static final long SEED = 42;
+    private static final Canvas EVENT_SOURCE = new Canvas();
+    private static final KeyEvent RESTART_PRESSED =
+            new KeyEvent(EVENT_SOURCE, KeyEvent.KEY_PRESSED, 0, 0, KeyEvent.VK_R, KeyEvent.CHAR_UNDEFINED);
+    private static final KeyEvent RESTART_RELEASED =
+            new KeyEvent(EVENT_SOURCE, KeyEvent.KEY_RELEASED, 0, 0, KeyEvent.VK_R, KeyEvent.CHAR_UNDEFINED);
+
+    public static void main(String[] args) {
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        double budget = args.length > 1 ? Double.parseDouble(args[1]) : 0;
+        System.out.printf("Allocation per frame, update() + draw(), %d frames after the JIT settled, budget %.1f B%n",
+                frames, budget);
+        System.out.printf("%-16s %8s %10s %10s %18s%n", "scenario", "warm-up", "B/frame", "worst B", "frames allocating");
+        boolean failed = !check("full repaint", false, frames, budget);
+        failed |= !check("dirty regions", true, frames, budget);
+        System.exit(failed ? 1 : 0);
+    }
+
+    /**
+     * Plays and measures one scenario and prints its row.
+     * @return False if the scenario is over budget
+     */
+    private static boolean check(String name, boolean dirtyRegions, int frames, double budget) {
+        PongGame game = new PongGame(SEED);
+        game.setComputerPlayer(true, PaddleAI.Difficulty.EASY);
+        game.setComputerPlayer(false, PaddleAI.Difficulty.HARD);
+        game.setDirtyRegions(dirtyRegions);
+        BufferedImage image = new BufferedImage(GDV5.DEFAULT_WIDTH, GDV5.DEFAULT_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        CompilationMXBean jit = ManagementFactory.getCompilationMXBean();
+        int warmup = 0;
+        long compiling;
+        do {
+            compiling = jit.getTotalCompilationTime();
+            int chunk = warmup < WARMUP_FRAMES ? WARMUP_FRAMES : WARMUP_CHUNK;
+            for (int i = 0; i < chunk; i++) {
+                frame(game, g, image);
+            }
+            warmup += chunk;
+        } while (jit.getTotalCompilationTime() != compiling && warmup < MAX_WARMUP_FRAMES);
+
+        long total = 0;
+        long worst = 0;
+        int allocating = 0;
+        for (int i = 0; i < frames; i++) {
+            long before = Microbench.allocatedBytes();
+            frame(game, g, image);
+            long bytes = Microbench.allocatedBytes() - before;
+            total += bytes;
+            worst = Math.max(worst, bytes);
+            if (bytes > 0) {
+                allocating++;
+            }
+        }
+        g.dispose();
+
+        double perFrame = (double) total / frames;
+        boolean ok = perFrame <= budget;
+        System.out.printf("%-16s %8d %10.1f %10d %18d %s%n", name, warmup, perFrame, worst, allocating,
+                ok ? "ok" : "OVER BUDGET");
+        return ok;
+    }
+
+    /**
+     * One frame as the game loop runs it: a restart tap if the match is over, an update and a draw.
+     */
+    private static void frame(PongGame game, Graphics2D g, BufferedImage image) {
+        if (game.getSimulation().isGameOver()) {
+            game.keyPressed(RESTART_PRESSED);
+            game.keyReleased(RESTART_RELEASED);
+        }
+        game.tick();
+        if (game.isCleanCanvas()) {
+            g.setColor(game.getBackground());
+            g.fillRect(0, 0, image.getWidth(), image.getHeight());
+        }
+        game.draw(g);
+    }
+}
@@ -0,0 +1,121 @@
+package bench;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Minimal in-process micro-benchmark harness.
+ * <p>
+ * Each benchmark is warmed up for a fixed time, then measured over several timed iterations.
+ * Results report the mean time per operation and the bytes allocated per operation, read from
+ * the per-thread allocation counter of the HotSpot ThreadMXBean (the same counter JMH's gc
+ * profiler uses).
+ */
+public final class Microbench {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // Results are folded into this field so the JIT cannot drop the benchmarked work
+    private static volatile long sink;
+
+    private final long warmupNanos;
+    private final long iterationNanos;
+    private final int iterations;
+
+    /**
+     * A single benchmarked operation. Implementations should return a value derived from the
+     * work they did so it can be consumed.
+     */
+    public interface Operation {
+        long run();
+    }
+
+    /**
+     * Result of one benchmark.
+     */
+    public static final class Result {
+        public final String name;
+        public final double nanosPerOp;
+        public final double bytesPerOp;
+        public final long ops;
+
+        Result(String name, double nanosPerOp, double bytesPerOp, long ops) {
+            this.name = name;
+            this.nanosPerOp = nanosPerOp;
+            this.bytesPerOp = bytesPerOp;
+            this.ops = ops;
+        }
+
+        /** @return Allocation rate in MB per second of benchmarked time */
+        public double allocationRateMBps() {
+            return nanosPerOp == 0 ? 0 : bytesPerOp / nanosPerOp * 1e9 / (1024 * 1024);
+        }
+    }
+
+    /**
+     * @param warmupMillis Time spent running the operation before measuring
+     * @param iterationMillis Length of each measured iteration
+     * @param iterations Number of measured iterations
+     */
+    public Microbench(int warmupMillis, int iterationMillis, int iterations) {
+        this.warmupNanos = warmupMillis * 1_000_000L;
+        this.iterationNanos = iterationMillis * 1_000_000L;
+        this.iterations = iterations;
+    }
+
+    /**
+     * Runs the operation on the calling thread and returns its averaged result.
+     * @param name Benchmark name used in reports
+     * @param op Operation to measure
+     */
+    public Result measure(String name, Operation op) {
+        long acc = 0;
+        // warm up until the JIT has settled
+        long end = System.nanoTime() + warmupNanos;
+        while (System.nanoTime() < end) {
+            for (int i = 0; i < 1000; i++) {
+                acc += op.run();
+            }
+        }
+
+        // calibrate a batch size so the clock is read rarely
+        int batch = 1;
+        long start = System.nanoTime();
+        while (System.nanoTime() - start < 1_000_000L && batch < (1 << 24)) {
+            for (int i = 0; i < batch; i++) {
+                acc += op.run();
+            }
+            batch <<= 1;
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long totalOps = 0;
+        long totalNanos = 0;
+        long totalBytes = 0;
+        for (int it = 0; it < iterations; it++) {
+            long ops = 0;
+            long bytesBefore = THREADS.getThreadAllocatedBytes(threadId);
+            long t0 = System.nanoTime();
+            long t1;
+            do {
+                for (int i = 0; i < batch; i++) {
+                    acc += op.run();
+                }
+                ops += batch;
+                t1 = System.nanoTime();
+            } while (t1 - t0 < iterationNanos);
+            long bytesAfter = THREADS.getThreadAllocatedBytes(threadId);
+            totalOps += ops;
+            totalNanos += t1 - t0;
+            totalBytes += bytesAfter - bytesBefore;
+        }
+        sink += acc;
+        return new Result(name, (double) totalNanos / totalOps, (double) totalBytes / totalOps, totalOps);
+    }
+
+    /**
+     * @return Bytes allocated so far by the calling thread
+     */
+    public static long allocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,299 @@
+package bench;
+
+import game.GDV5;
+import game.MultiBallRenderer;
+import game.PongGame;
+import objects.Ball;
+import sim.BatchPaddleAI;
+import sim.BatchSimulation;
+import sim.MultiBallSimulation;
+import sim.PaddleAI;
+import sim.PongSimulation;
+
+import java.awt.Canvas;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Benchmarks for the game loop hot paths: update, collision, ball movement and drawing.
+ * <p>
+ * Usage: {@code java -Djava.awt.headless=true -cp out bench.PongBenchmarks [options] [filter]}
+ * <ul>
+ * <li>{@code --save file} writes the results as a baseline</li>
+ * <li>{@code --baseline file} compares the results against a saved baseline</li>
+ * <li>{@code --quick} uses short warmup and measurement times</li>
+ * </ul>
+ * Only benchmarks whose name contains the filter are run.
+ */
+public class PongBenchmarks {
+    private static final int BATCH_MATCHES = 10_000;
+    private static final int MULTI_BALLS = 2000;
+
+    private static int holdTicks = 0;
+    private static final Canvas EVENT_SOURCE = new Canvas();
+    private static final KeyEvent[] PRESSED = new KeyEvent[KeyEvent.KEY_LAST + 1];
+    private static final KeyEvent[] RELEASED = new KeyEvent[KeyEvent.KEY_LAST + 1];
+
+    public static void main(String[] args) throws IOException {
+        String filter = "";
+        Path save = null;
+        Path baseline = null;
+        Microbench bench = new Microbench(2000, 1000, 5);
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--save":
+                    save = Paths.get(args[++i]);
+                    break;
+                case "--baseline":
+                    baseline = Paths.get(args[++i]);
+                    break;
+                case "--quick":
+                    bench = new Microbench(300, 200, 3);
+                    break;
+                default:
+                    filter = args[i];
+            }
+        }
+
+        List<Microbench.Result> results = new ArrayList<>();
+        for (Case c : cases()) {
+            if (c.name.contains(filter)) {
+                results.add(bench.measure(c.name, c.op));
+            }
+        }
+
+        Properties previous = new Properties();
+        if (baseline != null) {
+            try (InputStream in = Files.newInputStream(baseline)) {
+                previous.load(in);
+            }
+        }
+        System.out.println(String.format(Locale.ROOT, "%-32s %12s %10s %12s %10s",
+                "Benchmark", "ns/op", "B/op", "alloc MB/s", "vs base"));
+        Properties current = new Properties();
+        for (Microbench.Result r : results) {
+            String delta = "";
+            String base = previous.getProperty(r.name + ".ns");
+            if (base != null) {
+                delta = String.format(Locale.ROOT, "%+.1f%%", (r.nanosPerOp / Double.parseDouble(base) - 1) * 100);
+            }
+            System.out.println(String.format(Locale.ROOT, "%-32s %12.2f %10.1f %12.1f %10s",
+                    r.name, r.nanosPerOp, r.bytesPerOp, r.allocationRateMBps(), delta));
+            current.setProperty(r.name + ".ns", Double.toString(r.nanosPerOp));
+            current.setProperty(r.name + ".bytes", Double.toString(r.bytesPerOp));
+        }
+        if (save != null) {
+            try (OutputStream out = Files.newOutputStream(save)) {
+                current.store(out, "PongBenchmarks baseline");
+            }
+        }
+    }
+
+    /**
+     * A named benchmark.
+     */
+    private static final class Case {
+        final String name;
+        final Microbench.Operation op;
+
+        Case(String name, Microbench.Operation op) {
+            this.name = name;
+            this.op = op;
+        }
+    }
+
+    private static List<Case> cases() {
+        List<Case> cases = new ArrayList<>();
+
+        // Full game tick (input drain + update) with both players holding keys, restarting whenever a match ends
+        PongGame updateGame = new PongGame();
+        cases.add(new Case("PongGame.update", () -> {
+            holdKeys(updateGame);
+            updateGame.tick();
+            return updateGame.getSimulation().getBall().getX();
+        }));
+
+        PongSimulation sim = new PongSimulation();
+        int[] tick = {0};
+        cases.add(new Case("PongSimulation.step", () -> {
+            int inputs = (tick[0]++ / 40 & 1) == 0
+                    ? PongSimulation.LEFT_UP | PongSimulation.RIGHT_DOWN
+                    : PongSimulation.LEFT_DOWN | PongSimulation.RIGHT_UP;
+            if (sim.isGameOver()) {
+                inputs |= PongSimulation.RESTART;
+            }
+            sim.step(inputs);
+            return sim.getBall().getY();
+        }));
+
+        // Ball moving onto a paddle from each side in turn
+        Rectangle stationary = new Rectangle(500, 300, 15, 80);
+        Rectangle[] projectiles = {
+                new Rectangle(490, 330, 15, 15),
+                new Rectangle(510, 290, 15, 15),
+                new Rectangle(510, 375, 15, 15),
+                new Rectangle(505, 330, 15, 15)
+        };
+        int[][] moves = {{6, 1}, {1, 6}, {1, -6}, {-6, 1}};
+        int[] which = {0};
+        cases.add(new Case("GDV5.collisionDirection", () -> {
+            int k = which[0]++ & 3;
+            return GDV5.collisionDirection(stationary, projectiles[k], moves[k][0], moves[k][1]);
+        }));
+
+        Ball ball = new Ball(600, 400, PongSimulation.BALL_SIZE);
+        cases.add(new Case("Ball.update", () -> {
+            ball.update();
+            if (ball.getX() < 0 || ball.getX() > 1200 || ball.getY() < 0 || ball.getY() > 800) {
+                ball.reset(600, 400, ball.getX() < 0 ? 1 : -1);
+            }
+            return ball.getX();
+        }));
+
+        Ball rectBall = new Ball(600, 400, PongSimulation.BALL_SIZE);
+        cases.add(new Case("Ball.getRectangle", () -> rectBall.getRectangle().x));
+
+        // Draw into an offscreen image the way GDV5.render() does
+        PongGame drawGame = new PongGame();
+        cases.add(drawCase("PongGame.draw", drawGame));
+        PongGame dirtyGame = new PongGame();
+        dirtyGame.setDirtyRegions(true);
+        cases.add(drawCase("PongGame.draw(dirty)", dirtyGame));
+
+        BatchSimulation batch = new BatchSimulation(BATCH_MATCHES, 42);
+        batch.setAutoRestart(true);
+        int[] batchInputs = new int[BATCH_MATCHES];
+        for (int i = 0; i < BATCH_MATCHES; i++) {
+            batchInputs[i] = (i & 1) == 0 ? PongSimulation.LEFT_UP : PongSimulation.RIGHT_DOWN;
+        }
+        cases.add(new Case("BatchSimulation.step(10k)", () -> {
+            batch.step(batchInputs);
+            return batch.getBallX(0);
+        }));
+
+        // AI vs AI match, one decision per paddle per tick
+        PongSimulation aiSim = new PongSimulation(PongSimulation.DEFAULT_WIDTH, PongSimulation.DEFAULT_HEIGHT, 42, false);
+        PaddleAI leftAI = new PaddleAI(true, PaddleAI.Difficulty.HARD, 1);
+        PaddleAI rightAI = new PaddleAI(false, PaddleAI.Difficulty.NORMAL, 2);
+        cases.add(new Case("PaddleAI.inputs", () -> {
+            int inputs = leftAI.inputs(aiSim) | rightAI.inputs(aiSim);
+            aiSim.step(aiSim.isGameOver() ? PongSimulation.RESTART : inputs);
+            return inputs;
+        }));
+
+        // Both sides of every match in the batch played by the AI, then stepped
+        BatchSimulation aiBatch = new BatchSimulation(BATCH_MATCHES, 42);
+        aiBatch.setAutoRestart(true);
+        BatchPaddleAI leftBatchAI = new BatchPaddleAI(aiBatch, true, PaddleAI.Difficulty.HARD, 1);
+        BatchPaddleAI rightBatchAI = new BatchPaddleAI(aiBatch, false, PaddleAI.Difficulty.NORMAL, 2);
+        int[] aiInputs = new int[BATCH_MATCHES];
+        cases.add(new Case("BatchPaddleAI.step(10k)", () -> {
+            Arrays.fill(aiInputs, 0);
+            leftBatchAI.addInputs(aiInputs);
+            rightBatchAI.addInputs(aiInputs);
+            aiBatch.step(aiInputs);
+            return aiBatch.getBallX(0);
+        }));
+
+        // Multi-ball stress mode, grid broadphase against testing every pair
+        MultiBallSimulation multi = new MultiBallSimulation(GDV5.DEFAULT_WIDTH, GDV5.DEFAULT_HEIGHT, MULTI_BALLS, 42);
+        cases.add(new Case("MultiBall.step(2000)", () -> {
+            multi.step(0);
+            return multi.getContacts();
+        }));
+        MultiBallSimulation multiPairs = new MultiBallSimulation(GDV5.DEFAULT_WIDTH, GDV5.DEFAULT_HEIGHT, MULTI_BALLS, 42);
+        multiPairs.setBroadphase(false);
+        cases.add(new Case("MultiBall.step(2000, all pairs)", () -> {
+            multiPairs.step(0);
+            return multiPairs.getContacts();
+        }));
+        MultiBallRenderer multiRenderer = new MultiBallRenderer(GDV5.DEFAULT_WIDTH, GDV5.DEFAULT_HEIGHT,
+                Color.BLACK, MULTI_BALLS, multi.getBallSize());
+        BufferedImage multiImage = new BufferedImage(GDV5.DEFAULT_WIDTH, GDV5.DEFAULT_HEIGHT,
+                BufferedImage.TYPE_INT_RGB);
+        cases.add(new Case("MultiBallRenderer.draw(2000)", () -> {
+            Graphics2D g = multiImage.createGraphics();
+            multiRenderer.draw(g, multi);
+            g.dispose();
+            return multiImage.getRGB(600, 400);
+        }));
+        return cases;
+    }
+
+    /**
+     * Plays the game forward one update per frame and draws it into a reused offscreen image.
+     * Matches restart as soon as they end so the game over overlay does not dominate.
+     */
+    private static Case drawCase(String name, PongGame game) {
+        BufferedImage image = new BufferedImage(GDV5.DEFAULT_WIDTH, GDV5.DEFAULT_HEIGHT,
+                BufferedImage.TYPE_INT_RGB);
+        return new Case(name, () -> {
+            holdKeys(game);
+            game.tick();
+            Graphics2D g = image.createGraphics();
+            if (game.isCleanCanvas()) {
+                g.setColor(game.getBackground());
+                g.fillRect(0, 0, image.getWidth(), image.getHeight());
+            }
+            game.draw(g);
+            g.dispose();
+            return image.getRGB(600, 400);
+        });
+    }
+
+    /**
+     * Alternates both players between up and down every 40 updates, and presses R after a game over.
+     */
+    private static void holdKeys(PongGame game) {
+        int phase = holdTicks++ % 80;
+        if (phase == 0) {
+            press(game, KeyEvent.VK_W);
+            press(game, KeyEvent.VK_DOWN);
+            release(game, KeyEvent.VK_S);
+            release(game, KeyEvent.VK_UP);
+        } else if (phase == 40) {
+            press(game, KeyEvent.VK_S);
+            press(game, KeyEvent.VK_UP);
+            release(game, KeyEvent.VK_W);
+            release(game, KeyEvent.VK_DOWN);
+        }
+        if (game.getSimulation().isGameOver()) {
+            // a tap on R between two updates
+            press(game, KeyEvent.VK_R);
+            release(game, KeyEvent.VK_R);
+        }
+    }
+
+    private static void press(PongGame game, int code) {
+        game.keyPressed(keyEvent(KeyEvent.KEY_PRESSED, code));
+    }
+
+    private static void release(PongGame game, int code) {
+        game.keyReleased(keyEvent(KeyEvent.KEY_RELEASED, code));
+    }
+
+    /**
+     * Returns a cached event so the benchmarks measure the input path rather than event creation.
+     */
+    private static KeyEvent keyEvent(int id, int code) {
+        KeyEvent[] events = id == KeyEvent.KEY_PRESSED ? PRESSED : RELEASED;
+        if (events[code] == null) {
+            events[code] = new KeyEvent(EVENT_SOURCE, id, 0, 0, code, KeyEvent.CHAR_UNDEFINED);
+        }
+        return events[code];
+    }
+}
@@ -0,0 +1,417 @@
+package capture;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Renders frames offscreen and encodes them in the background, as a PNG sequence or as one raw
+ * video stream.
+ * <p>
+ * A fixed pool of frame buffers cycles through a bounded pipeline: the capturing thread paints
+ * into a free buffer and hands it on; a pool of worker threads encodes frames in parallel; a
+ * single writer thread writes them out in capture order and returns the buffers to the pool.
+ * The frame images and the space their encoded bytes go to are reused, so memory stays flat
+ * however long the capture runs.
+ * <p>
+ * An exporter made with a StatePainter supplier can take the painting off the capturing thread
+ * as well: {@link #tryCaptureState} only copies the state a frame shows into the buffer's state
+ * slot, and the workers paint it, each with a painter of its own, before encoding.
+ * <p>
+ * {@link #tryCapture} and {@link #tryCaptureState} never wait: with every buffer still in the
+ * pipeline the frame is dropped and counted, so a live game loop is never stalled by a slow disk.
+ * {@link #capture} waits for a free buffer instead, which is what an offline export wants.
+ * <p>
+ * Raw video is packed 24-bit RGB, top row first, with no header, e.g. for
+ * {@code ffmpeg -f rawvideo -pixel_format rgb24 -video_size 1200x800 -framerate 60 -i match.raw match.mp4}.
+ */
+public class FrameExporter implements Closeable {
+    /**
+     * Output formats.
+     */
+    public enum Format {
+        /** One PNG file per frame, frame_000000.png, frame_000001.png, ... in a directory */
+        PNG,
+        /** Every frame appended to one file of packed RGB24 pixels */
+        RAW
+    }
+
+    /**
+     * Paints one frame over the background, or over the previous contents of the buffer if there
+     * is no background color.
+     */
+    public interface Painter {
+        void paint(Graphics2D g);
+    }
+
+    /**
+     * Copies the state a frame shows into its buffer's state slot, on the capturing thread.
+     */
+    public interface StateWriter {
+        void write(ByteBuffer state);
+    }
+
+    /**
+     * Paints a frame from a state copied by a StateWriter, over the background as a Painter
+     * does. Runs on a worker thread; every worker has a painter of its own.
+     */
+    public interface StatePainter {
+        void paint(Graphics2D g, ByteBuffer state);
+    }
+
+    private final int width;
+    private final int height;
+    private final Color background;
+    private final Format format;
+    private final Path output;
+    private final OutputStream rawOut;
+
+    private final ArrayBlockingQueue<Frame> free;
+    // frames in capture order, waiting to be written; one extra slot for the end marker
+    private final ArrayBlockingQueue<Frame> ordered;
+    private final ExecutorService encoders;
+    private final Thread writer;
+    private final ThreadLocal<PngEncoder> pngEncoders = ThreadLocal.withInitial(PngEncoder::new);
+    // null unless frames are painted from states on the workers
+    private final ThreadLocal<StatePainter> statePainters;
+    private final Frame end;
+
+    private boolean closed = false;
+    private long nextIndex = 0;
+    private IOException failure;
+
+    // Statistics
+    private volatile long framesWritten = 0;
+    private volatile long framesDropped = 0;
+    private volatile long bytesWritten = 0;
+    private final AtomicLong encodeNanos = new AtomicLong();
+
+    /**
+     * A frame buffer and the reusable space its encoded form is written to.
+     */
+    private static final class Frame {
+        final BufferedImage image;
+        final int[] pixels;
+        final Bytes encoded = new Bytes();
+        // slot for the state a worker paints, or null if the exporter has no state painters
+        final ByteBuffer state;
+        // true if a worker paints the frame from state, false if the capturing thread painted it
+        boolean fromState;
+        long index;
+        Future<?> done;
+
+        Frame(int width, int height, int stateBytes) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            state = stateBytes > 0 ? ByteBuffer.allocate(stateBytes) : null;
+        }
+    }
+
+    /**
+     * A ByteArrayOutputStream that keeps its array across frames and lets the writer reach it.
+     */
+    private static final class Bytes extends ByteArrayOutputStream {
+        byte[] array() {
+            return buf;
+        }
+
+        /**
+         * Makes room for the given size and marks it all written, for filling the array directly.
+         */
+        byte[] fill(int size) {
+            if (buf.length < size) {
+                buf = new byte[size];
+            }
+            count = size;
+            return buf;
+        }
+    }
+
+    /**
+     * @param width Frame width in pixels
+     * @param height Frame height in pixels
+     * @param background Color each frame is cleared to before painting, or null if the painter
+     * covers every pixel
+     * @param format Output format
+     * @param output Directory for PNG frames (created if missing), or file for raw video
+     * @param workers Number of encoding threads
+     * @param buffers Number of frame buffers; more absorb longer stalls of the encoders or the disk
+     */
+    public FrameExporter(int width, int height, Color background, Format format, Path output, int workers,
+                         int buffers) throws IOException {
+        this(width, height, background, format, output, workers, buffers, 0, null);
+    }
+
+    /**
+     * @param width Frame width in pixels
+     * @param height Frame height in pixels
+     * @param background Color each frame is cleared to before painting, or null if the painter
+     * covers every pixel
+     * @param format Output format
+     * @param output Directory for PNG frames (created if missing), or file for raw video
+     * @param workers Number of encoding threads
+     * @param buffers Number of frame buffers; more absorb longer stalls of the encoders or the disk
+     * @param stateBytes Size of the state slot of each buffer, for tryCaptureState()
+     * @param painters Creates the painter of each worker, for tryCaptureState()
+     */
+    public FrameExporter(int width, int height, Color background, Format format, Path output, int workers,
+                         int buffers, int stateBytes, Supplier<? extends StatePainter> painters) throws IOException {
+        this.width = width;
+        this.height = height;
+        this.background = background;
+        this.format = format;
+        this.output = output;
+        if (format == Format.PNG) {
+            Files.createDirectories(output);
+            this.rawOut = null;
+        } else {
+            this.rawOut = Files.newOutputStream(output);
+        }
+        free = new ArrayBlockingQueue<>(buffers);
+        for (int i = 0; i < buffers; i++) {
+            free.add(new Frame(width, height, stateBytes));
+        }
+        ordered = new ArrayBlockingQueue<>(buffers + 1);
+        end = new Frame(1, 1, 0);
+        statePainters = painters == null ? null : ThreadLocal.withInitial(painters);
+        AtomicInteger count = new AtomicInteger();
+        encoders = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "Frame encoder " + count.getAndIncrement());
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        writer = new Thread(this::writeLoop, "Frame writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Exports with one encoder per processor, two buffers per encoder and one being painted.
+     */
+    public FrameExporter(int width, int height, Color background, Format format, Path output) throws IOException {
+        this(width, height, background, format, output, Runtime.getRuntime().availableProcessors(),
+                2 * Runtime.getRuntime().availableProcessors() + 1);
+    }
+
+    /**
+     * Exports frames painted from states on the workers, with one encoder per processor, two
+     * buffers per encoder and one being copied.
+     */
+    public FrameExporter(int width, int height, Color background, Format format, Path output, int stateBytes,
+                         Supplier<? extends StatePainter> painters) throws IOException {
+        this(width, height, background, format, output, Runtime.getRuntime().availableProcessors(),
+                2 * Runtime.getRuntime().availableProcessors() + 1, stateBytes, painters);
+    }
+
+    /**
+     * Captures a frame if a buffer is free, without waiting. Painting runs on the calling thread.
+     * @return False if the frame was dropped because the pipeline is full or closed
+     */
+    public boolean tryCapture(Painter painter) {
+        Frame frame = free.poll();
+        if (frame == null) {
+            framesDropped++;
+            return false;
+        }
+        return submit(frame, painter);
+    }
+
+    /**
+     * Captures a frame, waiting for a free buffer if the encoders are behind.
+     * @return False if the exporter has been closed
+     */
+    public boolean capture(Painter painter) throws InterruptedException {
+        return submit(free.take(), painter);
+    }
+
+    /**
+     * Captures a frame from a copy of the state it shows if a buffer is free, without waiting.
+     * Only the copy runs on the calling thread; a worker paints the frame.
+     * @return False if the frame was dropped because the pipeline is full or closed
+     * @throws IllegalStateException If the exporter was made without StatePainters
+     */
+    public boolean tryCaptureState(StateWriter writer) {
+        if (statePainters == null) {
+            throw new IllegalStateException("exporter has no state painters");
+        }
+        Frame frame = free.poll();
+        if (frame == null) {
+            framesDropped++;
+            return false;
+        }
+        frame.state.clear();
+        writer.write(frame.state);
+        frame.state.flip();
+        frame.fromState = true;
+        return enqueue(frame);
+    }
+
+    private boolean submit(Frame frame, Painter painter) {
+        Graphics2D g = frame.image.createGraphics();
+        try {
+            clear(g);
+            painter.paint(g);
+        } finally {
+            g.dispose();
+        }
+        frame.fromState = false;
+        return enqueue(frame);
+    }
+
+    private void clear(Graphics2D g) {
+        if (background != null) {
+            g.setColor(background);
+            g.fillRect(0, 0, width, height);
+        }
+    }
+
+    /**
+     * Hands a filled buffer to the encoders, or back to the pool if the exporter is closed.
+     */
+    private boolean enqueue(Frame frame) {
+        synchronized (this) {
+            if (closed) {
+                free.add(frame);
+                return false;
+            }
+            frame.index = nextIndex++;
+            frame.done = encoders.submit(() -> encode(frame));
+            ordered.add(frame); // never full: a slot per buffer plus the end marker
+        }
+        return true;
+    }
+
+    /**
+     * Runs on an encoder thread.
+     */
+    private Void encode(Frame frame) {
+        long start = System.nanoTime();
+        if (frame.fromState) {
+            Graphics2D g = frame.image.createGraphics();
+            try {
+                clear(g);
+                statePainters.get().paint(g, frame.state);
+            } finally {
+                g.dispose();
+            }
+        }
+        if (format == Format.RAW) {
+            int[] pixels = frame.pixels;
+            byte[] rgb = frame.encoded.fill(pixels.length * 3);
+            for (int i = 0, j = 0; i < pixels.length; i++, j += 3) {
+                int p = pixels[i];
+                rgb[j] = (byte) (p >> 16);
+                rgb[j + 1] = (byte) (p >> 8);
+                rgb[j + 2] = (byte) p;
+            }
+        } else {
+            frame.encoded.reset();
+            pngEncoders.get().encode(frame.pixels, width, height, frame.encoded);
+        }
+        encodeNanos.addAndGet(System.nanoTime() - start);
+        return null;
+    }
+
+    /**
+     * Writer thread: writes encoded frames in capture order and recycles their buffers.
+     */
+    private void writeLoop() {
+        while (true) {
+            Frame frame;
+            try {
+                frame = ordered.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (frame == end) {
+                return;
+            }
+            try {
+                frame.done.get();
+                if (failure == null) {
+                    write(frame);
+                    framesWritten++;
+                    bytesWritten += frame.encoded.size();
+                }
+            } catch (ExecutionException | IOException e) {
+                Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+                if (failure == null) {
+                    System.out.println("Error exporting frame " + frame.index + " -> " + cause.getMessage());
+                    failure = cause instanceof IOException ? (IOException) cause : new IOException(cause);
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            free.add(frame);
+        }
+    }
+
+    private void write(Frame frame) throws IOException {
+        if (format == Format.RAW) {
+            rawOut.write(frame.encoded.array(), 0, frame.encoded.size());
+        } else {
+            try (OutputStream out = Files.newOutputStream(output.resolve(String.format("frame_%06d.png", frame.index)))) {
+                frame.encoded.writeTo(out);
+            }
+        }
+    }
+
+    /**
+     * Finishes every captured frame and closes the output. Later captures are dropped.
+     * @throws IOException If encoding or writing any frame failed
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            ordered.add(end);
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        encoders.shutdown();
+        if (rawOut != null) {
+            rawOut.close();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /** @return Frame width */
+    public int getWidth() { return width; }
+    /** @return Frame height */
+    public int getHeight() { return height; }
+    /** @return Output format */
+    public Format getFormat() { return format; }
+    /** @return Frames written to the output */
+    public long getFramesWritten() { return framesWritten; }
+    /** @return Frames dropped by tryCapture() because no buffer was free */
+    public long getFramesDropped() { return framesDropped; }
+    /** @return Encoded bytes written */
+    public long getBytesWritten() { return bytesWritten; }
+    /** @return Total time the workers spent painting (for tryCaptureState()) and encoding frames, over all threads */
+    public long getEncodeNanos() { return encodeNanos.get(); }
+}
@@ -0,0 +1,188 @@
+package capture;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Minimal PNG writer for opaque frames, tuned for speed over size.
+ * <p>
+ * Each scanline uses the Sub filter, which turns the large flat areas of a game frame into runs
+ * of zeros, and the result is deflated at the fastest level. The image is compressed in bands of
+ * BAND_ROWS rows, each as a self-contained piece of the deflate stream (a fresh compressor
+ * flushed to a byte boundary), written as its own IDAT chunk. Consecutive frames of a match
+ * differ only around the ball and paddles, so a band whose pixels equal the ones this encoder
+ * saw last time reuses its finished chunk and checksum; only the bands that changed are
+ * filtered and compressed again.
+ * <p>
+ * An encoder keeps its buffers between frames and is not thread-safe; use one per thread.
+ */
+final class PngEncoder {
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int BAND_ROWS = 16;
+    private static final int ADLER_BASE = 65521;
+    // zlib header: deflate, 32K window, fastest compression
+    private static final byte[] ZLIB_HEADER = {0x78, 0x01};
+    // An empty final deflate block (fixed Huffman codes, end of block only)
+    private static final byte[] FINAL_BLOCK = {0x03, 0x00};
+
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+    private final CRC32 crc = new CRC32();
+    private final Adler32 adler = new Adler32();
+    private final byte[] small = new byte[8 + 32 + 4];
+    private byte[] scratch = new byte[0];
+
+    // State of the last frame encoded, for reusing unchanged bands
+    private int width = -1;
+    private int height = -1;
+    private int[] lastPixels;
+    private byte[] filtered;
+    private byte[][] bandChunks;
+    private int[] bandChunkBytes;
+    private int[] bandAdler;
+
+    /**
+     * Encodes packed RGB pixels, top row first.
+     * @param pixels width * height pixels as 0xRRGGBB
+     * @param out Receives the complete PNG file
+     */
+    void encode(int[] pixels, int width, int height, ByteArrayOutputStream out) {
+        int stride = 1 + width * 3;
+        int bands = (height + BAND_ROWS - 1) / BAND_ROWS;
+        boolean reuse = width == this.width && height == this.height;
+        if (!reuse) {
+            this.width = width;
+            this.height = height;
+            lastPixels = new int[width * height];
+            filtered = new byte[stride * height];
+            bandChunks = new byte[bands][0];
+            bandChunkBytes = new int[bands];
+            bandAdler = new int[bands];
+        }
+
+        out.write(SIGNATURE, 0, SIGNATURE.length);
+        putInt(small, 8, width);
+        putInt(small, 12, height);
+        small[16] = 8; // bits per channel
+        small[17] = 2; // truecolor
+        small[18] = 0; // deflate
+        small[19] = 0; // adaptive filtering
+        small[20] = 0; // not interlaced
+        writeSmallChunk(out, "IHDR", 13);
+        System.arraycopy(ZLIB_HEADER, 0, small, 8, ZLIB_HEADER.length);
+        writeSmallChunk(out, "IDAT", ZLIB_HEADER.length);
+
+        int checksum = 1;
+        for (int band = 0; band < bands; band++) {
+            int firstRow = band * BAND_ROWS;
+            int rows = Math.min(BAND_ROWS, height - firstRow);
+            int from = firstRow * width;
+            int to = from + rows * width;
+            if (!reuse || !Arrays.equals(pixels, from, to, lastPixels, from, to)) {
+                System.arraycopy(pixels, from, lastPixels, from, to - from);
+                compressBand(pixels, band, firstRow, rows, stride);
+            }
+            out.write(bandChunks[band], 0, bandChunkBytes[band]);
+            checksum = combineAdler(checksum, bandAdler[band], (long) rows * stride);
+        }
+
+        System.arraycopy(FINAL_BLOCK, 0, small, 8, FINAL_BLOCK.length);
+        putInt(small, 8 + FINAL_BLOCK.length, checksum);
+        writeSmallChunk(out, "IDAT", FINAL_BLOCK.length + 4);
+        writeSmallChunk(out, "IEND", 0);
+    }
+
+    /**
+     * Filters a band's rows and compresses them into a complete IDAT chunk, flushed so the
+     * chunk can follow any other band's.
+     */
+    private void compressBand(int[] pixels, int band, int firstRow, int rows, int stride) {
+        byte[] data = filtered;
+        for (int y = firstRow; y < firstRow + rows; y++) {
+            int j = y * stride;
+            data[j++] = 1; // Sub: each byte minus the same channel of the pixel to its left
+            int r = 0, g = 0, b = 0;
+            for (int i = y * width, last = i + width; i < last; i++) {
+                int p = pixels[i];
+                int pr = (p >> 16) & 0xFF, pg = (p >> 8) & 0xFF, pb = p & 0xFF;
+                data[j] = (byte) (pr - r);
+                data[j + 1] = (byte) (pg - g);
+                data[j + 2] = (byte) (pb - b);
+                j += 3;
+                r = pr;
+                g = pg;
+                b = pb;
+            }
+        }
+        int offset = firstRow * stride;
+        int length = rows * stride;
+        adler.reset();
+        adler.update(data, offset, length);
+        bandAdler[band] = (int) adler.getValue();
+
+        // worst case for deflate is a little over the input size
+        int capacity = 8 + length + length / 1000 + 64 + 4;
+        if (scratch.length < capacity) {
+            scratch = new byte[capacity];
+        }
+        deflater.reset();
+        deflater.setInput(data, offset, length);
+        int n = 0;
+        int space;
+        int written;
+        do {
+            space = capacity - 12 - n;
+            written = deflater.deflate(scratch, 8 + n, space, Deflater.FULL_FLUSH);
+            n += written;
+        } while (written == space && space > 0);
+        finishChunk(scratch, "IDAT", n);
+        if (bandChunks[band].length < 12 + n) {
+            bandChunks[band] = new byte[12 + n + n / 4];
+        }
+        System.arraycopy(scratch, 0, bandChunks[band], 0, 12 + n);
+        bandChunkBytes[band] = 12 + n;
+    }
+
+    private void writeSmallChunk(ByteArrayOutputStream out, String type, int length) {
+        finishChunk(small, type, length);
+        out.write(small, 0, 12 + length);
+    }
+
+    /**
+     * Fills in the length, type and CRC around chunk data already at buf[8..8+length).
+     */
+    private void finishChunk(byte[] buf, String type, int length) {
+        putInt(buf, 0, length);
+        for (int i = 0; i < 4; i++) {
+            buf[4 + i] = (byte) type.charAt(i);
+        }
+        crc.reset();
+        crc.update(buf, 4, 4 + length);
+        putInt(buf, 8 + length, (int) crc.getValue());
+    }
+
+    /**
+     * Adler-32 of two pieces of data from the checksums of each, as zlib's adler32_combine.
+     */
+    private static int combineAdler(int first, int second, long secondLength) {
+        long rem = secondLength % ADLER_BASE;
+        long sum1 = first & 0xFFFF;
+        long sum2 = rem * sum1 % ADLER_BASE;
+        sum1 += (second & 0xFFFF) + ADLER_BASE - 1;
+        sum2 += ((first >>> 16) & 0xFFFF) + ((second >>> 16) & 0xFFFF) + ADLER_BASE - rem;
+        if (sum1 >= ADLER_BASE) sum1 -= ADLER_BASE;
+        if (sum1 >= ADLER_BASE) sum1 -= ADLER_BASE;
+        if (sum2 >= 2L * ADLER_BASE) sum2 -= 2L * ADLER_BASE;
+        if (sum2 >= ADLER_BASE) sum2 -= ADLER_BASE;
+        return (int) (sum1 | (sum2 << 16));
+    }
+
+    private static void putInt(byte[] b, int offset, int value) {
+        b[offset] = (byte) (value >>> 24);
+        b[offset + 1] = (byte) (value >>> 16);
+        b[offset + 2] = (byte) (value >>> 8);
+        b[offset + 3] = (byte) value;
+    }
+}
@@ -0,0 +1,66 @@
+package capture;
+
+import game.PongRenderer;
+import replay.ReplayPlayer;
+import sim.PongSimulation;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Renders a replay, or part of one, to video frames headless.
+ * <p>
+ * Every tick is drawn by the same PongRenderer the game uses and handed to a FrameExporter,
+ * which encodes the frames on all processors while this thread steps and draws the next ones.
+ * Nothing waits on a clock, so export runs as fast as drawing and encoding allow.
+ * <p>
+ * Usage: {@code java -Djava.awt.headless=true -cp out capture.ReplayExport replay out [png|raw] [from to] [workers]}
+ * writes PNG frames into the directory out, or raw RGB24 video into the file out.
+ */
+public class ReplayExport {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.out.println("Usage: ReplayExport replay out [png|raw] [from to] [workers]");
+            return;
+        }
+        Path output = Paths.get(args[1]);
+        FrameExporter.Format format = args.length > 2 && args[2].equals("raw")
+                ? FrameExporter.Format.RAW : FrameExporter.Format.PNG;
+        int workers = args.length > 5 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+
+        try (ReplayPlayer player = new ReplayPlayer(Paths.get(args[0]))) {
+            long from = args.length > 3 ? Long.parseLong(args[3]) : 0;
+            long to = args.length > 4 ? Math.min(Long.parseLong(args[4]), player.getTickCount()) : player.getTickCount();
+            PongSimulation sim = player.getSimulation();
+            PongRenderer renderer = new PongRenderer(sim.getWidth(), sim.getHeight(), Color.BLACK, 1);
+            FrameExporter.Painter painter = g -> renderer.draw(g, sim);
+
+            long start = System.nanoTime();
+            // the renderer's static layer covers the whole field, so no clearing is needed
+            FrameExporter exporter = new FrameExporter(sim.getWidth(), sim.getHeight(), null, format,
+                    output, workers, 2 * workers + 1);
+            try {
+                player.seek(from);
+                exporter.capture(painter);
+                while (player.getTick() < to && player.step()) {
+                    exporter.capture(painter);
+                }
+            } finally {
+                exporter.close();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long frames = exporter.getFramesWritten();
+            double matchSeconds = frames / (double) PongSimulation.DEFAULT_TICKS_PER_SECOND;
+            System.out.printf("%d frames (%.1f s of play) exported to %s in %.2f s: %.0f frames/s, %.1fx real time%n",
+                    frames, matchSeconds, output, seconds, frames / seconds, matchSeconds / seconds);
+            System.out.printf("%.1f MB written, encoding %.2f ms per frame on %d workers%n",
+                    exporter.getBytesWritten() / 1e6, exporter.getEncodeNanos() / 1e6 / Math.max(1, frames), workers);
+            if (format == FrameExporter.Format.RAW) {
+                System.out.printf("Play with: ffplay -f rawvideo -pixel_format rgb24 -video_size %dx%d -framerate %d %s%n",
+                        sim.getWidth(), sim.getHeight(), PongSimulation.DEFAULT_TICKS_PER_SECOND, output);
+            }
+        }
+    }
+}
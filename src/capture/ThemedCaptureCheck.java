@@ -0,0 +1,110 @@
+package capture;
+
+import game.AssetCache;
+import game.PongGame;
+import sim.PaddleAI;
+import sim.PongSimulation;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.locks.LockSupport;
+import javax.imageio.ImageIO;
+
+/**
+ * Checks that capturing a themed match leaves the game's own sprites alone.
+ * <p>
+ * An AI vs AI match is themed with a solid red ball and a solid green paddle, drawn once so the
+ * game's cache holds its scaled copies, and then captured to PNG frames while the game goes on
+ * drawing every tick, at 60 ticks per second. The capture's workers draw the sprites from caches
+ * of their own, so the game's cache must not make another scaled copy, and every captured frame
+ * must show both sprites rather than the plain shapes.
+ * <p>
+ * Usage: {@code java -Djava.awt.headless=true -cp out capture.ThemedCaptureCheck [ticks]}
+ * <br>
+ * Exits with 1 if the game's sprites were scaled again or a frame is missing a sprite.
+ */
+public class ThemedCaptureCheck {
+    private static final String BALL = "/check/ball.png";
+    private static final String PADDLE = "/check/paddle.png";
+    private static final int SPRITES = 2;
+    private static final long SEED = 42;
+    private static final long TICK_NANOS = 1_000_000_000L / PongSimulation.DEFAULT_TICKS_PER_SECOND;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 120;
+        PongGame game = new PongGame(SEED);
+        game.setComputerPlayer(true, PaddleAI.Difficulty.EASY);
+        game.setComputerPlayer(false, PaddleAI.Difficulty.HARD);
+        AssetCache assets = game.getAssets();
+        assets.put(BALL, solid(Color.RED));
+        assets.put(PADDLE, solid(Color.GREEN));
+        game.setTheme(BALL, PADDLE);
+
+        BufferedImage screen = new BufferedImage(game.getLogicalWidth(), game.getLogicalHeight(),
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = screen.createGraphics();
+        game.draw(g);
+        long copies = assets.getScaledCopies();
+
+        Path output = Files.createTempDirectory("themed-capture");
+        game.startCapture(output, FrameExporter.Format.PNG);
+        FrameExporter exporter = game.getCapture();
+        // at the game's own pace, so the encoders keep up as they do in play
+        long next = System.nanoTime();
+        for (int i = 0; i < ticks; i++) {
+            game.tick();
+            game.draw(g);
+            next += TICK_NANOS;
+            LockSupport.parkNanos(next - System.nanoTime());
+        }
+        exporter.close();
+        g.dispose();
+
+        int frames = 0;
+        int themed = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(output)) {
+            for (Path file : files) {
+                BufferedImage frame = ImageIO.read(file.toFile());
+                frames++;
+                if (contains(frame, Color.RED) && contains(frame, Color.GREEN)) {
+                    themed++;
+                }
+                Files.delete(file);
+            }
+        }
+        Files.delete(output);
+
+        long rescaled = assets.getScaledCopies() - copies;
+        boolean ok = copies == SPRITES && rescaled == 0 && frames > 0 && themed == frames;
+        System.out.printf("Game sprites scaled %d times before the capture and %d times during it%n", copies, rescaled);
+        System.out.printf("%d of %d captured frames (%d dropped) show both sprites %s%n", themed, frames,
+                exporter.getFramesDropped(), ok ? "ok" : "FAILED");
+        System.exit(ok ? 0 : 1);
+    }
+
+    private static BufferedImage solid(Color color) {
+        BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(color);
+        g.fillRect(0, 0, image.getWidth(), image.getHeight());
+        g.dispose();
+        return image;
+    }
+
+    private static boolean contains(BufferedImage image, Color color) {
+        int rgb = color.getRGB();
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                if (image.getRGB(x, y) == rgb) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,348 @@
+package game;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.imageio.ImageIO;
+
+/**
+ * Decoded images keyed by resource name.
+ * <p>
+ * Each resource is decoded once and converted to an image compatible with the screen, so
+ * drawing it never goes through a per-pixel format conversion. Images drawn at a fixed size
+ * through {@link #draw} also get a pre-scaled copy in a CachedImage, which lives in an
+ * accelerated VolatileImage on screen and is repainted from the decoded image whenever its
+ * surface is lost. Those copies belong to one drawing thread; a renderer on another thread
+ * shares the decoded images through a cache of its own (see {@link #put}) instead.
+ * <p>
+ * The cache keeps the most recently used images within a memory budget and evicts the least
+ * recently used ones beyond it. Resources can be preloaded on a background thread at startup;
+ * {@link #peek} never waits for them, so the game can draw placeholders until they are ready,
+ * while {@link #get} waits for a load already in progress instead of decoding twice. An image
+ * that {@link #draw} finds missing, because it was evicted or never preloaded, is queued for
+ * loading on the same background thread, so it comes back within a few frames.
+ */
+public class AssetCache {
+    public static final long DEFAULT_BUDGET_BYTES = 64L << 20;
+
+    private final Class<?> anchor;
+    private final long budgetBytes;
+    private final GraphicsConfiguration config;
+
+    // Guarded by this; iteration order is least recently used first
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long usedBytes = 0;
+    // Loads in progress, so concurrent requests for one resource share a single decode
+    private final Map<String, CompletableFuture<Entry>> loading = new ConcurrentHashMap<>();
+    // Queued for a background load by draw(), so a miss every frame queues it only once
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+    // Resources that could not be read, which draw() does not queue again
+    private final Set<String> failed = ConcurrentHashMap.newKeySet();
+    private ExecutorService loader;
+
+    // Statistics; get() runs on any thread, the rest are updated under this
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private volatile long loads = 0;
+    private volatile long evictions = 0;
+    private volatile long loadNanos = 0;
+    private volatile long scaledCopies = 0;
+
+    /**
+     * A decoded image and its pre-scaled copy, if it has been drawn.
+     */
+    private static final class Entry {
+        final BufferedImage image;
+        final long imageBytes;
+        // written by the drawing thread only; other threads draw from caches of their own
+        CachedImage scaled;
+        int scaledWidth;
+        int scaledHeight;
+        long scaledBytes;
+
+        Entry(BufferedImage image) {
+            this.image = image;
+            this.imageBytes = bytesOf(image);
+        }
+
+        long bytes() {
+            return imageBytes + scaledBytes;
+        }
+    }
+
+    /**
+     * @param anchor Class whose getResourceAsStream() resolves resource names
+     * @param budgetBytes Memory the cached images may use before the least recently used are
+     * evicted
+     */
+    public AssetCache(Class<?> anchor, long budgetBytes) {
+        this.anchor = anchor;
+        this.budgetBytes = budgetBytes;
+        this.config = GraphicsEnvironment.isHeadless() ? null
+                : GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+    }
+
+    /**
+     * Returns an image, decoding it first if it is not cached. Waits for a preload of the same
+     * resource that is already running.
+     * @param name Resource name
+     * @return The screen-compatible image, or null if it could not be read
+     */
+    public BufferedImage get(String name) {
+        Entry entry = lookup(name);
+        if (entry != null) {
+            hits.incrementAndGet();
+            return entry.image;
+        }
+        misses.incrementAndGet();
+        entry = load(name);
+        return entry == null ? null : entry.image;
+    }
+
+    /**
+     * Returns an image only if it is already cached. Never blocks.
+     * @param name Resource name
+     * @return The screen-compatible image, or null if it is not loaded (yet)
+     */
+    public BufferedImage peek(String name) {
+        Entry entry = lookup(name);
+        return entry == null ? null : entry.image;
+    }
+
+    /**
+     * Draws a cached image scaled to the given size. The scaled copy is made once and kept
+     * accelerated, so repeated draws at the same size are plain blits. Never waits for a load; an image
+     * that is not cached is queued for loading in the background.
+     * @param name Resource name
+     * @return False if the image is not loaded yet, so the caller can draw something else
+     */
+    public boolean draw(Graphics2D g, String name, int x, int y, int width, int height) {
+        Entry entry = lookup(name);
+        if (entry == null) {
+            if (!failed.contains(name) && queued.add(name)) {
+                loader().execute(() -> {
+                    try {
+                        load(name);
+                    } finally {
+                        queued.remove(name);
+                    }
+                });
+            }
+            return false;
+        }
+        if (entry.scaled == null || entry.scaledWidth != width || entry.scaledHeight != height) {
+            BufferedImage source = entry.image;
+            entry.scaled = new CachedImage(width, height, source.getColorModel().getTransparency(), sg -> {
+                sg.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+                sg.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                sg.drawImage(source, 0, 0, width, height, null);
+            });
+            entry.scaledWidth = width;
+            entry.scaledHeight = height;
+            synchronized (this) {
+                scaledCopies++;
+                usedBytes -= entry.scaledBytes;
+                entry.scaledBytes = 4L * width * height;
+                usedBytes += entry.scaledBytes;
+                evict(entry);
+            }
+        }
+        entry.scaled.draw(g, x, y);
+        return true;
+    }
+
+    /**
+     * Caches an image under a name, e.g. one drawn in code or one shared with another cache,
+     * replacing any image of that name. Decoded images are read only, so caches on different
+     * threads can share one while each keeps scaled copies of its own.
+     * @param name Resource name the image is looked up by
+     */
+    public void put(String name, BufferedImage image) {
+        failed.remove(name);
+        insert(name, new Entry(toCompatible(image)));
+    }
+
+    /**
+     * Decodes resources on a background thread.
+     * @param names Resource names
+     * @return Completes once every resource is loaded or has failed
+     */
+    public CompletableFuture<Void> preload(String... names) {
+        List<CompletableFuture<Entry>> futures = new ArrayList<>();
+        for (String name : names) {
+            if (lookup(name) == null) {
+                futures.add(CompletableFuture.supplyAsync(() -> load(name), loader()));
+            }
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+    }
+
+    private synchronized ExecutorService loader() {
+        if (loader == null) {
+            loader = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "Asset loader");
+                t.setDaemon(true);
+                t.setPriority(Thread.MIN_PRIORITY);
+                return t;
+            });
+        }
+        return loader;
+    }
+
+    private synchronized Entry lookup(String name) {
+        return entries.get(name);
+    }
+
+    /**
+     * Decodes and converts a resource, or waits for another thread doing so.
+     */
+    private Entry load(String name) {
+        CompletableFuture<Entry> mine = new CompletableFuture<>();
+        CompletableFuture<Entry> running = loading.putIfAbsent(name, mine);
+        if (running != null) {
+            return running.join();
+        }
+        try {
+            Entry entry = lookup(name); // a load may have finished in between
+            if (entry == null) {
+                BufferedImage image = decode(name);
+                if (image != null) {
+                    entry = new Entry(image);
+                    insert(name, entry);
+                } else {
+                    failed.add(name);
+                }
+            }
+            mine.complete(entry);
+            return entry;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(name, mine);
+        }
+    }
+
+    private BufferedImage decode(String name) {
+        long start = System.nanoTime();
+        try (InputStream in = anchor.getResourceAsStream(name)) {
+            if (in == null) {
+                System.out.println("Error loading image: " + name + " -> resource not found");
+                return null;
+            }
+            BufferedImage decoded = ImageIO.read(in);
+            if (decoded == null) {
+                System.out.println("Error loading image: " + name + " -> unsupported format");
+                return null;
+            }
+            return toCompatible(decoded);
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Error loading image: " + name + " -> " + e.getMessage());
+            return null;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            synchronized (this) {
+                loadNanos += elapsed;
+                loads++;
+            }
+        }
+    }
+
+    /**
+     * Copies a decoded image into the screen's preferred pixel layout, keeping its
+     * transparency. Headless, integer ARGB (premultiplied) or RGB is used.
+     */
+    private BufferedImage toCompatible(BufferedImage source) {
+        int transparency = source.getColorModel().getTransparency();
+        int width = source.getWidth();
+        int height = source.getHeight();
+        BufferedImage target = config != null ? config.createCompatibleImage(width, height, transparency)
+                : new BufferedImage(width, height, transparency == Transparency.OPAQUE
+                        ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB_PRE);
+        if (target.getType() == source.getType() && target.getColorModel().equals(source.getColorModel())) {
+            return source;
+        }
+        Graphics2D g = target.createGraphics();
+        g.setComposite(AlphaComposite.Src);
+        g.drawImage(source, 0, 0, null);
+        g.dispose();
+        return target;
+    }
+
+    private synchronized void insert(String name, Entry entry) {
+        Entry old = entries.put(name, entry);
+        if (old != null) {
+            usedBytes -= old.bytes();
+        }
+        usedBytes += entry.bytes();
+        evict(entry);
+    }
+
+    /**
+     * Evicts least recently used entries until the cache fits its budget. The entry just added
+     * or drawn is kept even if it alone exceeds the budget.
+     */
+    private void evict(Entry keep) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (usedBytes > budgetBytes && it.hasNext()) {
+            Entry e = it.next();
+            if (e == keep) {
+                continue;
+            }
+            it.remove();
+            usedBytes -= e.bytes();
+            evictions++;
+        }
+    }
+
+    /**
+     * Removes every cached image.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        failed.clear();
+        usedBytes = 0;
+    }
+
+    private static long bytesOf(BufferedImage image) {
+        DataBuffer buffer = image.getRaster().getDataBuffer();
+        return (long) buffer.getSize() * buffer.getNumBanks() * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+    }
+
+    /** @return Bytes held by cached images and their scaled copies */
+    public synchronized long getUsedBytes() { return usedBytes; }
+    /** @return Memory budget in bytes */
+    public long getBudgetBytes() { return budgetBytes; }
+    /** @return Number of cached images */
+    public synchronized int size() { return entries.size(); }
+    /** @return get() calls answered from the cache */
+    public long getHits() { return hits.get(); }
+    /** @return get() calls that had to load or wait for a load */
+    public long getMisses() { return misses.get(); }
+    /** @return Resources decoded */
+    public long getLoads() { return loads; }
+    /** @return Images evicted to stay within the budget */
+    public long getEvictions() { return evictions; }
+    /** @return Scaled copies draw() has made */
+    public long getScaledCopies() { return scaledCopies; }
+    /** @return Total time spent decoding and converting */
+    public long getLoadNanos() { return loadNanos; }
+}
@@ -0,0 +1,134 @@
+package game;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsDevice;
+import java.awt.GraphicsEnvironment;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+
+/**
+ * An image that is painted once and then blitted every frame.
+ * <p>
+ * On a screen device the contents live in an accelerated VolatileImage, which is validated
+ * before each use and repainted if the surface was lost. When drawing offscreen or headless,
+ * a compatible (managed) BufferedImage is used instead.
+ */
+final class CachedImage {
+    /**
+     * Paints the cached contents. The graphics context starts fully transparent.
+     */
+    interface Painter {
+        void paint(Graphics2D g);
+    }
+
+    private static final Color CLEAR = new Color(0, 0, 0, 0);
+
+    private final int width;
+    private final int height;
+    private final int transparency;
+    private final Painter painter;
+
+    private Image image;
+    private boolean valid = false;
+
+    /**
+     * @param width Image width
+     * @param height Image height
+     * @param transparency Transparency constant (OPAQUE, BITMASK or TRANSLUCENT)
+     * @param painter Paints the image contents
+     */
+    CachedImage(int width, int height, int transparency, Painter painter) {
+        this.width = width;
+        this.height = height;
+        this.transparency = transparency;
+        this.painter = painter;
+    }
+
+    /**
+     * Marks the contents stale so they are repainted before the next draw.
+     */
+    void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * Draws the cached image at (x, y), creating or repainting it first if needed.
+     */
+    void draw(Graphics2D target, int x, int y) {
+        blit(target, x, y, 0, 0, width, height);
+    }
+
+    /**
+     * Draws the part of the cached image that falls inside the given rectangle, at the same
+     * position on the target. Used to restore the background under moving objects.
+     */
+    void drawRegion(Graphics2D target, int x, int y, int w, int h) {
+        blit(target, x, y, x, y, w, h);
+    }
+
+    /**
+     * Draws a w x h block from (sx, sy) of the cached image at (dx, dy) on the target, e.g. one
+     * cell of an image holding several pre-rendered pieces.
+     */
+    void drawPart(Graphics2D target, int dx, int dy, int sx, int sy, int w, int h) {
+        blit(target, dx, dy, sx, sy, w, h);
+    }
+
+    /**
+     * Copies a w x h block from (sx, sy) in the cache to (dx, dy) on the target, validating
+     * the accelerated surface and retrying if its contents are lost during the copy.
+     */
+    private void blit(Graphics2D target, int dx, int dy, int sx, int sy, int w, int h) {
+        GraphicsConfiguration gc = target.getDeviceConfiguration();
+        if (!useVolatile(gc)) {
+            if (!(image instanceof BufferedImage)) {
+                image = gc.createCompatibleImage(width, height, transparency);
+                valid = false;
+            }
+            if (!valid) {
+                paint(((BufferedImage) image).createGraphics());
+            }
+            target.drawImage(image, dx, dy, dx + w, dy + h, sx, sy, sx + w, sy + h, null);
+            return;
+        }
+
+        VolatileImage vi;
+        do {
+            vi = image instanceof VolatileImage ? (VolatileImage) image : null;
+            int status = vi == null ? VolatileImage.IMAGE_INCOMPATIBLE : vi.validate(gc);
+            if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+                if (vi != null) {
+                    vi.flush();
+                }
+                vi = gc.createCompatibleVolatileImage(width, height, transparency);
+                image = vi;
+                valid = false;
+            } else if (status == VolatileImage.IMAGE_RESTORED) {
+                valid = false;
+            }
+            if (!valid) {
+                paint(vi.createGraphics());
+            }
+            target.drawImage(vi, dx, dy, dx + w, dy + h, sx, sy, sx + w, sy + h, null);
+        } while (vi.contentsLost());
+    }
+
+    private void paint(Graphics2D g) {
+        g.setComposite(AlphaComposite.Src);
+        g.setColor(CLEAR);
+        g.fillRect(0, 0, width, height);
+        g.setComposite(AlphaComposite.SrcOver);
+        painter.paint(g);
+        g.dispose();
+        valid = true;
+    }
+
+    private static boolean useVolatile(GraphicsConfiguration gc) {
+        return !GraphicsEnvironment.isHeadless()
+                && gc.getDevice().getType() == GraphicsDevice.TYPE_RASTER_SCREEN;
+    }
+}
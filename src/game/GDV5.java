@@ -5,15 +5,24 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsDevice;
 import java.awt.Rectangle;
+import java.awt.RenderingHints;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.awt.image.BufferStrategy;
 import java.awt.image.BufferedImage;
-import java.io.IOException;
-import javax.imageio.ImageIO;
+import java.awt.image.VolatileImage;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.LockSupport;
 import javax.swing.JFrame;
 
+import sim.Collision;
+import telemetry.FrameStats;
+import telemetry.StartupTimer;
+
 /**
  * @(#)GameDriverV4.java
  *
@@ -21,37 +30,104 @@ import javax.swing.JFrame;
  * from tasktimer to thread
  * Updates V5: keyTyped, switched to update and render
  * Updates V6: Added Pong game implementation
+ * Updates V7: game loop parks between frames, capped catch-up, separate render rate;
+ * per-instance key state fed from a timestamped input queue drained before each update;
+ * frame-time statistics (update/draw/present histograms, catch-up counts, JMX, JFR);
+ * addImage goes through a shared, screen-compatible asset cache;
+ * optional interpolation fraction for drawing between fixed-rate updates;
+ * fixed logical resolution per instance, scaled and letterboxed to a resizable window or
+ * fullscreen through an accelerated offscreen image, optionally rendered at a lower resolution;
+ * idle mode: the loop sleeps while nothing can change until input, a window event or wake();
+ * startup milestones, buffers created with the window, JMX and JFR set up after the first frame;
+ * framePresented() hook after each buffer flip, stop()
  *
- * @version 6.0 9/24/2025
+ * @version 7.0 10/16/2026
  */
 public abstract class GDV5 extends Canvas implements Runnable, KeyListener {
     private static final long serialVersionUID = 1L;
 
     private int framesPerSecond;
-    public static boolean[] KeysPressed;
-    // default window sizes
-    private static int MAX_WINDOW_X = 1200;
-    private static int MAX_WINDOW_Y = 800;
-    private static int PADDING = 2;
+    // 0 renders once after each batch of updates, otherwise frames rendered per second
+    private int renderFramesPerSecond = 0;
+    // pass the time since the last update to draw() as a fraction of an update
+    private boolean interpolate = false;
+    private double interpolation = 1.0;
+    // most updates run back to back when the loop falls behind
+    private int maxCatchUpSteps = 5;
+    // time spent spin-waiting before a deadline instead of parking
+    private long spinWaitNanos = 0;
+    // written by the loop thread only, read from any thread
+    private volatile long droppedUpdates = 0;
+    // per-phase frame timings, always recorded
+    private final FrameStats frameStats = new FrameStats();
+    // decoded images, resolved relative to the concrete game class
+    private final AssetCache assets = new AssetCache(getClass(), AssetCache.DEFAULT_BUDGET_BYTES);
+    // keys held during the current update; a key tapped since the last update counts as held
+    protected final boolean[] keysPressed = new boolean[KeyEvent.KEY_LAST + 1];
+    // default logical resolution
+    public static final int DEFAULT_WIDTH = 1200;
+    public static final int DEFAULT_HEIGHT = 800;
+    // resolution draw() works in, whatever the size of the window
+    private final int logicalWidth;
+    private final int logicalHeight;
+    private int padding = 2;
+    // fraction of the logical resolution actually rendered before scaling to the window
+    private double renderScale = 1.0;
+    private boolean fullscreen = false;
+    // accelerated image drawn into whenever the frame has to be scaled to the window
+    private VolatileImage offscreen;
+    private boolean scaled = false;
+    private final Rectangle viewport = new Rectangle();
+    private static final int BUFFER_COUNT = 3;
     // it is your responsibility to handle the release on keysTyped
-    public static boolean[] KeysTyped;
+    protected final boolean[] keysTyped = new boolean[KeyEvent.KEY_LAST + 1];
+
+    // key events travel from the AWT event thread to the game thread through this queue
+    private static final int INPUT_CAPACITY = 256;
+    private final InputQueue inputQueue = new InputQueue(INPUT_CAPACITY);
+    private final InputQueue.Handler inputHandler = this::applyKey;
+    // physical key state as of the last drained event
+    private final boolean[] keysHeld = new boolean[KeyEvent.KEY_LAST + 1];
+    // keys released during the last drain, to clear from keysPressed after the update
+    private final int[] releasedKeys = new int[INPUT_CAPACITY];
+    private int releasedCount = 0;
+    private long lastInputNanos = 0;
+
+    // idle mode: the loop parks while isIdle() holds and its frame has been shown
+    private volatile Thread loopThread;
+    private volatile boolean wakeRequested = false;
+    private volatile boolean repaintRequested = false;
+    private volatile boolean minimized = false;
+    private volatile boolean windowFocused = true;
+
+    // startup: completed once the first frame is on screen and the deferred work is done
+    private final CompletableFuture<Void> started = new CompletableFuture<>();
+    private boolean firstFrameShown = false;
 
     private JFrame frame;
     private String title = "Pong";
     private boolean cleanCanvas = true;
 
     /**
-     *
-     * @param frames
+     * @param frames Updates per second
+     * @param width Logical width draw() works in
+     * @param height Logical height draw() works in
      */
-    public GDV5(int frames) {
+    public GDV5(int frames, int width, int height) {
         this.framesPerSecond = frames;
+        this.logicalWidth = width;
+        this.logicalHeight = height;
         this.addKeyListener(this);
-        // allocate arrays slightly larger than KEY_LAST to avoid index issues
-        KeysPressed = new boolean[KeyEvent.KEY_LAST + 1];
-        KeysTyped = new boolean[KeyEvent.KEY_LAST + 1];
         this.setBackground(Color.BLACK);
-        this.setPreferredSize(new Dimension(MAX_WINDOW_X, MAX_WINDOW_Y));
+        this.setPreferredSize(new Dimension(width, height));
+    }
+
+    /**
+     *
+     * @param frames
+     */
+    public GDV5(int frames) {
+        this(frames, DEFAULT_WIDTH, DEFAULT_HEIGHT);
     }
 
     public GDV5() {
@@ -61,107 +137,611 @@ public abstract class GDV5 extends Canvas implements Runnable, KeyListener {
     public void start() {
         // ensure canvas has a size
         if (this.getWidth() == 0 || this.getHeight() == 0) {
-            this.setPreferredSize(new Dimension(MAX_WINDOW_X, MAX_WINDOW_Y));
+            this.setPreferredSize(new Dimension(logicalWidth, logicalHeight));
         }
         frame = new JFrame();
+        frame.setUndecorated(fullscreen);
         frame.add(this);
         frame.pack();
+        StartupTimer.mark("window created");
+        // the canvas is displayable now, so the buffers are made before the window appears
+        // instead of by the first render
+        this.createBufferStrategy(BUFFER_COUNT);
+        StartupTimer.mark("buffers created");
         frame.setTitle(title);
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.setLocationRelativeTo(null);
-        frame.setResizable(false);
-        frame.setVisible(true);
+        frame.setResizable(true);
+        WindowAdapter windowEvents = new WindowAdapter() {
+            @Override
+            public void windowIconified(WindowEvent e) {
+                minimized = true;
+                wake();
+            }
+
+            @Override
+            public void windowDeiconified(WindowEvent e) {
+                minimized = false;
+                requestRepaint();
+            }
+
+            @Override
+            public void windowGainedFocus(WindowEvent e) {
+                windowFocused = true;
+                wake();
+            }
+
+            @Override
+            public void windowLostFocus(WindowEvent e) {
+                windowFocused = false;
+                wake();
+            }
+        };
+        frame.addWindowListener(windowEvents);
+        frame.addWindowFocusListener(windowEvents);
+        GraphicsDevice device = frame.getGraphicsConfiguration().getDevice();
+        if (fullscreen && device.isFullScreenSupported()) {
+            device.setFullScreenWindow(frame);
+        } else {
+            if (fullscreen) {
+                frame.setExtendedState(JFrame.MAXIMIZED_BOTH);
+            }
+            frame.setVisible(true);
+        }
+        StartupTimer.mark("window shown");
         this.startThread();
     }
 
     private synchronized void startThread() {
-        Thread t1 = new Thread(this);
+        Thread t1 = new Thread(this, "Game loop");
+        loopThread = t1;
         t1.start(); // calls run method after paint
         this.setFocusable(true);
         this.requestFocus();
     }
 
+    /**
+     * Stops the game loop, waiting for the frame in progress, closes the window and withdraws
+     * the frame statistics from JMX. A stopped game cannot be started again.
+     */
+    public void stop() {
+        Thread loop = loopThread;
+        if (loop != null && loop != Thread.currentThread()) {
+            loop.interrupt();
+            try {
+                loop.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (frame != null) {
+            frame.dispose();
+        }
+        if (firstFrameShown) {
+            started.join(); // registration runs in the background after the first frame
+        }
+        frameStats.unregister();
+    }
+
+    /**
+     * Sets the fixed update rate. Subclasses whose updates move things by a fixed amount
+     * should convert their speeds, so that the game keeps its pace.
+     * @param num Updates per second
+     */
     public void setFrames(int num) {
         this.framesPerSecond = num;
     }
 
+    /** @return Updates per second */
+    public int getFrames() {
+        return this.framesPerSecond;
+    }
+
+    /**
+     * Makes getInterpolation() report how far the loop is into the next update when a frame is
+     * drawn, so draw() can blend the last two updates instead of showing the latest one. This
+     * keeps motion smooth when the render rate is not a multiple of the update rate, at the cost
+     * of drawing up to one update behind.
+     * @param option True to interpolate, false to always draw the latest update
+     */
+    public void setInterpolation(boolean option) {
+        this.interpolate = option;
+        if (!option) {
+            this.interpolation = 1.0;
+        }
+    }
+
+    /**
+     * @return Fraction of an update elapsed since the last update when the current frame is
+     * drawn, from 0 (draw the previous update) to 1 (draw the latest); always 1 unless
+     * interpolation is on
+     */
+    public double getInterpolation() {
+        return this.interpolation;
+    }
+
+    /**
+     * Sets the initial size of the window. The game still draws at its logical resolution,
+     * scaled to fit and letterboxed. Call before start().
+     * @param width Window content width in pixels
+     * @param height Window content height in pixels
+     */
+    public void setWindowSize(int width, int height) {
+        this.setPreferredSize(new Dimension(width, height));
+    }
+
+    /**
+     * Opens the game fullscreen on the default screen instead of in a window. Call before start().
+     * @param option True for fullscreen
+     */
+    public void setFullscreen(boolean option) {
+        this.fullscreen = option;
+    }
+
+    /**
+     * Renders at a fraction of the logical resolution and lets the scaling blit make up the
+     * rest, for hardware too slow to draw the full resolution in time. draw() still works in
+     * logical coordinates.
+     * @param scale Fraction of the logical resolution rendered, e.g. 0.5 for a quarter of the pixels
+     */
+    public void setRenderScale(double scale) {
+        if (!(scale > 0)) {
+            throw new IllegalArgumentException("Render scale must be positive: " + scale);
+        }
+        this.renderScale = scale;
+    }
+
+    /**
+     * Limits rendering to the given rate independently of the update rate.
+     * @param num Frames rendered per second, or 0 to render once after every update
+     */
+    public void setRenderFrames(int num) {
+        this.renderFramesPerSecond = num;
+    }
+
+    /**
+     * Caps how many updates run back to back to catch up after the loop falls behind.
+     * Any further backlog is dropped and counted in getDroppedUpdates().
+     * @param steps Maximum updates per loop pass (at least 1)
+     */
+    public void setMaxCatchUpSteps(int steps) {
+        this.maxCatchUpSteps = Math.max(1, steps);
+    }
+
+    /**
+     * Sets how long before each frame deadline the loop stops parking and spin-waits instead.
+     * A few hundred microseconds lowers frame jitter at the cost of some CPU; 0 never spins.
+     * @param micros Spin-wait window in microseconds
+     */
+    public void setSpinWaitMicros(int micros) {
+        this.spinWaitNanos = Math.max(0, micros) * 1_000L;
+    }
+
+    /**
+     * @return Frame-time statistics of the game loop
+     */
+    public FrameStats getFrameStats() {
+        return frameStats;
+    }
+
+    /**
+     * @return Number of updates skipped because the loop fell more than the catch-up cap behind
+     */
+    public long getDroppedUpdates() {
+        return droppedUpdates;
+    }
+
     public abstract void update();
 
+    /**
+     * Tells the loop that updates would leave the game exactly as it is until a key is pressed,
+     * the window changes or wake() is called, e.g. on a game over or pause screen. Called on the
+     * game thread after every pass. While it returns true and the latest update is on screen, the
+     * loop neither updates nor renders; it sleeps until one of those events, then runs an update
+     * at once to take it in.
+     * @return True to let the loop sleep; false by default
+     */
+    protected boolean isIdle() {
+        return false;
+    }
+
+    /**
+     * Ends an idle wait, e.g. after changing the game from another thread. Does nothing if the
+     * loop is running.
+     */
+    public void wake() {
+        wakeRequested = true;
+        Thread loop = loopThread;
+        if (loop != null) {
+            LockSupport.unpark(loop);
+        }
+    }
+
+    /**
+     * Renders a frame on the next pass even if no update ran, e.g. after the window was exposed.
+     */
+    public void requestRepaint() {
+        repaintRequested = true;
+        wake();
+    }
+
+    /**
+     * Called by AWT when the canvas was exposed or resized. The game thread owns the buffers, so
+     * this only asks it to render again, which matters when it is idle.
+     */
+    @Override
+    public void paint(Graphics g) {
+        requestRepaint();
+    }
+
+    /**
+     * Runs one update: applies the key events queued since the previous tick, calls update(),
+     * then releases keys that were let go. A key pressed and released between two ticks is
+     * therefore seen as pressed for exactly one update.
+     */
+    public void tick() {
+        inputQueue.drain(inputHandler);
+        update();
+        for (int i = 0; i < releasedCount; i++) {
+            int code = releasedKeys[i];
+            keysPressed[code] = keysHeld[code];
+        }
+        releasedCount = 0;
+    }
+
+    private void applyKey(int code, boolean pressed, long nanos) {
+        keysHeld[code] = pressed;
+        if (pressed) {
+            keysPressed[code] = true;
+        } else {
+            keysTyped[code] = true;
+            if (releasedCount < releasedKeys.length) {
+                releasedKeys[releasedCount++] = code;
+            } else {
+                keysPressed[code] = false;
+            }
+        }
+        lastInputNanos = nanos;
+    }
+
     public abstract void draw(Graphics2D win);
 
     private void render() {
+        // the first frame presented while the window is on screen ends the startup
+        boolean first = !this.firstFrameShown && this.isShowing();
         BufferStrategy buffs = this.getBufferStrategy();
         if (buffs == null) {
-            this.createBufferStrategy(3);
+            this.createBufferStrategy(BUFFER_COUNT);
             buffs = this.getBufferStrategy();
         }
-        Graphics g = buffs.getDrawGraphics();
-        if (this.cleanCanvas) {
-            g.setColor(this.getBackground());
-            g.fillRect(0, 0, this.getWidth(), this.getHeight());
+        int width = this.getWidth();
+        int height = this.getHeight();
+        // draw straight into the back buffer when no scaling is needed
+        boolean direct = this.renderScale == 1.0 && width == this.logicalWidth && height == this.logicalHeight;
+        if (direct == this.scaled) {
+            // switching between the back buffer and the offscreen image: nothing drawn so far is there
+            this.scaled = !direct;
+            buffersRestored();
+        }
+        boolean restored = false;
+        long drawNanos = 0;
+        long presentNanos = 0;
+        long presented;
+        do {
+            do {
+                long drawStart = System.nanoTime();
+                Graphics g = buffs.getDrawGraphics();
+                if (direct) {
+                    if (this.cleanCanvas || restored) {
+                        g.setColor(this.getBackground());
+                        g.fillRect(0, 0, width, height);
+                    }
+                    draw((Graphics2D) g);
+                    this.viewport.setBounds(0, 0, width, height);
+                } else {
+                    drawScaled((Graphics2D) g, width, height);
+                }
+                g.dispose();
+                drawNanos += System.nanoTime() - drawStart;
+                if (buffs.contentsRestored()) {
+                    restored = true;
+                    buffersRestored();
+                }
+            } while (buffs.contentsRestored());
+            if (first) {
+                StartupTimer.mark("first frame drawn");
+            }
+            long presentStart = System.nanoTime();
+            buffs.show();
+            presented = System.nanoTime();
+            presentNanos += presented - presentStart;
+            if (buffs.contentsLost()) {
+                restored = true;
+                buffersRestored();
+            }
+        } while (buffs.contentsLost());
+        frameStats.recordFrame(drawNanos, presentNanos, presented);
+        framePresented(presented);
+        if (first) {
+            StartupTimer.mark("first frame presented");
+            this.firstFrameShown = true;
+            Thread finisher = new Thread(this::finishStartup, "Startup");
+            finisher.setDaemon(true);
+            finisher.setPriority(Thread.MIN_PRIORITY);
+            finisher.start();
+        }
+    }
+
+    /**
+     * Work kept off the way to the first frame: publishing the frame statistics over JMX and
+     * setting up their JFR events, which together take the better part of a second on a cold
+     * JVM. Runs once, on a background thread, after the first frame was presented.
+     */
+    private void finishStartup() {
+        frameStats.register(title);
+        frameStats.enableEvents();
+        StartupTimer.mark("statistics registered");
+        started.complete(null);
+    }
+
+    /**
+     * @return Completes, on a background thread, once the first frame has been presented in the
+     * visible window and the frame statistics are registered
+     */
+    public CompletableFuture<Void> whenStarted() {
+        return started;
+    }
+
+    /**
+     * Draws the game into the offscreen image at the render resolution, then scales that to the
+     * largest centered rectangle of the window with the logical aspect ratio. On an accelerated
+     * pipeline the offscreen image lives in video memory and the scaling blit runs on the GPU,
+     * so a large window or screen costs little more than the logical resolution.
+     */
+    private void drawScaled(Graphics2D g, int width, int height) {
+        int renderWidth = Math.max(1, (int) Math.round(this.logicalWidth * this.renderScale));
+        int renderHeight = Math.max(1, (int) Math.round(this.logicalHeight * this.renderScale));
+        do {
+            int status = this.offscreen == null || this.offscreen.getWidth() != renderWidth
+                    || this.offscreen.getHeight() != renderHeight
+                    ? VolatileImage.IMAGE_INCOMPATIBLE : this.offscreen.validate(this.getGraphicsConfiguration());
+            if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+                this.offscreen = this.createVolatileImage(renderWidth, renderHeight);
+            }
+            Graphics2D og = this.offscreen.createGraphics();
+            if (this.cleanCanvas || status != VolatileImage.IMAGE_OK) {
+                og.setColor(this.getBackground());
+                og.fillRect(0, 0, renderWidth, renderHeight);
+            }
+            if (status != VolatileImage.IMAGE_OK) {
+                buffersRestored();
+            }
+            og.scale((double) renderWidth / this.logicalWidth, (double) renderHeight / this.logicalHeight);
+            draw(og);
+            og.dispose();
+        } while (this.offscreen.contentsLost());
+
+        // letterbox: fit the logical aspect ratio and fill the bars
+        double fit = Math.min((double) width / this.logicalWidth, (double) height / this.logicalHeight);
+        int w = (int) Math.round(this.logicalWidth * fit);
+        int h = (int) Math.round(this.logicalHeight * fit);
+        int x = (width - w) / 2;
+        int y = (height - h) / 2;
+        this.viewport.setBounds(x, y, w, h);
+        g.setColor(Color.BLACK);
+        if (x > 0) {
+            g.fillRect(0, 0, x, height);
+            g.fillRect(x + w, 0, width - x - w, height);
+        }
+        if (y > 0) {
+            g.fillRect(0, 0, width, y);
+            g.fillRect(0, y + h, width, height - y - h);
         }
-        draw((Graphics2D) g);
-        g.dispose();
-        buffs.show();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(this.offscreen, x, y, w, h, null);
     }
 
+    /**
+     * Called on the game thread after every frame was handed to the screen, before the game
+     * changes again, e.g. to note what the frame showed.
+     * @param presentedNanos System.nanoTime() at which the buffer flip returned
+     */
+    protected void framePresented(long presentedNanos) {
+    }
+
+    /**
+     * Called when the back buffers lost their contents. Subclasses that only redraw part of the
+     * frame should repaint everything on the following frames.
+     */
+    protected void buffersRestored() {
+    }
+
+    /**
+     * @return Number of buffers in the canvas buffer strategy
+     */
+    public int getBufferCount() {
+        return BUFFER_COUNT;
+    }
+
+    /**
+     * Game loop. Updates run at a fixed framesPerSecond; rendering follows the update rate unless
+     * a separate render rate is set. Between frames the thread parks until the next deadline,
+     * optionally spin-waiting for the last few microseconds to reduce wake-up jitter. While the
+     * game is idle and its last update has been shown, the thread parks with no deadline. Frames
+     * are not rendered while the window is minimized.
+     */
     @Override
     public void run() {
-        long lastTime = System.nanoTime();
-        // correct conversion: nanoseconds per frame
-        double nanoSecondConversion = 1_000_000_000.0 / (double) this.framesPerSecond;
-        double changeInSeconds = 0;
-        while (true) {
+        StartupTimer.mark("game loop started");
+        loopThread = Thread.currentThread();
+        long previous = System.nanoTime();
+        long lag = 0;
+        long nextRender = previous;
+        // true once the latest update has been presented, or skipped while minimized
+        boolean shown = false;
+        while (!Thread.currentThread().isInterrupted()) {
+            long updateNanos = 1_000_000_000L / this.framesPerSecond;
             long now = System.nanoTime();
-            changeInSeconds += (now - lastTime) / nanoSecondConversion;
-            // update while enough time has passed for a frame
-            while (changeInSeconds >= 1) {
-                update();
-                changeInSeconds--;
-            }
-            render();
-            lastTime = now;
-            // optional small sleep to be nice to CPU (uncomment if desired)
-            /*
-            try {
-                Thread.sleep(1);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+            lag += now - previous;
+            previous = now;
+            frameStats.beginPass();
+
+            // update while enough time has passed for a frame, but never more than the cap
+            int steps = 0;
+            long stepStart = now;
+            while (lag >= updateNanos && steps < this.maxCatchUpSteps) {
+                tick();
+                // each update's end is the next one's start, so timing costs one clock read per update
+                long stepEnd = System.nanoTime();
+                frameStats.recordUpdate(stepEnd - stepStart);
+                stepStart = stepEnd;
+                lag -= updateNanos;
+                steps++;
+            }
+            if (steps > 0) {
+                shown = false;
             }
-            */
+            long dropped = 0;
+            if (lag >= updateNanos) {
+                // too far behind (e.g. a long GC pause): drop the backlog instead of spiralling
+                dropped = lag / updateNanos;
+                this.droppedUpdates += dropped;
+                lag %= updateNanos;
+            }
+
+            long deadline = now + (updateNanos - lag);
+            if (this.interpolate) {
+                this.interpolation = (double) lag / updateNanos;
+            }
+            boolean repaint = this.repaintRequested;
+            if (repaint) {
+                this.repaintRequested = false;
+            }
+            if (this.renderFramesPerSecond > 0) {
+                long renderNanos = 1_000_000_000L / this.renderFramesPerSecond;
+                if (now - nextRender >= 0 || repaint) {
+                    if (!this.minimized) {
+                        render();
+                    }
+                    shown = true;
+                    nextRender += renderNanos;
+                    if (nextRender - now <= 0) {
+                        nextRender = now + renderNanos;
+                    }
+                }
+                deadline = Math.min(deadline, nextRender);
+            } else if (steps > 0 || repaint) {
+                if (!this.minimized) {
+                    render();
+                }
+                shown = true;
+            }
+            frameStats.endPass(steps, dropped);
+
+            if (shown && isIdle()) {
+                long idleStart = System.nanoTime();
+                boolean parked = false;
+                while (!this.wakeRequested && !Thread.currentThread().isInterrupted()) {
+                    LockSupport.park(this);
+                    parked = true;
+                }
+                this.wakeRequested = false;
+                previous = System.nanoTime();
+                if (parked) {
+                    frameStats.recordIdle(previous - idleStart);
+                }
+                // update at once to take in whatever ended the wait, without catching up on the rest
+                lag = updateNanos;
+                nextRender = previous;
+                continue;
+            }
+            waitUntil(deadline);
         }
     }
 
-    public BufferedImage addImage(String name) {
-        BufferedImage img = null;
-        try {
-            img = ImageIO.read(this.getClass().getResourceAsStream(name));
-        } catch (IOException | IllegalArgumentException e) {
-            System.out.println("Error loading image: " + name + " -> " + e.getMessage());
+    /**
+     * Parks the game thread until the deadline, spinning only for the final spinWaitNanos.
+     * @param deadline System.nanoTime() value to wait for
+     */
+    private void waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > this.spinWaitNanos) {
+            LockSupport.parkNanos(remaining - this.spinWaitNanos);
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+        }
+        while (deadline - System.nanoTime() > 0) {
+            Thread.onSpinWait();
         }
-        return img;
+    }
+
+    /**
+     * Loads an image resource through the asset cache: decoded once, converted to the screen's
+     * pixel format and shared by later calls with the same name.
+     * @param name Resource name, relative to this class as for getResourceAsStream()
+     * @return The image, or null if it could not be read
+     */
+    public BufferedImage addImage(String name) {
+        return assets.get(name);
+    }
+
+    /**
+     * @return The cache behind addImage(), e.g. to preload images or draw them pre-scaled
+     */
+    public AssetCache getAssets() {
+        return assets;
     }
 
     @Override
     public void keyPressed(KeyEvent e) {
         int code = e.getKeyCode();
-        if (code >= 0 && code < KeysPressed.length) {
-            KeysPressed[code] = true;
+        if (code >= 0 && code < keysPressed.length) {
+            inputQueue.offer(code, true, System.nanoTime());
+            wake();
         }
     }
 
     @Override
     public void keyReleased(KeyEvent e) {
         int code = e.getKeyCode();
-        if (code >= 0 && code < KeysPressed.length) {
-            KeysPressed[code] = false;
-            KeysTyped[code] = true;
+        if (code >= 0 && code < keysPressed.length) {
+            inputQueue.offer(code, false, System.nanoTime());
+            wake();
         }
     }
 
     @Override
     public void keyTyped(KeyEvent e) {
-        // Intentionally empty; the user of this class can inspect KeysTyped[].
+        // Intentionally empty; the user of this class can inspect keysTyped[].
+    }
+
+    /**
+     * @return True while the game's window has the keyboard focus, or if it has no window
+     */
+    public boolean isWindowFocused() {
+        return windowFocused;
+    }
+
+    /**
+     * @return True while the game's window is minimized
+     */
+    public boolean isMinimized() {
+        return minimized;
+    }
+
+    /**
+     * @return System.nanoTime() at which the most recently applied key event was received
+     */
+    public long getLastInputNanos() {
+        return lastInputNanos;
+    }
+
+    /**
+     * @return Number of key events dropped because the game thread fell behind
+     */
+    public long getDroppedInputs() {
+        return inputQueue.getDropped();
     }
 
     /**
@@ -170,29 +750,12 @@ public abstract class GDV5 extends Canvas implements Runnable, KeyListener {
      * projectile - the object that is moving
      * dx = projectile's x displacement
      * dy = projectile's y displacement
+     * The projectile is swept from its previous location, so the side is found even if it moved
+     * further than the stationary object's thickness.
      */
     public static int collisionDirection(Rectangle stationary, Rectangle projectile, int dx, int dy) {
-        // calculate previous location
-        int previousXPos = (int) projectile.getX() - dx;
-        int previousYPos = (int) projectile.getY() - dy;
-        int height = (int) projectile.getHeight();
-        int width = (int) projectile.getWidth();
-        int result = 0; // default intersects from right
-
-        if (previousYPos + height <= stationary.getY() && projectile.getMaxY() >= stationary.getY()) {
-            // intersects from top
-            result = 1;
-        } else if (previousXPos + width <= stationary.getX() && projectile.getX() + width >= stationary.getX()) {
-            // intersects from left
-            result = 2;
-        } else if (previousYPos >= stationary.getY() + stationary.height && projectile.getY() <= stationary.getY() + stationary.height) {
-            // intersects from bottom
-            result = 3;
-        } else {
-            // default/right or fallback
-            result = 0;
-        }
-        return result;
+        return Collision.direction(stationary.x, stationary.y, stationary.width, stationary.height,
+                projectile.x, projectile.y, projectile.width, projectile.height, dx, dy);
     }
 
     // --- Getters / Setters ---
@@ -211,27 +774,43 @@ public abstract class GDV5 extends Canvas implements Runnable, KeyListener {
         this.cleanCanvas = option;
     }
 
-    public static int getMaxWindowX() {
-        return MAX_WINDOW_X;
+    public boolean isCleanCanvas() {
+        return cleanCanvas;
+    }
+
+    /**
+     * @return Width of the logical resolution draw() works in
+     */
+    public int getLogicalWidth() {
+        return logicalWidth;
     }
 
-    public static int getMaxWindowY() {
-        return MAX_WINDOW_Y;
+    /**
+     * @return Height of the logical resolution draw() works in
+     */
+    public int getLogicalHeight() {
+        return logicalHeight;
     }
 
-    public static void setMaxWindowX(int sizeX) {
-        MAX_WINDOW_X = sizeX;
+    /**
+     * @return Fraction of the logical resolution rendered
+     */
+    public double getRenderScale() {
+        return renderScale;
     }
 
-    public static void setMaxWindowY(int sizeY) {
-        MAX_WINDOW_Y = sizeY;
+    /**
+     * @return Area of the canvas the last frame was shown in, excluding letterbox bars
+     */
+    public Rectangle getViewport() {
+        return new Rectangle(viewport);
     }
 
-    public static int getPadding() {
-        return PADDING;
+    public int getPadding() {
+        return padding;
     }
 
-    public static void setPadding(int paddingVal) {
-        PADDING = paddingVal;
+    public void setPadding(int paddingVal) {
+        padding = paddingVal;
     }
 }
\ No newline at end of file
@@ -0,0 +1,232 @@
+package game;
+
+import sim.PongSimulation;
+import sim.Rng;
+import telemetry.LatencyHistogram;
+
+import java.awt.EventQueue;
+import java.awt.GraphicsEnvironment;
+import java.awt.event.KeyEvent;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Measures input-to-display latency: the time from a key press to the presentation of the first
+ * frame that shows the paddle moving.
+ * <p>
+ * For each loop configuration a PongGame window is opened and the left player's keys are pressed
+ * on a schedule with random gaps, so presses land at every point of the frame cycle. Each press is
+ * stamped and handed to the game's KeyListener on the AWT event thread, as a real key event would
+ * be, then released once the result is on screen. Toward the middle of the field is picked each
+ * time, so the paddle never sits against a wall. The game thread notes when the listener ran, the
+ * first update that moved the paddle and the first presented frame whose paddle is drawn somewhere
+ * else than in the frame before, which splits the latency into waiting for the event thread, for
+ * the next update and for the frame to be drawn and flipped.
+ * <p>
+ * "Presented" is when the buffer flip returns; when the display then scans the frame out depends
+ * on the compositor and the monitor and is not included. No keyboard is needed, so it runs on a
+ * virtual X server, e.g. {@code xvfb-run -s "-screen 0 1280x1024x24"} in front of the command.
+ * <p>
+ * Usage: {@code java -cp out game.InputLatencyTest [trials] [config...]}
+ * <br>
+ * A configuration is {@code physicsHz[/renderHz][sSpinMicros]}, e.g. 60, 240/144 or 60s500; a
+ * render rate also turns on interpolation. Without configurations a standard set is measured.
+ */
+public class InputLatencyTest {
+    private static final String[] DEFAULT_CONFIGS = {"60", "60s500", "120", "240", "60/144", "240/144"};
+    private static final int WARMUP_TRIALS = 10;
+    private static final long SETTLE_NANOS = 50_000_000L;
+    private static final long JITTER_NANOS = 50_000_000L;
+    private static final long TRIAL_TIMEOUT_NANOS = 1_000_000_000L;
+    private static final long POLL_NANOS = 200_000L;
+    private static final long SEED = 42;
+
+    /**
+     * A PongGame that notes when an injected press takes effect.
+     */
+    private static final class Probe extends PongGame {
+        private static final long serialVersionUID = 1L;
+
+        // Set by the injecting thread before the press is posted; 0 while no trial runs
+        volatile long injectedNanos = 0;
+        volatile long dispatchedNanos;
+        volatile long updatedNanos;
+        volatile long presentedNanos;
+        // Game thread only
+        private int lastDrawnY = Integer.MIN_VALUE;
+
+        Probe(long seed) {
+            super(seed);
+        }
+
+        @Override
+        public void update() {
+            double before = getSimulation().getLeftPaddle().getExactY();
+            super.update();
+            if (injectedNanos != 0 && updatedNanos == 0
+                    && getSimulation().getLeftPaddle().getExactY() != before) {
+                updatedNanos = System.nanoTime();
+            }
+        }
+
+        @Override
+        protected void framePresented(long nanos) {
+            // as recorded by the renderer for this frame, not worked out again from the current interpolation
+            int drawnY = getLeftPaddleDrawnY();
+            if (injectedNanos != 0 && updatedNanos != 0 && presentedNanos == 0 && drawnY != lastDrawnY) {
+                presentedNanos = nanos;
+            }
+            lastDrawnY = drawnY;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        if (GraphicsEnvironment.isHeadless()) {
+            System.out.println("Error: InputLatencyTest needs a display -> run it under a (virtual) X server");
+            System.exit(1);
+        }
+        int trials = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        String[] configs = args.length > 1 ? Arrays.copyOfRange(args, 1, args.length) : DEFAULT_CONFIGS;
+        System.out.printf("Key press to first presented frame showing it, %d trials per configuration%n", trials);
+        System.out.printf("%-16s %6s %6s %6s %6s %6s | %6s %6s %6s | %s%n", "config (Hz)", "p50", "p90", "p99",
+                "max", "mean", "event", "update", "frame", "missed");
+        boolean failed = false;
+        for (String config : configs) {
+            failed |= !measure(config, trials);
+        }
+        System.out.println("Times in ms. Means of the steps: event = until the AWT event thread delivered the press,"
+                + " update = until the update that moved the paddle, frame = until the first frame showing it was flipped.");
+        System.exit(failed ? 1 : 0);
+    }
+
+    /**
+     * Runs the trials for one configuration in a new window and prints a row of results.
+     * @return False if the game never presented a frame
+     */
+    private static boolean measure(String config, int trials) throws InterruptedException {
+        int spin = 0;
+        String rates = config;
+        int s = config.indexOf('s');
+        if (s >= 0) {
+            spin = Integer.parseInt(config.substring(s + 1));
+            rates = config.substring(0, s);
+        }
+        int slash = rates.indexOf('/');
+        int physics = Integer.parseInt(slash >= 0 ? rates.substring(0, slash) : rates);
+        int render = slash >= 0 ? Integer.parseInt(rates.substring(slash + 1)) : 0;
+
+        Probe game = new Probe(SEED);
+        game.setPauseOnFocusLoss(false);
+        game.setFrames(physics);
+        if (render > 0) {
+            game.setRenderFrames(render);
+            game.setInterpolation(true);
+        }
+        game.setSpinWaitMicros(spin);
+        game.start();
+        try {
+            game.whenStarted().get(10, TimeUnit.SECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            System.out.println("Error starting " + config + " -> no frame was presented");
+            game.stop();
+            return false;
+        }
+
+        LatencyHistogram total = new LatencyHistogram();
+        LatencyHistogram event = new LatencyHistogram();
+        LatencyHistogram update = new LatencyHistogram();
+        LatencyHistogram frame = new LatencyHistogram();
+        int missed = 0;
+        Rng rng = new Rng(SEED);
+        for (int trial = -WARMUP_TRIALS; trial < trials; trial++) {
+            if (game.getSimulation().isGameOver()) {
+                tap(game, KeyEvent.VK_R);
+                if (!waitFor(() -> !game.getSimulation().isGameOver(), TRIAL_TIMEOUT_NANOS)) {
+                    System.out.println("Error restarting " + config + " -> the match stayed over");
+                    game.stop();
+                    return false;
+                }
+            }
+            LockSupport.parkNanos(SETTLE_NANOS + (long) (rng.nextDouble() * JITTER_NANOS));
+
+            PongSimulation sim = game.getSimulation();
+            boolean up = sim.getLeftPaddle().getY() + sim.getLeftPaddle().getHeight() / 2 > sim.getHeight() / 2;
+            int key = up ? KeyEvent.VK_W : KeyEvent.VK_S;
+            game.updatedNanos = 0;
+            game.presentedNanos = 0;
+            long injected = System.nanoTime();
+            game.injectedNanos = injected;
+            post(game, key, true);
+            boolean seen = waitFor(() -> game.presentedNanos != 0, TRIAL_TIMEOUT_NANOS);
+            if (!seen && game.getSimulation().isGameOver()) {
+                // the match ended before the press was taken in, so the paddle could not move: run it again
+                trial--;
+            } else if (trial >= 0) {
+                if (seen) {
+                    total.record(game.presentedNanos - injected);
+                    event.record(game.dispatchedNanos - injected);
+                    update.record(game.updatedNanos - game.dispatchedNanos);
+                    frame.record(game.presentedNanos - game.updatedNanos);
+                } else {
+                    missed++;
+                }
+            }
+            game.injectedNanos = 0;
+            post(game, key, false);
+        }
+        game.stop();
+
+        System.out.printf("%-16s %6.1f %6.1f %6.1f %6.1f %6.1f | %6.2f %6.2f %6.2f | %d%n", label(physics, render, spin),
+                total.percentile(0.5) / 1e6, total.percentile(0.9) / 1e6, total.percentile(0.99) / 1e6,
+                total.getMax() / 1e6, total.getMean() / 1e6, event.getMean() / 1e6, update.getMean() / 1e6,
+                frame.getMean() / 1e6, missed);
+        return true;
+    }
+
+    private static String label(int physics, int render, int spin) {
+        return physics + (render > 0 ? "/" + render + " interp" : "") + (spin > 0 ? " spin " + spin + "us" : "");
+    }
+
+    /**
+     * Hands a key event to the game's KeyListener on the AWT event thread, noting when a press
+     * arrived there.
+     */
+    private static void post(Probe game, int key, boolean pressed) {
+        EventQueue.invokeLater(() -> {
+            KeyEvent e = new KeyEvent(game, pressed ? KeyEvent.KEY_PRESSED : KeyEvent.KEY_RELEASED,
+                    System.currentTimeMillis(), 0, key, KeyEvent.CHAR_UNDEFINED);
+            if (pressed) {
+                game.dispatchedNanos = System.nanoTime();
+                game.keyPressed(e);
+            } else {
+                game.keyReleased(e);
+            }
+        });
+    }
+
+    private static void tap(Probe game, int key) {
+        post(game, key, true);
+        post(game, key, false);
+    }
+
+    private interface Condition {
+        boolean holds();
+    }
+
+    /**
+     * @return True if the condition held before the timeout
+     */
+    private static boolean waitFor(Condition condition, long timeoutNanos) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (!condition.holds()) {
+            if (System.nanoTime() - deadline > 0) {
+                return false;
+            }
+            LockSupport.parkNanos(POLL_NANOS);
+        }
+        return true;
+    }
+}
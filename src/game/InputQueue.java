@@ -0,0 +1,80 @@
+package game;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-producer/single-consumer ring buffer of key events.
+ * <p>
+ * The AWT event thread offers events and the game thread drains them. Slots are published with
+ * an ordered store of the tail index, so the consumer always sees a fully written event. The
+ * producer never blocks: if the game thread falls a whole buffer behind, new events are dropped
+ * and counted.
+ */
+final class InputQueue {
+    /**
+     * Receives drained events on the consumer thread.
+     */
+    interface Handler {
+        void onKey(int code, boolean pressed, long nanos);
+    }
+
+    private final int mask;
+    private final int[] codes; // key code, or ~code for a release
+    private final long[] stamps; // System.nanoTime() when the event was offered
+
+    private final AtomicLong head = new AtomicLong(); // next slot to read, written by the consumer
+    private final AtomicLong tail = new AtomicLong(); // next slot to write, written by the producer
+    private volatile long dropped = 0;
+
+    /**
+     * @param capacity Number of buffered events, rounded up to a power of two
+     */
+    InputQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.codes = new int[size];
+        this.stamps = new long[size];
+    }
+
+    /**
+     * Adds an event. Called only from the producer thread.
+     * @return False if the buffer was full and the event was dropped
+     */
+    boolean offer(int code, boolean pressed, long nanos) {
+        long t = tail.get();
+        if (t - head.get() > mask) {
+            dropped++;
+            return false;
+        }
+        int i = (int) t & mask;
+        codes[i] = pressed ? code : ~code;
+        stamps[i] = nanos;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Hands every available event to the handler in order. Called only from the consumer thread.
+     * @return Number of events drained
+     */
+    int drain(Handler handler) {
+        long h = head.get();
+        long t = tail.get();
+        for (long n = h; n < t; n++) {
+            int i = (int) n & mask;
+            int code = codes[i];
+            if (code >= 0) {
+                handler.onKey(code, true, stamps[i]);
+            } else {
+                handler.onKey(~code, false, stamps[i]);
+            }
+        }
+        head.lazySet(t);
+        return (int) (t - h);
+    }
+
+    /** @return Number of events dropped because the buffer was full */
+    long getDropped() {
+        return dropped;
+    }
+}
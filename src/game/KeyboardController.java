@@ -0,0 +1,58 @@
+package game;
+
+import sim.PaddleController;
+import sim.PongSimulation;
+
+/**
+ * Moves a paddle while its keys are held.
+ * <p>
+ * Reads a GDV5 key table on the game thread, so the game's own update loop must call it. Any
+ * number of keys can move the paddle each way, e.g. both W and the up arrow in netplay, where a
+ * player has only one paddle.
+ */
+public final class KeyboardController implements PaddleController {
+    private final boolean[] keysPressed;
+    private final int[] upKeys;
+    private final int[] downKeys;
+
+    /**
+     * @param keysPressed Key table indexed by KeyEvent key code
+     * @param upKey Key code that moves the paddle up
+     * @param downKey Key code that moves the paddle down
+     */
+    public KeyboardController(boolean[] keysPressed, int upKey, int downKey) {
+        this(keysPressed, new int[]{upKey}, new int[]{downKey});
+    }
+
+    /**
+     * @param keysPressed Key table indexed by KeyEvent key code
+     * @param upKeys Key codes that move the paddle up
+     * @param downKeys Key codes that move the paddle down
+     */
+    public KeyboardController(boolean[] keysPressed, int[] upKeys, int[] downKeys) {
+        this.keysPressed = keysPressed;
+        this.upKeys = upKeys.clone();
+        this.downKeys = downKeys.clone();
+    }
+
+    @Override
+    public int move(PongSimulation sim) {
+        int move = NONE;
+        if (anyPressed(upKeys)) {
+            move |= UP;
+        }
+        if (anyPressed(downKeys)) {
+            move |= DOWN;
+        }
+        return move;
+    }
+
+    private boolean anyPressed(int[] keys) {
+        for (int key : keys) {
+            if (keysPressed[key]) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,97 @@
+package game;
+
+import sim.MultiBallSimulation;
+import sim.PongSimulation;
+import sim.Rng;
+import telemetry.DebugOverlay;
+
+import java.awt.Graphics2D;
+import java.awt.event.KeyEvent;
+
+/**
+ * Stress-test mode of Pong with hundreds or thousands of balls bouncing off the paddles, the
+ * walls and each other.
+ * <p>
+ * Controls are the same as in PongGame: W/S for the left paddle, Up/Down arrows for the right
+ * one. Press F3 to show frame-time statistics.
+ */
+public class MultiBallGame extends GDV5 {
+    private static final long serialVersionUID = 1L;
+
+    private final MultiBallSimulation sim;
+    private final MultiBallRenderer renderer;
+    private final DebugOverlay overlay;
+    private boolean showOverlay = false;
+
+    /**
+     * @param balls Number of balls
+     */
+    public MultiBallGame(int balls) {
+        this(balls, Rng.randomSeed());
+    }
+
+    /**
+     * @param balls Number of balls
+     * @param seed Seed for the initial layout and serves
+     */
+    public MultiBallGame(int balls, long seed) {
+        super(60);
+        setTitle("Multi-Ball Pong (" + balls + " balls)");
+        sim = new MultiBallSimulation(getLogicalWidth(), getLogicalHeight(), balls, seed);
+        renderer = new MultiBallRenderer(getLogicalWidth(), getLogicalHeight(), getBackground(), balls,
+                sim.getBallSize());
+        overlay = new DebugOverlay(getFrameStats());
+        // the renderer's static layer covers the whole field
+        setCleanCanvas(false);
+    }
+
+    @Override
+    public void update() {
+        if (keysTyped[KeyEvent.VK_F3]) {
+            keysTyped[KeyEvent.VK_F3] = false;
+            showOverlay = !showOverlay;
+        }
+        int inputs = 0;
+        if (keysPressed[KeyEvent.VK_W]) {
+            inputs |= PongSimulation.LEFT_UP;
+        }
+        if (keysPressed[KeyEvent.VK_S]) {
+            inputs |= PongSimulation.LEFT_DOWN;
+        }
+        if (keysPressed[KeyEvent.VK_UP]) {
+            inputs |= PongSimulation.RIGHT_UP;
+        }
+        if (keysPressed[KeyEvent.VK_DOWN]) {
+            inputs |= PongSimulation.RIGHT_DOWN;
+        }
+        sim.step(inputs);
+    }
+
+    /**
+     * @return The simulation backing this game
+     */
+    public MultiBallSimulation getSimulation() {
+        return sim;
+    }
+
+    /**
+     * Shows or hides the frame statistics panel.
+     * @param option True to show the panel
+     */
+    public void setDebugOverlay(boolean option) {
+        showOverlay = option;
+    }
+
+    @Override
+    protected void buffersRestored() {
+        renderer.invalidate();
+    }
+
+    @Override
+    public void draw(Graphics2D g) {
+        renderer.draw(g, sim);
+        if (showOverlay) {
+            overlay.draw(g, 10, 10);
+        }
+    }
+}
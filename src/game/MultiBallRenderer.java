@@ -0,0 +1,118 @@
+package game;
+
+import sim.MultiBallSimulation;
+import sim.PongSimulation;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+/**
+ * Draws a MultiBallSimulation.
+ * <p>
+ * Instead of one anti-aliased fillOval per ball, which rasterizes a curve every time, a single
+ * ball is rendered once into a translucent sprite compatible with the target, and every ball is
+ * one drawImage of that sprite. The balls are drawn back to back with no state changes in
+ * between, so accelerated pipelines queue them as one run of blits from the same cached texture,
+ * and the software loops just blend a small image. Background and center line come from a
+ * cached layer as in PongRenderer.
+ */
+public class MultiBallRenderer {
+    private static final Font SCORE_FONT = new Font("Arial", Font.BOLD, 48);
+    private static final Font INFO_FONT = new Font("Arial", Font.PLAIN, 16);
+    private static final BasicStroke CENTER_LINE = new BasicStroke(2, BasicStroke.CAP_ROUND,
+            BasicStroke.JOIN_ROUND, 0, new float[]{10, 10}, 0);
+
+    private final int width;
+    private final int ballSize;
+    private final CachedImage staticLayer;
+    private BufferedImage sprite;
+    private GraphicsConfiguration spriteConfig;
+
+    private int leftScoreShown = -1;
+    private int rightScoreShown = -1;
+    private String leftScoreText = "";
+    private String rightScoreText = "";
+
+    /**
+     * @param width Width of the playing field
+     * @param height Height of the playing field
+     * @param background Background color of the field
+     * @param balls Number of balls, shown on the field
+     * @param ballSize Ball diameter
+     */
+    public MultiBallRenderer(int width, int height, Color background, int balls, int ballSize) {
+        this.width = width;
+        this.ballSize = ballSize;
+        staticLayer = new CachedImage(width, height, Transparency.OPAQUE, g -> {
+            g.setColor(background);
+            g.fillRect(0, 0, width, height);
+            g.setColor(Color.WHITE);
+            g.setStroke(CENTER_LINE);
+            g.drawLine(width / 2, 0, width / 2, height);
+            g.setFont(INFO_FONT);
+            g.drawString(balls + " balls", 20, height - 30);
+        });
+    }
+
+    /**
+     * Draws the field, paddles, scores and every ball.
+     */
+    public void draw(Graphics2D g, MultiBallSimulation sim) {
+        staticLayer.draw(g, 0, 0);
+
+        g.setColor(Color.WHITE);
+        g.fillRect(PongSimulation.PADDLE_OFFSET, sim.getLeftPaddleY(),
+                PongSimulation.PADDLE_WIDTH, PongSimulation.PADDLE_HEIGHT);
+        g.fillRect(width - PongSimulation.PADDLE_OFFSET - PongSimulation.PADDLE_WIDTH, sim.getRightPaddleY(),
+                PongSimulation.PADDLE_WIDTH, PongSimulation.PADDLE_HEIGHT);
+
+        BufferedImage ball = sprite(g.getDeviceConfiguration());
+        for (int i = 0, n = sim.getCount(); i < n; i++) {
+            g.drawImage(ball, (int) Math.round(sim.getBallX(i)), (int) Math.round(sim.getBallY(i)), null);
+        }
+
+        if (sim.getLeftScore() != leftScoreShown) {
+            leftScoreShown = sim.getLeftScore();
+            leftScoreText = Integer.toString(leftScoreShown);
+        }
+        if (sim.getRightScore() != rightScoreShown) {
+            rightScoreShown = sim.getRightScore();
+            rightScoreText = Integer.toString(rightScoreShown);
+        }
+        g.setFont(SCORE_FONT);
+        FontMetrics fm = g.getFontMetrics();
+        g.drawString(leftScoreText, width / 4 - fm.stringWidth(leftScoreText) / 2, 80);
+        g.drawString(rightScoreText, 3 * width / 4 - fm.stringWidth(rightScoreText) / 2, 80);
+    }
+
+    /**
+     * @return The ball sprite, rendered for the target's configuration the first time it is seen
+     */
+    private BufferedImage sprite(GraphicsConfiguration gc) {
+        if (sprite == null || gc != spriteConfig) {
+            spriteConfig = gc;
+            sprite = gc != null ? gc.createCompatibleImage(ballSize, ballSize, Transparency.TRANSLUCENT)
+                    : new BufferedImage(ballSize, ballSize, BufferedImage.TYPE_INT_ARGB_PRE);
+            Graphics2D g = sprite.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setColor(Color.WHITE);
+            g.fillOval(0, 0, ballSize, ballSize);
+            g.dispose();
+        }
+        return sprite;
+    }
+
+    /**
+     * Marks cached layers stale, e.g. after the back buffers lost their contents.
+     */
+    public void invalidate() {
+        staticLayer.invalidate();
+    }
+}
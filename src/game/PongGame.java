@@ -1,10 +1,25 @@
 package game;
 
-import objects.Ball;
-import objects.Paddle;
-
-import java.awt.*;
+import analytics.EventLog;
+import capture.FrameExporter;
+import net.LinkConditioner;
+import net.RollbackSession;
+import net.SpectatorServer;
+import replay.ReplayWriter;
+import sim.PaddleAI;
+import sim.PaddleController;
+import sim.PongSimulation;
+import sim.Rng;
+import telemetry.DebugOverlay;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
 import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.file.Path;
 
 /**
  * PongGame is a concrete implementation of the GDV5 framework for a classic 2-player Pong game.
@@ -13,172 +28,527 @@ import java.awt.event.KeyEvent;
  * Player 1: W/S keys
  * Player 2: Up/Down arrow keys
  * First player to reach WINNING_SCORE wins. Press 'R' to restart after game over.
+ * Press 'P' to pause and resume; a local match also pauses when the window loses focus.
+ * Press F3 to show frame-time statistics.
+ * <p>
+ * On the game over and pause screens nothing moves until a key is pressed, so the game loop
+ * goes idle instead of redrawing the same frame, unless netplay or spectators need the ticks.
+ * <p>
+ * Either paddle, or both, can be handed to a computer player or any other PaddleController,
+ * whose moves replace that player's keys.
+ * <p>
+ * In netplay each side runs this game on its own machine and the local player may use either
+ * set of keys for their paddle, unless a controller was set for it.
  */
 public class PongGame extends GDV5 {
-    // Game objects
-    private Paddle leftPaddle; // Player 1 paddle
-    private Paddle rightPaddle; // Player 2 paddle
-    private Ball ball; // Ball object
-
-    // Scores for each player
-    private int leftScore = 0;
-    private int rightScore = 0;
-
-    // Game settings
-    private static final int PADDLE_WIDTH = 15;
-    private static final int PADDLE_HEIGHT = 80;
-    private static final int PADDLE_SPEED = 5;
-    private static final int BALL_SIZE = 15;
-    private static final int WINNING_SCORE = 10;
-
-    // Game state
-    private boolean gameOver = false;
-    private String winner = "";
+    // Match state; PongGame only maps keys to inputs and draws the result
+    private final PongSimulation sim;
+    private final PongRenderer renderer;
+    // Replay recording, written on the game thread
+    private volatile ReplayWriter recorder;
+    private volatile boolean stopRecording = false;
+    // Netplay session, or null for a local match
+    private RollbackSession session;
+    // Snapshot broadcaster for spectators, or null
+    private SpectatorServer spectators;
+    // Controllers set for the paddles, or null where a person plays
+    private volatile PaddleController leftController;
+    private volatile PaddleController rightController;
+    private final PaddleController leftKeys;
+    private final PaddleController rightKeys;
+    private final PaddleController netplayKeys;
+    // Offscreen video capture of every tick, or null
+    private volatile FrameExporter capture;
+    private volatile boolean stopCapture = false;
+    // copies the match into a frame's state slot; the exporter's workers render it
+    private final FrameExporter.StateWriter captureState;
+    // Match event log, or null; events are published by the simulation during update()
+    private volatile EventLog eventLog;
+    private volatile boolean stopEventLog = false;
+    private String themeBall;
+    private String themePaddle;
+    // Local matches only; written on the game thread
+    private volatile boolean paused = false;
+    private volatile boolean pauseOnFocusLoss = true;
+    // Frame statistics panel, toggled with F3
+    private final DebugOverlay overlay;
+    private boolean showOverlay = false;
 
     /**
      * Constructs a PongGame instance and initializes game objects.
      */
     public PongGame() {
+        this(Rng.randomSeed());
+    }
+
+    /**
+     * Constructs a PongGame whose match plays out from the given seed. Both peers of a netplay
+     * match must use the same seed.
+     * @param seed Seed for the ball's serve directions
+     */
+    public PongGame(long seed) {
         super(60); // 60 FPS
         setTitle("Two Player Pong");
-        initializeGame();
+        // sub-pixel at every rate, so setFrames changes the size of a tick and not the pace
+        sim = new PongSimulation(getLogicalWidth(), getLogicalHeight(), seed, true);
+        captureState = sim::writeState;
+        renderer = new PongRenderer(getLogicalWidth(), getLogicalHeight(), getBackground(), getBufferCount());
+        overlay = new DebugOverlay(getFrameStats());
+        leftKeys = new KeyboardController(keysPressed, KeyEvent.VK_W, KeyEvent.VK_S);
+        rightKeys = new KeyboardController(keysPressed, KeyEvent.VK_UP, KeyEvent.VK_DOWN);
+        netplayKeys = new KeyboardController(keysPressed, new int[]{KeyEvent.VK_W, KeyEvent.VK_UP},
+                new int[]{KeyEvent.VK_S, KeyEvent.VK_DOWN});
+        // the renderer's static layer covers the whole field, so clearing first is wasted fill
+        setCleanCanvas(false);
     }
 
     /**
-     * Initializes paddles and ball to their starting positions.
+     * Main game update loop. Reads the keyboard and advances the simulation by one tick, then
+     * hands the new state to the spectator server if there is one.
      */
-    private void initializeGame() {
-        // Create paddles at left and right sides, centered vertically
-        leftPaddle = new Paddle(30, getMaxWindowY() / 2 - PADDLE_HEIGHT / 2, PADDLE_WIDTH, PADDLE_HEIGHT, PADDLE_SPEED);
-        rightPaddle = new Paddle(getMaxWindowX() - 30 - PADDLE_WIDTH, getMaxWindowY() / 2 - PADDLE_HEIGHT / 2, PADDLE_WIDTH, PADDLE_HEIGHT, PADDLE_SPEED);
+    @Override
+    public void update() {
+        if (keysTyped[KeyEvent.VK_F3]) {
+            keysTyped[KeyEvent.VK_F3] = false;
+            setDebugOverlay(!showOverlay);
+        }
+        if (keysTyped[KeyEvent.VK_P]) {
+            keysTyped[KeyEvent.VK_P] = false;
+            if (session == null && !sim.isGameOver()) {
+                setPaused(!paused);
+            }
+        }
+        if (session == null && pauseOnFocusLoss && !paused && !sim.isGameOver() && !isWindowFocused()) {
+            setPaused(true);
+        }
+        if (stopEventLog) {
+            stopEventLogNow();
+        }
+        if (session != null) {
+            updateNetplay();
+        } else {
+            updateLocal();
+        }
+        if (spectators != null) {
+            spectators.publish(sim);
+        }
+        if (capture != null && (!paused || stopCapture)) {
+            captureFrame();
+        }
+    }
 
-        // Create ball in center
-        ball = new Ball(getMaxWindowX() / 2 - BALL_SIZE / 2,
-                getMaxWindowY() / 2 - BALL_SIZE / 2,
-                BALL_SIZE);
+    private void setPaused(boolean option) {
+        paused = option;
+        renderer.setPaused(option);
     }
 
     /**
-     * Main game update loop. Handles input, movement, collision, scoring, and game over logic.
+     * The game over and pause screens only change on a key press (or a stop request, which
+     * wakes the loop). Netplay must keep exchanging inputs and spectators expect a steady
+     * stream of snapshots, so those never go idle.
      */
     @Override
-    public void update() {
-        if (gameOver) {
-            // Press R to restart
-            if (KeysTyped[KeyEvent.VK_R]) {
-                restartGame();
-                KeysTyped[KeyEvent.VK_R] = false;
+    protected boolean isIdle() {
+        return session == null && spectators == null && (paused || sim.isGameOver());
+    }
+
+    /**
+     * Asks both paddles' controllers for their moves and advances the local match by one tick.
+     */
+    private void updateLocal() {
+        if (paused) {
+            if (recorder != null && stopRecording) {
+                closeRecording();
             }
             return;
         }
+        int inputs = 0;
+        if (sim.isGameOver()) {
+            // Press R to restart
+            if (keysTyped[KeyEvent.VK_R]) {
+                inputs |= PongSimulation.RESTART;
+                keysTyped[KeyEvent.VK_R] = false;
+            }
+        } else {
+            // Player 1 (W/S) and player 2 (UP/DOWN arrows), unless a controller replaces them
+            PaddleController left = leftController;
+            PaddleController right = rightController;
+            inputs |= PaddleController.toSimInputs((left != null ? left : leftKeys).move(sim), true);
+            inputs |= PaddleController.toSimInputs((right != null ? right : rightKeys).move(sim), false);
+        }
+        if (recorder != null) {
+            record(inputs);
+        }
+        sim.step(inputs);
+    }
 
-        // Player 1 controls (W/S)
-        if (KeysPressed[KeyEvent.VK_W]) {
-            leftPaddle.moveUp();
+    /**
+     * Hands a paddle to a computer player, or back to the keyboard. Only applies to local
+     * matches. The AI's aim noise is seeded from the match seed.
+     * @param left True for the left paddle, false for the right one
+     * @param difficulty Difficulty of the computer player, or null for keyboard control
+     */
+    public void setComputerPlayer(boolean left, PaddleAI.Difficulty difficulty) {
+        setController(left, difficulty == null ? null
+                : new PaddleAI(left, difficulty, Rng.mix(sim.getSeed() + (left ? 1 : 2) * Rng.GOLDEN_GAMMA)));
+    }
+
+    /**
+     * Hands a paddle to a controller, or back to the keyboard. In netplay only the local
+     * paddle's controller is used.
+     * @param left True for the left paddle, false for the right one
+     * @param controller Controller created for that paddle, or null for keyboard control
+     */
+    public void setController(boolean left, PaddleController controller) {
+        if (left) {
+            leftController = controller;
+        } else {
+            rightController = controller;
         }
-        if (KeysPressed[KeyEvent.VK_S]) {
-            leftPaddle.moveDown();
+    }
+
+    /**
+     * Asks the local paddle's controller for its move and advances the netplay session by one
+     * tick.
+     */
+    private void updateNetplay() {
+        int input = 0;
+        if (sim.isGameOver()) {
+            if (keysTyped[KeyEvent.VK_R]) {
+                input |= RollbackSession.RESTART;
+                keysTyped[KeyEvent.VK_R] = false;
+            }
+        } else {
+            // controller moves use the same UP and DOWN bits as the session
+            PaddleController local = session.isLocalLeft() ? leftController : rightController;
+            input |= (local != null ? local : netplayKeys).move(sim);
         }
+        try {
+            session.advance(input);
+        } catch (IOException e) {
+            System.out.println("Error exchanging inputs -> " + e.getMessage());
+        }
+    }
 
-        // Player 2 controls (UP/DOWN arrows)
-        if (KeysPressed[KeyEvent.VK_UP]) {
-            rightPaddle.moveUp();
+    /**
+     * Turns this game into one side of a netplay match. Call before start(). Recording is not
+     * available in netplay, since ticks may be re-simulated after they were recorded.
+     * @param localPort UDP port to receive the peer's inputs on
+     * @param remote Address of the peer
+     * @param left True to control the left paddle, false for the right one
+     * @param link Artificial latency and loss for outgoing packets, for testing
+     */
+    public void startNetplay(int localPort, SocketAddress remote, boolean left, LinkConditioner link) throws IOException {
+        requireDefaultRate("Netplay");
+        if (eventLog != null) {
+            throw new IllegalStateException("The event log is not available in netplay");
         }
-        if (KeysPressed[KeyEvent.VK_DOWN]) {
-            rightPaddle.moveDown();
+        session = new RollbackSession(sim, left, RollbackSession.openChannel(new InetSocketAddress(localPort)),
+                remote, link);
+        setTitle("Network Pong (" + (left ? "left" : "right") + " paddle)");
+    }
+
+    /**
+     * @return The netplay session, or null for a local match
+     */
+    public RollbackSession getSession() {
+        return session;
+    }
+
+    /**
+     * Broadcasts the match to spectators joining on the given UDP port. Call before start(). In
+     * netplay spectators see this peer's view, including its predictions.
+     * @param port UDP port spectators join on
+     * @param maxViewers Most spectators served at once
+     */
+    public void startSpectatorServer(int port, int maxViewers) throws IOException {
+        spectators = new SpectatorServer(RollbackSession.openChannel(new InetSocketAddress(port)), maxViewers);
+        spectators.start();
+    }
+
+    /**
+     * @return The spectator server, or null if the match is not broadcast
+     */
+    public SpectatorServer getSpectatorServer() {
+        return spectators;
+    }
+
+    /**
+     * Starts recording every tick of the match to a replay file.
+     * @param path Replay file to create
+     */
+    public void startRecording(Path path) throws IOException {
+        if (session != null) {
+            throw new IllegalStateException("Recording is not available in netplay");
         }
+        requireDefaultRate("Recording");
+        recorder = new ReplayWriter(path, sim);
+    }
 
-        // Keep paddles in bounds of the window
-        leftPaddle.stayInBounds(0, getMaxWindowY());
-        rightPaddle.stayInBounds(0, getMaxWindowY());
+    private void requireDefaultRate(String feature) {
+        if (sim.getTicksPerSecond() != PongSimulation.DEFAULT_TICKS_PER_SECOND) {
+            throw new IllegalStateException(feature + " needs the default " + PongSimulation.DEFAULT_TICKS_PER_SECOND
+                    + " updates per second");
+        }
+    }
 
-        // Update ball position and speed
-        ball.update();
+    /**
+     * Changes the physics rate. Speeds are per second, so the game keeps its pace and only the
+     * size of each step changes. Replays and netplay need the default rate.
+     * @param num Updates per second
+     */
+    @Override
+    public void setFrames(int num) {
+        if (num != PongSimulation.DEFAULT_TICKS_PER_SECOND && (session != null || recorder != null)) {
+            throw new IllegalStateException("Replays and netplay need the default "
+                    + PongSimulation.DEFAULT_TICKS_PER_SECOND + " updates per second");
+        }
+        super.setFrames(num);
+        sim.setTicksPerSecond(num);
+    }
+
+    /**
+     * Stops recording. The file is closed by the game thread on its next update; it stays
+     * playable up to the last recorded tick even if the game exits first.
+     */
+    public void stopRecording() {
+        stopRecording = true;
+        wake();
+    }
+
+    private void record(int inputs) {
+        if (stopRecording) {
+            closeRecording();
+            return;
+        }
+        try {
+            recorder.record(sim, inputs);
+        } catch (IOException e) {
+            System.out.println("Error recording replay -> " + e.getMessage());
+            recorder = null;
+        }
+    }
+
+    private void closeRecording() {
+        ReplayWriter r = recorder;
+        recorder = null;
+        stopRecording = false;
+        try {
+            r.close();
+        } catch (IOException e) {
+            System.out.println("Error recording replay -> " + e.getMessage());
+        }
+    }
+
+    /**
+     * Captures every tick of the match to video frames. The game thread only copies the match
+     * state; the frames are drawn offscreen and encoded on background threads, each with a
+     * renderer, a copy of the simulation and a cache of theme sprites of its own. A tick is skipped rather than waited for
+     * if the encoders fall behind. The capture is finished when the game exits.
+     * @param output Directory for PNG frames, or file for raw RGB24 video
+     * @param format Output format
+     */
+    public void startCapture(Path output, FrameExporter.Format format) throws IOException {
+        int width = getLogicalWidth();
+        int height = getLogicalHeight();
+        Color background = getBackground();
+        AssetCache assets = getAssets();
+        String ball = themeBall;
+        String paddle = themePaddle;
+        FrameExporter exporter = new FrameExporter(width, height, null, format, output, PongSimulation.STATE_BYTES,
+                () -> {
+                    PongRenderer renderer = new PongRenderer(width, height, background, 1);
+                    if (ball != null || paddle != null) {
+                        // scaled sprites are per thread, so the screen's are never redrawn for a worker
+                        AssetCache sprites = new AssetCache(getClass(), AssetCache.DEFAULT_BUDGET_BYTES);
+                        share(assets, sprites, ball);
+                        share(assets, sprites, paddle);
+                        renderer.setTheme(sprites, ball, paddle);
+                    }
+                    PongSimulation copy = new PongSimulation(sim.getWidth(), sim.getHeight(), sim.getSeed(), true);
+                    return (g, state) -> {
+                        copy.readState(state);
+                        renderer.draw(g, copy);
+                    };
+                });
+        stopCapture = false;
+        capture = exporter;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> finishCapture(exporter), "Capture shutdown"));
+    }
 
-        // Ball collision with top/bottom walls
-        if (ball.getY() <= 0 || ball.getY() + ball.getSize() >= getMaxWindowY()) {
-            ball.reverseY(); // Bounce off wall
+    /**
+     * Gives a capture worker's cache the decoded image of a theme resource, waiting for the
+     * game's preload if it has not finished.
+     */
+    private static void share(AssetCache from, AssetCache to, String name) {
+        if (name != null) {
+            BufferedImage image = from.get(name);
+            if (image != null) {
+                to.put(name, image);
+            }
         }
+    }
 
-        // Ball collision with paddles
-        Rectangle ballRect = ball.getRectangle();
-        Rectangle leftPaddleRect = leftPaddle.getRectangle();
-        Rectangle rightPaddleRect = rightPaddle.getRectangle();
+    /**
+     * Stops capturing. Frames still being encoded are finished in the background.
+     */
+    public void stopCapture() {
+        stopCapture = true;
+        wake();
+    }
 
-        // Check collision with left paddle
-        if (ballRect.intersects(leftPaddleRect)) {
-            ball.reverseX(); // Bounce horizontally
-            ball.setX(leftPaddle.getX() + leftPaddle.getWidth() + 1); // Prevent ball sticking to paddle
-            addSpin(leftPaddle, ball); // Add spin based on hit position
+    private void captureFrame() {
+        FrameExporter exporter = capture;
+        if (stopCapture) {
+            capture = null;
+            stopCapture = false;
+            Thread closer = new Thread(() -> finishCapture(exporter), "Capture close");
+            closer.start();
+            return;
+        }
+        exporter.tryCaptureState(captureState);
+    }
+
+    private static void finishCapture(FrameExporter exporter) {
+        try {
+            exporter.close();
+        } catch (IOException e) {
+            System.out.println("Error capturing video -> " + e.getMessage());
+        }
+    }
+
+    /**
+     * Logs the match's paddle hits, wall bounces, points, game overs and restarts to rotating
+     * files in a directory, written in the background. Not available in netplay, since ticks
+     * may be re-simulated after their events were logged. The log is finished when the game
+     * exits.
+     * @param directory Directory for the log files
+     */
+    public void startEventLog(Path directory) throws IOException {
+        if (session != null) {
+            throw new IllegalStateException("The event log is not available in netplay");
         }
+        EventLog log = new EventLog(directory, sim);
+        stopEventLog = false;
+        eventLog = log;
+        sim.setListener(log);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> finishEventLog(log), "Event log shutdown"));
+    }
 
-        // Check collision with right paddle
-        if (ballRect.intersects(rightPaddleRect)) {
-            ball.reverseX(); // Bounce horizontally
-            ball.setX(rightPaddle.getX() - ball.getSize() - 1); // Prevent ball sticking to paddle
-            addSpin(rightPaddle, ball); // Add spin based on hit position
+    /**
+     * Stops logging events. Events already published are written in the background.
+     */
+    public void stopEventLog() {
+        stopEventLog = true;
+        wake();
+    }
+
+    private void stopEventLogNow() {
+        EventLog log = eventLog;
+        sim.setListener(null);
+        eventLog = null;
+        stopEventLog = false;
+        if (log != null) {
+            Thread closer = new Thread(() -> finishEventLog(log), "Event log close");
+            closer.start();
         }
+    }
 
-        // Scoring - ball goes off screen
-        if (ball.getX() < -ball.getSize()) {
-            // Right player scores
-            rightScore++;
-            resetBall(1); // Ball goes toward left player
-            checkGameOver();
-        } else if (ball.getX() > getMaxWindowX()) {
-            // Left player scores
-            leftScore++;
-            resetBall(-1); // Ball goes toward right player
-            checkGameOver();
+    private static void finishEventLog(EventLog log) {
+        try {
+            log.close();
+        } catch (IOException e) {
+            System.out.println("Error writing event log -> " + e.getMessage());
         }
     }
 
     /**
-     * Adds spin to the ball based on where it hits the paddle.
-     * @param paddle The paddle the ball collided with
-     * @param ball The ball object
+     * @return The active event log, or null
      */
-    private void addSpin(Paddle paddle, Ball ball) {
-        // Calculate relative position where ball hit paddle (0.0 to 1.0)
-        double relativeHitPos = (ball.getCenterY() - paddle.getY()) / paddle.getHeight();
-        // Convert to range -1.0 to 1.0
-        double spinFactor = (relativeHitPos - 0.5) * 2.0;
-        // Apply spin to ball's Y velocity
-        ball.adjustYVelocity(spinFactor * 2);
+    public EventLog getEventLog() {
+        return eventLog;
     }
 
     /**
-     * Resets the ball to the center and sets its direction.
-     * @param direction Direction for ball to move (-1 for left, 1 for right)
+     * @return True while the local match is paused
      */
-    private void resetBall(int direction) {
-        ball.reset(getMaxWindowX() / 2 - BALL_SIZE / 2,
-                getMaxWindowY() / 2 - BALL_SIZE / 2,
-                direction);
+    public boolean isPaused() {
+        return paused;
     }
 
     /**
-     * Checks if either player has reached the winning score and sets game over state.
+     * Sets whether a local match pauses when the window loses the keyboard focus, as it does by
+     * default. Turn it off where input does not come through the focused window, e.g. on a
+     * virtual display without a window manager.
+     * @param option True to pause on focus loss
      */
-    private void checkGameOver() {
-        if (leftScore >= WINNING_SCORE) {
-            gameOver = true;
-            winner = "Player 1 Wins!";
-        } else if (rightScore >= WINNING_SCORE) {
-            gameOver = true;
-            winner = "Player 2 Wins!";
+    public void setPauseOnFocusLoss(boolean option) {
+        this.pauseOnFocusLoss = option;
+    }
+
+    /**
+     * @return The active video capture, or null
+     */
+    public FrameExporter getCapture() {
+        return capture;
+    }
+
+    /**
+     * Draws the ball and paddles with images instead of plain shapes. The images are loaded in
+     * the background; the plain shapes are drawn until they are ready.
+     * @param ball Resource name of the ball image, or null for the plain circle
+     * @param paddle Resource name of the paddle image, or null for plain rectangles
+     */
+    public void setTheme(String ball, String paddle) {
+        if (ball != null) {
+            getAssets().preload(ball);
         }
+        if (paddle != null) {
+            getAssets().preload(paddle);
+        }
+        renderer.setTheme(getAssets(), ball, paddle);
+        themeBall = ball;
+        themePaddle = paddle;
+    }
+
+    /**
+     * @return The simulation backing this game
+     */
+    public PongSimulation getSimulation() {
+        return sim;
     }
 
     /**
-     * Restarts the game by resetting scores, state, and reinitializing objects.
+     * @return Y the left paddle was drawn at in the last frame; read it on the game thread, e.g.
+     * in framePresented()
      */
-    private void restartGame() {
-        leftScore = 0;
-        rightScore = 0;
-        gameOver = false;
-        winner = "";
-        initializeGame();
+    public int getLeftPaddleDrawnY() {
+        return renderer.getLeftPaddleDrawnY();
+    }
+
+    /**
+     * Repaints only the regions the ball and paddles touched instead of the whole field.
+     * @param option True to enable dirty-region drawing
+     */
+    public void setDirtyRegions(boolean option) {
+        renderer.setDirtyRegions(option);
+    }
+
+    /**
+     * Shows or hides the frame statistics panel.
+     * @param option True to show the panel
+     */
+    public void setDebugOverlay(boolean option) {
+        if (showOverlay && !option) {
+            // partial redraws would leave the panel on screen
+            renderer.invalidate();
+        }
+        showOverlay = option;
+    }
+
+    @Override
+    protected void buffersRestored() {
+        renderer.invalidate();
     }
 
     /**
@@ -187,58 +557,9 @@ public class PongGame extends GDV5 {
      */
     @Override
     public void draw(Graphics2D g) {
-        // Enable anti-aliasing for smoother graphics
-        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-        // Draw center dashed line
-        g.setColor(Color.WHITE);
-        g.setStroke(new BasicStroke(2, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND,
-                0, new float[]{10, 10}, 0));
-        g.drawLine(getMaxWindowX() / 2, 0, getMaxWindowX() / 2, getMaxWindowY());
-
-        // Draw paddles
-        g.setColor(Color.WHITE);
-        g.fillRect(leftPaddle.getX(), leftPaddle.getY(),
-                leftPaddle.getWidth(), leftPaddle.getHeight());
-        g.fillRect(rightPaddle.getX(), rightPaddle.getY(),
-                rightPaddle.getWidth(), rightPaddle.getHeight());
-
-        // Draw ball
-        g.fillOval(ball.getX(), ball.getY(), ball.getSize(), ball.getSize());
-
-        // Draw scores for both players
-        g.setFont(new Font("Arial", Font.BOLD, 48));
-        FontMetrics fm = g.getFontMetrics();
-        String leftScoreStr = String.valueOf(leftScore);
-        String rightScoreStr = String.valueOf(rightScore);
-        g.drawString(leftScoreStr,
-                getMaxWindowX() / 4 - fm.stringWidth(leftScoreStr) / 2, 80);
-        g.drawString(rightScoreStr,
-                3 * getMaxWindowX() / 4 - fm.stringWidth(rightScoreStr) / 2, 80);
-
-        // Draw control instructions
-        g.setFont(new Font("Arial", Font.PLAIN, 16));
-        g.drawString("Player 1: W/S", 20, getMaxWindowY() - 60);
-        g.drawString("Player 2: ↑/↓", getMaxWindowX() - 120, getMaxWindowY() - 60);
-
-        // Draw game over overlay and winner message
-        if (gameOver) {
-            g.setColor(new Color(0, 0, 0, 180)); // Semi-transparent overlay
-            g.fillRect(0, 0, getMaxWindowX(), getMaxWindowY());
-
-            g.setColor(Color.WHITE);
-            g.setFont(new Font("Arial", Font.BOLD, 72));
-            FontMetrics winFm = g.getFontMetrics();
-            g.drawString(winner,
-                    getMaxWindowX() / 2 - winFm.stringWidth(winner) / 2,
-                    getMaxWindowY() / 2 - 50);
-
-            g.setFont(new Font("Arial", Font.PLAIN, 24));
-            String restartMsg = "Press R to restart";
-            FontMetrics restartFm = g.getFontMetrics();
-            g.drawString(restartMsg,
-                    getMaxWindowX() / 2 - restartFm.stringWidth(restartMsg) / 2,
-                    getMaxWindowY() / 2 + 30);
-        }
-    }
-}
\ No newline at end of file
+        renderer.draw(g, sim, getInterpolation());
+        if (showOverlay) {
+            overlay.draw(g, 10, 10);
+        }
+    }
+}
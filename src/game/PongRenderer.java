@@ -0,0 +1,430 @@
+package game;
+
+import objects.Ball;
+import objects.Paddle;
+import sim.PongSimulation;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Draws a PongSimulation.
+ * <p>
+ * Everything that does not change between frames (background, center line and control text)
+ * is painted once into a cached layer and blitted. Every score from 0 to WINNING_SCORE, both
+ * winner messages and the ball are pre-rendered too, so a steady frame, a point and a game over
+ * only blit and fill rectangles and allocate nothing. In dirty-region mode only the areas the
+ * ball and paddles covered recently are repainted; the rest of the back buffer is left as it was.
+ * <p>
+ * The ball and paddles can be drawn part of the way between the last two ticks, so that a
+ * display refreshing at a rate unrelated to the tick rate still shows even motion.
+ */
+public class PongRenderer {
+    private static final Font SCORE_FONT = new Font("Arial", Font.BOLD, 48);
+    private static final Font CONTROLS_FONT = new Font("Arial", Font.PLAIN, 16);
+    private static final Font WINNER_FONT = new Font("Arial", Font.BOLD, 72);
+    private static final Font RESTART_FONT = new Font("Arial", Font.PLAIN, 24);
+    private static final BasicStroke CENTER_LINE = new BasicStroke(2, BasicStroke.CAP_ROUND,
+            BasicStroke.JOIN_ROUND, 0, new float[]{10, 10}, 0);
+    private static final Color OVERLAY = new Color(0, 0, 0, 180); // Semi-transparent overlay
+
+    // Area reserved for each score, centered on the score's x position; the score strip holds one
+    // such box per score, top to bottom
+    private static final int SCORE_BOX_WIDTH = 200;
+    private static final int SCORE_BOX_HEIGHT = 100;
+    private static final int SCORE_BASELINE = 80;
+    private static final int SCORE_COUNT = PongSimulation.WINNING_SCORE + 1;
+    // Rows of the winner strip: the message for each player, drawn centered over the game over layer
+    private static final String[] WINNERS = {PongSimulation.LEFT_WINS, PongSimulation.RIGHT_WINS};
+    private static final int WINNER_ROW_HEIGHT = 100;
+    private static final int WINNER_BASELINE = 80;
+    // Extra pixels repainted around moving objects to cover anti-aliased edges
+    private static final int DIRTY_MARGIN = 2;
+
+    private final int width;
+    private final int height;
+    private final Color background;
+
+    private final CachedImage staticLayer;
+    private final CachedImage scoreStrip;
+    private final CachedImage gameOverLayer;
+    private final CachedImage winnerStrip;
+    private final CachedImage pausedLayer;
+    // Created on the first frame, at the ball's size
+    private CachedImage ballImage;
+    private int ballImageSize;
+    private int leftScoreShown = -1;
+    private int rightScoreShown = -1;
+
+    // Optional sprites for the ball and paddles, drawn once they are loaded
+    private AssetCache assets;
+    private String ballSprite;
+    private String paddleSprite;
+
+    // Dirty-region mode
+    private boolean dirtyRegions = false;
+    private final int history;
+    private int fullRepaints;
+    private boolean gameOverShown = false;
+    private boolean paused = false;
+    private final Rectangle[] ballRects;
+    private final Rectangle[] leftRects;
+    private final Rectangle[] rightRects;
+    private int frame = 0;
+    private final Rectangle region = new Rectangle();
+
+    /**
+     * @param width Width of the playing field
+     * @param height Height of the playing field
+     * @param background Background color of the field
+     * @param history Number of frames a back buffer lags behind the screen (the buffer count)
+     */
+    public PongRenderer(int width, int height, Color background, int history) {
+        this.width = width;
+        this.height = height;
+        this.background = background;
+        this.history = history;
+        ballRects = newRects(history);
+        leftRects = newRects(history);
+        rightRects = newRects(history);
+
+        staticLayer = new CachedImage(width, height, Transparency.OPAQUE, this::paintStatic);
+        scoreStrip = new CachedImage(SCORE_BOX_WIDTH, SCORE_BOX_HEIGHT * SCORE_COUNT, Transparency.TRANSLUCENT,
+                this::paintScores);
+        gameOverLayer = new CachedImage(width, height, Transparency.TRANSLUCENT, this::paintGameOver);
+        winnerStrip = new CachedImage(width, WINNER_ROW_HEIGHT * WINNERS.length, Transparency.TRANSLUCENT,
+                this::paintWinners);
+        pausedLayer = new CachedImage(width, height, Transparency.TRANSLUCENT, this::paintPaused);
+        invalidate();
+    }
+
+    private static Rectangle[] newRects(int count) {
+        Rectangle[] rects = new Rectangle[count + 1];
+        for (int i = 0; i < rects.length; i++) {
+            rects[i] = new Rectangle();
+        }
+        return rects;
+    }
+
+    /**
+     * Renders all game graphics, including paddles, ball, scores, controls, and game over screen.
+     * @param g The Graphics2D context to draw on
+     * @param sim The match to draw
+     */
+    public void draw(Graphics2D g, PongSimulation sim) {
+        draw(g, sim, 1.0);
+    }
+
+    /**
+     * Renders the match with the ball and paddles interpolated between the last two ticks.
+     * @param g The Graphics2D context to draw on
+     * @param sim The match to draw
+     * @param alpha Fraction of a tick since the last step, 0 for the previous tick's positions
+     * and 1 (or more) for the current ones
+     */
+    public void draw(Graphics2D g, PongSimulation sim, double alpha) {
+        Paddle leftPaddle = sim.getLeftPaddle();
+        Paddle rightPaddle = sim.getRightPaddle();
+        Ball ball = sim.getBall();
+
+        // A new score or the game over screen has to reach every back buffer
+        boolean changed = false;
+        if (sim.getLeftScore() != leftScoreShown) {
+            leftScoreShown = sim.getLeftScore();
+            changed = true;
+        }
+        if (sim.getRightScore() != rightScoreShown) {
+            rightScoreShown = sim.getRightScore();
+            changed = true;
+        }
+        if (sim.isGameOver() != gameOverShown) {
+            gameOverShown = sim.isGameOver();
+            changed = true;
+        }
+        if (changed) {
+            invalidate();
+        }
+
+        // Where the moving objects are drawn this frame
+        int ballX = ball.getX();
+        int ballY = ball.getY();
+        int leftY = leftPaddle.getY();
+        int rightY = rightPaddle.getY();
+        if (alpha < 1) {
+            ballX = (int) Math.floor(sim.getBallDrawX(alpha));
+            ballY = (int) Math.floor(sim.getBallDrawY(alpha));
+            leftY = (int) Math.floor(sim.getLeftPaddleDrawY(alpha));
+            rightY = (int) Math.floor(sim.getRightPaddleDrawY(alpha));
+        }
+
+        // Record where the moving objects are this frame
+        int slot = frame++ % (history + 1);
+        ballRects[slot].setBounds(ballX, ballY, ball.getSize(), ball.getSize());
+        leftRects[slot].setBounds(leftPaddle.getX(), leftY, leftPaddle.getWidth(), leftPaddle.getHeight());
+        rightRects[slot].setBounds(rightPaddle.getX(), rightY, rightPaddle.getWidth(), rightPaddle.getHeight());
+
+        if (!dirtyRegions || fullRepaints > 0 || sim.isGameOver() || paused) {
+            if (fullRepaints > 0) {
+                fullRepaints--;
+            }
+            staticLayer.draw(g, 0, 0);
+            drawScores(g, 0, 0, width, height);
+        } else {
+            // Repaint the background under everything that moved since this buffer was last drawn
+            restore(g, ballRects);
+            restore(g, leftRects);
+            restore(g, rightRects);
+        }
+
+        // Enable anti-aliasing for smoother graphics
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        // Draw paddles
+        g.setColor(Color.WHITE);
+        drawPaddle(g, leftPaddle, leftY);
+        drawPaddle(g, rightPaddle, rightY);
+
+        // Draw ball, as the plain circle until its sprite has loaded
+        if (ballSprite == null || !assets.draw(g, ballSprite, ballX, ballY, ball.getSize(), ball.getSize())) {
+            drawBall(g, ballX, ballY, ball.getSize());
+        }
+
+        // Draw game over overlay and winner message
+        if (sim.isGameOver()) {
+            gameOverLayer.draw(g, 0, 0);
+            int row = sim.getWinner().equals(PongSimulation.LEFT_WINS) ? 0 : 1;
+            winnerStrip.drawPart(g, 0, height / 2 - 50 - WINNER_BASELINE, 0, row * WINNER_ROW_HEIGHT,
+                    width, WINNER_ROW_HEIGHT);
+        } else if (paused) {
+            pausedLayer.draw(g, 0, 0);
+        }
+    }
+
+    private void drawPaddle(Graphics2D g, Paddle paddle, int y) {
+        if (paddleSprite == null
+                || !assets.draw(g, paddleSprite, paddle.getX(), y, paddle.getWidth(), paddle.getHeight())) {
+            g.fillRect(paddle.getX(), y, paddle.getWidth(), paddle.getHeight());
+        }
+    }
+
+    /**
+     * Draws the plain ball. Filling an anti-aliased oval allocates its shape on every call, so
+     * the circle is rendered once and blitted.
+     */
+    private void drawBall(Graphics2D g, int x, int y, int size) {
+        if (ballImage == null || ballImageSize != size) {
+            ballImage = new CachedImage(size, size, Transparency.TRANSLUCENT, bg -> {
+                bg.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                bg.setColor(Color.WHITE);
+                bg.fillOval(0, 0, size, size);
+            });
+            ballImageSize = size;
+        }
+        ballImage.draw(g, x, y);
+    }
+
+    /**
+     * Restores the static layer and scores over the union of an object's recent positions.
+     */
+    private void restore(Graphics2D g, Rectangle[] rects) {
+        region.setBounds(rects[0]);
+        for (int i = 1; i < rects.length; i++) {
+            region.add(rects[i]);
+        }
+        region.grow(DIRTY_MARGIN, DIRTY_MARGIN);
+        clipToField(region);
+        if (region.isEmpty()) {
+            return;
+        }
+        staticLayer.drawRegion(g, region.x, region.y, region.width, region.height);
+        if (region.y < SCORE_BOX_HEIGHT) {
+            drawScores(g, region.x, region.y, region.width, region.height);
+        }
+    }
+
+    private void clipToField(Rectangle r) {
+        int x1 = Math.max(0, r.x);
+        int y1 = Math.max(0, r.y);
+        int x2 = Math.min(width, r.x + r.width);
+        int y2 = Math.min(height, r.y + r.height);
+        r.setBounds(x1, y1, Math.max(0, x2 - x1), Math.max(0, y2 - y1));
+    }
+
+    /**
+     * Draws the parts of both scores that fall inside the given area, from the score strip.
+     */
+    private void drawScores(Graphics2D g, int x, int y, int w, int h) {
+        drawScore(g, leftScoreShown, width / 4 - SCORE_BOX_WIDTH / 2, x, y, w, h);
+        drawScore(g, rightScoreShown, 3 * width / 4 - SCORE_BOX_WIDTH / 2, x, y, w, h);
+    }
+
+    private void drawScore(Graphics2D g, int score, int boxX, int x, int y, int w, int h) {
+        int x1 = Math.max(x, boxX);
+        int y1 = Math.max(y, 0);
+        int x2 = Math.min(x + w, boxX + SCORE_BOX_WIDTH);
+        int y2 = Math.min(y + h, SCORE_BOX_HEIGHT);
+        if (x1 < x2 && y1 < y2) {
+            scoreStrip.drawPart(g, x1, y1, x1 - boxX, score * SCORE_BOX_HEIGHT + y1, x2 - x1, y2 - y1);
+        }
+    }
+
+    private void paintStatic(Graphics2D g) {
+        g.setColor(background);
+        g.fillRect(0, 0, width, height);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        // Draw center dashed line
+        g.setColor(Color.WHITE);
+        g.setStroke(CENTER_LINE);
+        g.drawLine(width / 2, 0, width / 2, height);
+
+        // Draw control instructions
+        g.setFont(CONTROLS_FONT);
+        g.drawString("Player 1: W/S", 20, height - 60);
+        g.drawString("Player 2: ↑/↓", width - 120, height - 60);
+    }
+
+    private void paintScores(Graphics2D g) {
+        for (int score = 0; score < SCORE_COUNT; score++) {
+            paintScore(g, score);
+            g.translate(0, SCORE_BOX_HEIGHT);
+        }
+    }
+
+    private void paintScore(Graphics2D g, int score) {
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setColor(Color.WHITE);
+        g.setFont(SCORE_FONT);
+        FontMetrics fm = g.getFontMetrics();
+        String scoreStr = String.valueOf(score);
+        g.drawString(scoreStr, SCORE_BOX_WIDTH / 2 - fm.stringWidth(scoreStr) / 2, SCORE_BASELINE);
+    }
+
+    /**
+     * Paints the game over overlay and restart message; the winner message comes from the
+     * winner strip.
+     */
+    private void paintGameOver(Graphics2D g) {
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setColor(OVERLAY);
+        g.fillRect(0, 0, width, height);
+
+        g.setColor(Color.WHITE);
+        g.setFont(RESTART_FONT);
+        String restartMsg = "Press R to restart";
+        FontMetrics restartFm = g.getFontMetrics();
+        g.drawString(restartMsg,
+                width / 2 - restartFm.stringWidth(restartMsg) / 2,
+                height / 2 + 30);
+    }
+
+    private void paintWinners(Graphics2D g) {
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setColor(Color.WHITE);
+        g.setFont(WINNER_FONT);
+        FontMetrics winFm = g.getFontMetrics();
+        for (int row = 0; row < WINNERS.length; row++) {
+            g.drawString(WINNERS[row],
+                    width / 2 - winFm.stringWidth(WINNERS[row]) / 2,
+                    row * WINNER_ROW_HEIGHT + WINNER_BASELINE);
+        }
+    }
+
+    private void paintPaused(Graphics2D g) {
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setColor(OVERLAY);
+        g.fillRect(0, 0, width, height);
+
+        g.setColor(Color.WHITE);
+        g.setFont(WINNER_FONT);
+        String pausedMsg = "Paused";
+        FontMetrics pausedFm = g.getFontMetrics();
+        g.drawString(pausedMsg,
+                width / 2 - pausedFm.stringWidth(pausedMsg) / 2,
+                height / 2 - 50);
+
+        g.setFont(RESTART_FONT);
+        String resumeMsg = "Press P to resume";
+        FontMetrics resumeFm = g.getFontMetrics();
+        g.drawString(resumeMsg,
+                width / 2 - resumeFm.stringWidth(resumeMsg) / 2,
+                height / 2 + 30);
+    }
+
+    /**
+     * Paints every layer once into a small scratch image, together with the anti-aliased ball.
+     * Text outside the image is still laid out and rasterized, so this loads the fonts, fills
+     * the shared glyph caches and sets up the anti-aliasing rasterizer for the real first frame,
+     * and can run on another thread while the window is being created.
+     * @param width Width of the playing field
+     * @param height Height of the playing field
+     */
+    public static void warmUp(int width, int height) {
+        PongRenderer renderer = new PongRenderer(width, height, Color.BLACK, 1);
+        BufferedImage scratch = new BufferedImage(SCORE_BOX_WIDTH, SCORE_BOX_HEIGHT, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = scratch.createGraphics();
+        renderer.paintStatic(g);
+        renderer.paintGameOver(g);
+        renderer.paintWinners(g);
+        renderer.paintPaused(g);
+        renderer.paintScores(g);
+        g.fillOval(0, 0, PongSimulation.BALL_SIZE, PongSimulation.BALL_SIZE);
+        g.dispose();
+    }
+
+    /**
+     * Forces the next frames to repaint the whole field, e.g. after the back buffers were lost.
+     */
+    public void invalidate() {
+        fullRepaints = history + 1;
+    }
+
+    /**
+     * Enables or disables dirty-region mode. The caller must not clear the back buffer between
+     * frames while it is enabled.
+     * @param option True to repaint only the regions touched by moving objects
+     */
+    public void setDirtyRegions(boolean option) {
+        this.dirtyRegions = option;
+        invalidate();
+    }
+
+    /**
+     * Draws the ball and paddles with images from an asset cache. Until an image has loaded the
+     * plain shape is drawn instead, so preloading in the background never stalls a frame.
+     * @param assets Cache holding the images
+     * @param ball Resource name of the ball image, or null for the plain circle
+     * @param paddle Resource name of the paddle image, or null for plain rectangles
+     */
+    public void setTheme(AssetCache assets, String ball, String paddle) {
+        this.assets = assets;
+        this.ballSprite = ball;
+        this.paddleSprite = paddle;
+    }
+
+    /**
+     * Shows or hides the pause overlay. It is not drawn over the game over screen.
+     * @param option True while the match is paused
+     */
+    public void setPaused(boolean option) {
+        if (option != paused) {
+            paused = option;
+            invalidate();
+        }
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public boolean isDirtyRegions() {
+        return dirtyRegions;
+    }
+
+    /**
+     * @return Y the left paddle was drawn at in the last frame, interpolated or not
+     */
+    public int getLeftPaddleDrawnY() {
+        return leftRects[Math.floorMod(frame - 1, history + 1)].y;
+    }
+}
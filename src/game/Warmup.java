@@ -0,0 +1,59 @@
+package game;
+
+import telemetry.StartupTimer;
+
+import java.awt.GraphicsEnvironment;
+import java.awt.Toolkit;
+import java.util.concurrent.CompletableFuture;
+import javax.swing.UIManager;
+
+/**
+ * Startup work run on background threads while the main thread builds the game and its window.
+ * <p>
+ * Each task does something the first frame would otherwise do itself: connecting to the display,
+ * setting up the look and feel, loading fonts. Nothing waits for the tasks. The caches and class
+ * initialization they go through are shared and thread-safe, so if the game reaches a piece of
+ * work a task is still busy with, it waits for that part instead of doing it twice, and is never
+ * slower than without the warm-up.
+ */
+public final class Warmup {
+    private Warmup() {
+    }
+
+    /**
+     * Runs a task on its own daemon thread, marking its start and end as startup milestones.
+     * A failing task is reported and otherwise ignored, as the game will do the work again.
+     * @param name Name of the task in the startup report
+     * @param task Work to do
+     * @return Completes when the task has finished or failed
+     */
+    public static CompletableFuture<Void> start(String name, Runnable task) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            StartupTimer.mark(name + " warm-up");
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                System.out.println("Error warming up " + name + " -> " + e.getMessage());
+            }
+            StartupTimer.mark(name + " warmed up");
+            done.complete(null);
+        }, "Warm-up: " + name);
+        thread.setDaemon(true);
+        thread.start();
+        return done;
+    }
+
+    /**
+     * Connects to the display, looks up the default screen and loads the look and feel that
+     * GDV5.start() needs for its window. Does nothing headless.
+     */
+    public static void toolkit() {
+        if (GraphicsEnvironment.isHeadless()) {
+            return;
+        }
+        GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+        Toolkit.getDefaultToolkit();
+        UIManager.getLookAndFeelDefaults();
+    }
+}
@@ -0,0 +1,103 @@
+package net;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Simulates a bad network on the sending side of a datagram channel.
+ * <p>
+ * Each outgoing packet is dropped with the configured probability, otherwise it is held back for
+ * the configured latency plus random jitter and sent by a later {@link #flush} call. With no
+ * latency and no loss, packets are sent immediately. Used to test netplay over loopback.
+ */
+public class LinkConditioner {
+    private final long latencyNanos;
+    private final long jitterNanos;
+    private final double lossRate;
+    private final Random random;
+    private final PriorityQueue<Delayed> pending = new PriorityQueue<>();
+    private long sequence = 0;
+    private long dropped = 0;
+
+    /**
+     * A packet waiting for its send time.
+     */
+    private static final class Delayed implements Comparable<Delayed> {
+        final long due;
+        final long order;
+        final byte[] data;
+        final SocketAddress target;
+
+        Delayed(long due, long order, byte[] data, SocketAddress target) {
+            this.due = due;
+            this.order = order;
+            this.data = data;
+            this.target = target;
+        }
+
+        @Override
+        public int compareTo(Delayed o) {
+            int c = Long.compare(due, o.due);
+            return c != 0 ? c : Long.compare(order, o.order);
+        }
+    }
+
+    /**
+     * A conditioner that sends everything immediately.
+     */
+    public LinkConditioner() {
+        this(0, 0, 0, 0);
+    }
+
+    /**
+     * @param latencyMillis One-way delay added to every packet
+     * @param jitterMillis Maximum extra random delay per packet
+     * @param lossRate Probability of dropping a packet, from 0 to 1
+     * @param seed Seed for the loss and jitter decisions
+     */
+    public LinkConditioner(int latencyMillis, int jitterMillis, double lossRate, long seed) {
+        this.latencyNanos = latencyMillis * 1_000_000L;
+        this.jitterNanos = jitterMillis * 1_000_000L;
+        this.lossRate = lossRate;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Sends the packet now, later, or never, depending on the configuration.
+     * @param packet Bytes between position and limit are sent
+     */
+    public void send(DatagramChannel channel, ByteBuffer packet, SocketAddress target) throws IOException {
+        if (lossRate > 0 && random.nextDouble() < lossRate) {
+            dropped++;
+            return;
+        }
+        if (latencyNanos == 0 && jitterNanos == 0) {
+            channel.send(packet, target);
+            return;
+        }
+        long delay = latencyNanos + (jitterNanos > 0 ? (long) (random.nextDouble() * jitterNanos) : 0);
+        byte[] data = new byte[packet.remaining()];
+        packet.get(data);
+        pending.add(new Delayed(System.nanoTime() + delay, sequence++, data, target));
+    }
+
+    /**
+     * Sends every held-back packet whose delay has passed.
+     */
+    public void flush(DatagramChannel channel) throws IOException {
+        long now = System.nanoTime();
+        while (!pending.isEmpty() && pending.peek().due - now <= 0) {
+            Delayed d = pending.poll();
+            channel.send(ByteBuffer.wrap(d.data), d.target);
+        }
+    }
+
+    /** @return Number of packets dropped on purpose */
+    public long getDropped() {
+        return dropped;
+    }
+}
@@ -0,0 +1,105 @@
+package net;
+
+import sim.PongSimulation;
+import sim.Rng;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Plays a scripted netplay match between two rollback sessions over loopback.
+ * <p>
+ * Both sessions run at 60 ticks per second on one thread, with artificial latency, jitter and
+ * loss on each link. Once both reach the last tick and have confirmed all remote inputs, their
+ * states must be identical to each other and to an offline simulation fed the same inputs.
+ * <p>
+ * Usage: {@code java -Djava.awt.headless=true -cp out net.LoopbackNetCheck [latencyMs jitterMs lossRate ticks]}
+ * Exits with status 1 if the states differ.
+ */
+public class LoopbackNetCheck {
+    private static final long SEED = 42;
+    private static final long TICK_NANOS = 1_000_000_000L / 60;
+
+    public static void main(String[] args) throws IOException {
+        int latency = args.length > 0 ? Integer.parseInt(args[0]) : 60;
+        int jitter = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        double loss = args.length > 2 ? Double.parseDouble(args[2]) : 0.05;
+        int ticks = args.length > 3 ? Integer.parseInt(args[3]) : 1800;
+
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        DatagramChannel leftChannel = RollbackSession.openChannel(new InetSocketAddress(loopback, 0));
+        DatagramChannel rightChannel = RollbackSession.openChannel(new InetSocketAddress(loopback, 0));
+        RollbackSession left = new RollbackSession(new PongSimulation(PongSimulation.DEFAULT_WIDTH,
+                PongSimulation.DEFAULT_HEIGHT, SEED, false), true, leftChannel,
+                rightChannel.getLocalAddress(), new LinkConditioner(latency, jitter, loss, 1));
+        RollbackSession right = new RollbackSession(new PongSimulation(PongSimulation.DEFAULT_WIDTH,
+                PongSimulation.DEFAULT_HEIGHT, SEED, false), false, rightChannel,
+                leftChannel.getLocalAddress(), new LinkConditioner(latency, jitter, loss, 2));
+
+        System.out.printf("Latency %d ms + up to %d ms jitter each way, %.0f%% loss, %d ticks%n",
+                latency, jitter, loss * 100, ticks);
+        long start = System.nanoTime();
+        long deadline = start;
+        while (left.getCurrentTick() < ticks || right.getCurrentTick() < ticks
+                || left.getConfirmedTicks() < ticks || right.getConfirmedTicks() < ticks) {
+            step(left, ticks, 0);
+            step(right, ticks, 1);
+            deadline += TICK_NANOS;
+            long wait = deadline - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        PongSimulation reference = new PongSimulation(PongSimulation.DEFAULT_WIDTH,
+                PongSimulation.DEFAULT_HEIGHT, SEED, false);
+        for (int t = 0; t < ticks; t++) {
+            reference.step(RollbackSession.toSimInputs(script(0, t), script(1, t)));
+        }
+
+        report("Left", left, seconds);
+        report("Right", right, seconds);
+        long expected = reference.stateHash();
+        System.out.printf("Reference hash %016x, score %d-%d%n", expected,
+                reference.getLeftScore(), reference.getRightScore());
+        leftChannel.close();
+        rightChannel.close();
+        if (left.getSimulation().stateHash() != expected || right.getSimulation().stateHash() != expected) {
+            System.out.println("Netplay states diverged");
+            System.exit(1);
+        }
+        System.out.println("Both peers match the reference");
+    }
+
+    private static void step(RollbackSession session, int ticks, int player) throws IOException {
+        if (session.getCurrentTick() < ticks) {
+            session.advance(script(player, session.getCurrentTick()));
+        } else {
+            session.poll();
+        }
+    }
+
+    /**
+     * Scripted input for a player: a new random direction every 15 ticks, and now and then a
+     * restart press.
+     */
+    private static int script(int player, long tick) {
+        long r = Rng.mix(SEED + player * Rng.GOLDEN_GAMMA + (tick / 15) * 0x632BE59BD9B4E019L);
+        int input = (int) (r & 3);
+        if (tick % 15 == 0 && ((r >>> 8) & 63) == 0) {
+            input |= RollbackSession.RESTART;
+        }
+        return input;
+    }
+
+    private static void report(String name, RollbackSession session, double seconds) {
+        PongSimulation sim = session.getSimulation();
+        System.out.printf("%s: %d ticks in %.1f s, %d rollbacks (%d ticks re-simulated), %d stalls, "
+                        + "hash %016x%n", name, session.getCurrentTick(), seconds, session.getRollbacks(),
+                session.getResimulatedTicks(), session.getStalls(), sim.stateHash());
+    }
+}
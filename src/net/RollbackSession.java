@@ -0,0 +1,267 @@
+package net;
+
+import sim.PongSimulation;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Two-player netplay with rollback.
+ * <p>
+ * Both peers run the same seeded simulation and only exchange per-tick inputs over UDP. The
+ * local player's input is applied immediately; the remote player's input for ticks that have
+ * not arrived yet is predicted by repeating the last one received. When a remote input arrives
+ * that differs from what was predicted, the simulation is restored to the snapshot taken before
+ * that tick and re-simulated up to the present with the corrected inputs.
+ * <p>
+ * Every packet repeats all inputs the peer has not acknowledged yet, so lost packets are covered
+ * by the next one. If the peer falls more than MAX_PREDICTION ticks behind, the session stalls
+ * instead of predicting further.
+ */
+public class RollbackSession {
+    // Per-player input bits
+    public static final int UP = 1;
+    public static final int DOWN = 1 << 1;
+    public static final int RESTART = 1 << 2;
+
+    // Ticks of input and snapshot history kept; must exceed twice MAX_PREDICTION
+    private static final int WINDOW = 128;
+    private static final int MASK = WINDOW - 1;
+    // Furthest the local simulation may run ahead of the last confirmed remote input
+    public static final int MAX_PREDICTION = 60;
+    // Most inputs carried by one packet
+    private static final int MAX_INPUTS_PER_PACKET = 64;
+
+    private static final byte PACKET_INPUT = 1;
+
+    private final PongSimulation sim;
+    private final boolean localIsLeft;
+    private final DatagramChannel channel;
+    private final SocketAddress remote;
+    private final LinkConditioner link;
+
+    private final byte[] localInputs = new byte[WINDOW];
+    private final byte[] remoteInputs = new byte[WINDOW];
+    private final long[] remoteTicks = new long[WINDOW]; // tick stored in each remoteInputs slot
+    private final byte[] usedRemote = new byte[WINDOW]; // remote input the simulation used per tick
+    private final ByteBuffer[] snapshots = new ByteBuffer[WINDOW]; // state before each tick
+
+    private long currentTick = 0; // ticks simulated so far
+    private long remoteConfirmed = 0; // all remote inputs below this tick have arrived
+    private long remoteAcked = 0; // the peer has all of our inputs below this tick
+    private long earliestMismatch = Long.MAX_VALUE;
+
+    private final ByteBuffer sendBuffer = ByteBuffer.allocate(16 + MAX_INPUTS_PER_PACKET);
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocate(512);
+
+    // Statistics
+    private long rollbacks = 0;
+    private long resimulatedTicks = 0;
+    private long stalls = 0;
+
+    /**
+     * @param sim Simulation to drive; both peers must start from the same seed and state
+     * @param localIsLeft True if the local player controls the left paddle
+     * @param channel Non-blocking channel bound to the local port
+     * @param remote Address of the peer
+     * @param link Conditioner for outgoing packets, to simulate latency and loss
+     */
+    public RollbackSession(PongSimulation sim, boolean localIsLeft, DatagramChannel channel,
+                           SocketAddress remote, LinkConditioner link) {
+        this.sim = sim;
+        this.localIsLeft = localIsLeft;
+        this.channel = channel;
+        this.remote = remote;
+        this.link = link;
+        for (int i = 0; i < WINDOW; i++) {
+            snapshots[i] = ByteBuffer.allocate(PongSimulation.STATE_BYTES);
+            remoteTicks[i] = -1;
+        }
+    }
+
+    /**
+     * Opens a non-blocking channel on the local port for a session.
+     */
+    public static DatagramChannel openChannel(SocketAddress local) throws IOException {
+        DatagramChannel channel = DatagramChannel.open();
+        channel.bind(local);
+        channel.configureBlocking(false);
+        return channel;
+    }
+
+    /**
+     * Advances the match by one tick with the local player's input, after applying any remote
+     * inputs that arrived since the last call.
+     * @param localInput Bitmask of UP, DOWN and RESTART
+     * @return False if the session stalled waiting for the peer and did not advance
+     */
+    public boolean advance(int localInput) throws IOException {
+        receive();
+        if (currentTick - remoteConfirmed >= MAX_PREDICTION) {
+            stalls++;
+            send();
+            return false;
+        }
+        int slot = (int) (currentTick & MASK);
+        localInputs[slot] = (byte) localInput;
+        simulateTick(currentTick);
+        currentTick++;
+        send();
+        return true;
+    }
+
+    /**
+     * Exchanges packets and applies late inputs without advancing. Useful while waiting for the
+     * peer, e.g. at the end of a test run.
+     */
+    public void poll() throws IOException {
+        receive();
+        send();
+    }
+
+    /**
+     * Snapshots the state before the tick, then steps it with the local input and the actual or
+     * predicted remote input.
+     */
+    private void simulateTick(long tick) {
+        int slot = (int) (tick & MASK);
+        ByteBuffer snapshot = snapshots[slot];
+        snapshot.clear();
+        sim.writeState(snapshot);
+        byte remoteInput = remoteInputFor(tick);
+        usedRemote[slot] = remoteInput;
+        int local = localInputs[slot];
+        sim.step(localIsLeft ? toSimInputs(local, remoteInput) : toSimInputs(remoteInput, local));
+    }
+
+    /**
+     * @return The remote input for the tick if it arrived, otherwise the last one that did
+     */
+    private byte remoteInputFor(long tick) {
+        if (tick < remoteConfirmed) {
+            return remoteInputs[(int) (tick & MASK)];
+        }
+        if (remoteConfirmed == 0) {
+            return 0;
+        }
+        // never repeat RESTART: it would restart the match again on every predicted tick
+        return (byte) (remoteInputs[(int) ((remoteConfirmed - 1) & MASK)] & ~RESTART);
+    }
+
+    /**
+     * Restores the snapshot before the mismatched tick and re-simulates up to the present.
+     */
+    private void rollback(long from) {
+        rollbacks++;
+        ByteBuffer snapshot = snapshots[(int) (from & MASK)];
+        snapshot.flip();
+        sim.readState(snapshot);
+        for (long t = from; t < currentTick; t++) {
+            simulateTick(t);
+            resimulatedTicks++;
+        }
+    }
+
+    /**
+     * Reads every waiting packet, then rolls back once to the earliest misprediction.
+     */
+    private void receive() throws IOException {
+        link.flush(channel);
+        while (true) {
+            receiveBuffer.clear();
+            SocketAddress from = channel.receive(receiveBuffer);
+            if (from == null) {
+                break;
+            }
+            receiveBuffer.flip();
+            if (from.equals(remote)) {
+                readPacket(receiveBuffer);
+            }
+        }
+        if (earliestMismatch < currentTick) {
+            rollback(earliestMismatch);
+        }
+        earliestMismatch = Long.MAX_VALUE;
+    }
+
+    private void readPacket(ByteBuffer packet) {
+        if (packet.remaining() < 10 || packet.get() != PACKET_INPUT) {
+            return;
+        }
+        long ack = packet.getInt() & 0xFFFFFFFFL;
+        long first = packet.getInt() & 0xFFFFFFFFL;
+        int count = packet.get() & 0xFF;
+        if (packet.remaining() < count) {
+            return;
+        }
+        remoteAcked = Math.max(remoteAcked, ack);
+        for (int i = 0; i < count; i++) {
+            long tick = first + i;
+            byte input = packet.get();
+            if (tick < remoteConfirmed || tick >= remoteConfirmed + WINDOW / 2) {
+                continue; // already have it, or too far ahead to store safely
+            }
+            int slot = (int) (tick & MASK);
+            remoteInputs[slot] = input;
+            remoteTicks[slot] = tick;
+        }
+        // confirm every contiguous input from the front, noting mispredictions
+        while (remoteTicks[(int) (remoteConfirmed & MASK)] == remoteConfirmed) {
+            int slot = (int) (remoteConfirmed & MASK);
+            if (remoteConfirmed < currentTick && usedRemote[slot] != remoteInputs[slot]) {
+                earliestMismatch = Math.min(earliestMismatch, remoteConfirmed);
+            }
+            remoteConfirmed++;
+        }
+    }
+
+    /**
+     * Sends every local input the peer has not acknowledged, up to one packet's worth.
+     */
+    private void send() throws IOException {
+        long first = Math.max(remoteAcked, currentTick - MAX_INPUTS_PER_PACKET);
+        int count = (int) Math.min(MAX_INPUTS_PER_PACKET, currentTick - first);
+        sendBuffer.clear();
+        sendBuffer.put(PACKET_INPUT);
+        sendBuffer.putInt((int) remoteConfirmed);
+        sendBuffer.putInt((int) first);
+        sendBuffer.put((byte) count);
+        for (int i = 0; i < count; i++) {
+            sendBuffer.put(localInputs[(int) ((first + i) & MASK)]);
+        }
+        sendBuffer.flip();
+        link.send(channel, sendBuffer, remote);
+    }
+
+    /**
+     * Combines the two players' inputs into a PongSimulation input bitmask.
+     */
+    public static int toSimInputs(int left, int right) {
+        int inputs = 0;
+        if ((left & UP) != 0) inputs |= PongSimulation.LEFT_UP;
+        if ((left & DOWN) != 0) inputs |= PongSimulation.LEFT_DOWN;
+        if ((right & UP) != 0) inputs |= PongSimulation.RIGHT_UP;
+        if ((right & DOWN) != 0) inputs |= PongSimulation.RIGHT_DOWN;
+        if (((left | right) & RESTART) != 0) inputs |= PongSimulation.RESTART;
+        return inputs;
+    }
+
+    /** @return The simulation being driven */
+    public PongSimulation getSimulation() { return sim; }
+    /** @return True if the local player controls the left paddle */
+    public boolean isLocalLeft() { return localIsLeft; }
+    /** @return Ticks simulated so far */
+    public long getCurrentTick() { return currentTick; }
+    /** @return Number of ticks for which the remote input has arrived */
+    public long getConfirmedTicks() { return remoteConfirmed; }
+    /** @return Number of local inputs the peer has acknowledged */
+    public long getAckedTicks() { return remoteAcked; }
+    /** @return Number of rollbacks performed */
+    public long getRollbacks() { return rollbacks; }
+    /** @return Number of ticks simulated again during rollbacks */
+    public long getResimulatedTicks() { return resimulatedTicks; }
+    /** @return Number of advance calls that stalled waiting for the peer */
+    public long getStalls() { return stalls; }
+}
@@ -0,0 +1,96 @@
+package net;
+
+import sim.PongSimulation;
+
+import java.util.Arrays;
+
+/**
+ * Match state as seen by spectators: ball position and velocity, paddle positions, scores and
+ * the game over flags, each quantized to an integer.
+ * <p>
+ * Positions are kept in eighths of a pixel and velocities in 1/256 pixel per tick, which is
+ * finer than anything a viewer can see but lets consecutive snapshots be sent as small integer
+ * differences.
+ */
+public final class Snapshot {
+    // Quantized fields
+    static final int BALL_X = 0;
+    static final int BALL_Y = 1;
+    static final int BALL_VX = 2;
+    static final int BALL_VY = 3;
+    static final int LEFT_PADDLE = 4;
+    static final int RIGHT_PADDLE = 5;
+    static final int LEFT_SCORE = 6;
+    static final int RIGHT_SCORE = 7;
+    static final int FLAGS = 8;
+    static final int FIELDS = 9;
+
+    static final int POSITION_SCALE = 8;
+    static final int VELOCITY_SCALE = 256;
+
+    // FLAGS bits
+    static final int GAME_OVER = 1;
+    static final int LEFT_WON = 1 << 1;
+
+    final int[] fields = new int[FIELDS];
+    int id = -1;
+
+    /**
+     * Quantizes the current state of a match into this snapshot.
+     */
+    public void capture(PongSimulation sim) {
+        fields[BALL_X] = (int) Math.round(sim.getBall().getExactX() * POSITION_SCALE);
+        fields[BALL_Y] = (int) Math.round(sim.getBall().getExactY() * POSITION_SCALE);
+        fields[BALL_VX] = (int) Math.round(sim.getBall().getVelocityX() * VELOCITY_SCALE);
+        fields[BALL_VY] = (int) Math.round(sim.getBall().getVelocityY() * VELOCITY_SCALE);
+        fields[LEFT_PADDLE] = sim.getLeftPaddle().getY();
+        fields[RIGHT_PADDLE] = sim.getRightPaddle().getY();
+        fields[LEFT_SCORE] = sim.getLeftScore();
+        fields[RIGHT_SCORE] = sim.getRightScore();
+        int flags = 0;
+        if (sim.isGameOver()) {
+            flags |= GAME_OVER;
+            if (sim.getLeftScore() > sim.getRightScore()) {
+                flags |= LEFT_WON;
+            }
+        }
+        fields[FLAGS] = flags;
+    }
+
+    /**
+     * Copies another snapshot, including its id.
+     */
+    public void copyFrom(Snapshot other) {
+        System.arraycopy(other.fields, 0, fields, 0, FIELDS);
+        id = other.id;
+    }
+
+    /**
+     * @return True if both snapshots hold the same state, regardless of their ids
+     */
+    public boolean sameState(Snapshot other) {
+        return Arrays.equals(fields, other.fields);
+    }
+
+    /** @return Sequence number given by the server, or -1 before the first one arrived */
+    public int getId() { return id; }
+    public double getBallX() { return fields[BALL_X] / (double) POSITION_SCALE; }
+    public double getBallY() { return fields[BALL_Y] / (double) POSITION_SCALE; }
+    public double getVelocityX() { return fields[BALL_VX] / (double) VELOCITY_SCALE; }
+    public double getVelocityY() { return fields[BALL_VY] / (double) VELOCITY_SCALE; }
+    public int getLeftPaddleY() { return fields[LEFT_PADDLE]; }
+    public int getRightPaddleY() { return fields[RIGHT_PADDLE]; }
+    public int getLeftScore() { return fields[LEFT_SCORE]; }
+    public int getRightScore() { return fields[RIGHT_SCORE]; }
+    public boolean isGameOver() { return (fields[FLAGS] & GAME_OVER) != 0; }
+
+    /**
+     * @return The winner message as PongSimulation shows it, or an empty string while playing
+     */
+    public String getWinner() {
+        if (!isGameOver()) {
+            return "";
+        }
+        return (fields[FLAGS] & LEFT_WON) != 0 ? PongSimulation.LEFT_WINS : PongSimulation.RIGHT_WINS;
+    }
+}
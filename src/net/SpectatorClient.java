@@ -0,0 +1,138 @@
+package net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Viewer side of a SpectatorServer.
+ * <p>
+ * Keeps the last HISTORY snapshots so any delta the server sends can be applied to the baseline
+ * it names, and acknowledges the newest snapshot after each batch of packets. Acks double as
+ * keep-alives, so a viewer should call {@link #poll()} at least once every few seconds.
+ */
+public class SpectatorClient {
+    private final DatagramChannel channel;
+    private final Snapshot[] history = new Snapshot[SpectatorProtocol.HISTORY];
+    private final Snapshot latest = new Snapshot();
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocate(SpectatorProtocol.MAX_SNAPSHOT_BYTES + 16);
+    private final ByteBuffer sendBuffer = ByteBuffer.allocate(SpectatorProtocol.ACK_BYTES);
+
+    // Statistics
+    private long packets = 0;
+    private long bytes = 0;
+    private long missingBaselines = 0;
+
+    /**
+     * @param channel Non-blocking channel connected to the server
+     */
+    public SpectatorClient(DatagramChannel channel) {
+        this.channel = channel;
+        for (int i = 0; i < SpectatorProtocol.HISTORY; i++) {
+            history[i] = new Snapshot();
+        }
+    }
+
+    /**
+     * Opens a non-blocking channel on an ephemeral port, connected to the server.
+     */
+    public static DatagramChannel openChannel(SocketAddress server) throws IOException {
+        DatagramChannel channel = DatagramChannel.open();
+        channel.bind(new InetSocketAddress(0));
+        channel.connect(server);
+        channel.configureBlocking(false);
+        return channel;
+    }
+
+    /**
+     * Joins the server, or repeats the ack of the newest snapshot to stay joined.
+     */
+    public void join() throws IOException {
+        sendAck();
+    }
+
+    /**
+     * Leaves the server.
+     */
+    public void leave() throws IOException {
+        sendBuffer.clear();
+        sendBuffer.put(SpectatorProtocol.PACKET_BYE);
+        sendBuffer.flip();
+        channel.write(sendBuffer);
+    }
+
+    /**
+     * Reads every waiting snapshot and acknowledges the newest one.
+     * @return True if a newer snapshot arrived
+     */
+    public boolean poll() throws IOException {
+        int before = latest.id;
+        while (true) {
+            receiveBuffer.clear();
+            int read;
+            try {
+                read = channel.read(receiveBuffer);
+            } catch (IOException e) {
+                return false; // e.g. port unreachable until the server is up
+            }
+            if (read <= 0) {
+                break;
+            }
+            receiveBuffer.flip();
+            packets++;
+            bytes += read;
+            readPacket(receiveBuffer);
+        }
+        if (latest.id != before) {
+            sendAck();
+            return true;
+        }
+        return false;
+    }
+
+    private void readPacket(ByteBuffer packet) {
+        if (packet.remaining() < 8 || packet.get() != SpectatorProtocol.PACKET_SNAPSHOT) {
+            return;
+        }
+        int id = packet.getInt();
+        int distance = packet.get() & 0xFF;
+        if (id <= latest.id) {
+            return; // late or duplicated
+        }
+        Snapshot base = null;
+        if (distance > 0) {
+            base = history[(id - distance) & SpectatorProtocol.HISTORY_MASK];
+            if (base.id != id - distance) {
+                missingBaselines++;
+                return;
+            }
+        }
+        Snapshot target = history[id & SpectatorProtocol.HISTORY_MASK];
+        if (!SpectatorProtocol.readFields(packet, target, base)) {
+            target.id = -1;
+            return;
+        }
+        target.id = id;
+        latest.copyFrom(target);
+    }
+
+    private void sendAck() throws IOException {
+        sendBuffer.clear();
+        SpectatorProtocol.writeAck(sendBuffer, latest.id);
+        sendBuffer.flip();
+        channel.write(sendBuffer);
+    }
+
+    /** @return The newest snapshot received; its id is -1 until the first one arrives */
+    public Snapshot getSnapshot() { return latest; }
+    /** @return Snapshot packets received */
+    public long getPackets() { return packets; }
+    /** @return Bytes of snapshot packets received */
+    public long getBytes() { return bytes; }
+    /** @return Deltas dropped because their baseline was no longer kept */
+    public long getMissingBaselines() { return missingBaselines; }
+    /** @return The channel, e.g. to register it with a selector */
+    public DatagramChannel getChannel() { return channel; }
+}
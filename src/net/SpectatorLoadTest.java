@@ -0,0 +1,144 @@
+package net;
+
+import sim.PaddleAI;
+import sim.PongSimulation;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Streams a computer-played match to many spectators over loopback.
+ * <p>
+ * The match runs at 60 ticks per second on its own thread and publishes every tick to a
+ * SpectatorServer. All viewers share one selector on the main thread. Every snapshot a viewer
+ * decodes is compared with the state the game thread published under that id, and the report
+ * shows packet sizes, how far behind the viewers are, how long publish() took on the game
+ * thread and how often the game thread missed a tick deadline.
+ * <p>
+ * Usage: {@code java -Djava.awt.headless=true -cp out net.SpectatorLoadTest [viewers seconds]}
+ * Exits with status 1 if a viewer decoded a wrong state.
+ */
+public class SpectatorLoadTest {
+    private static final long TICK_NANOS = 1_000_000_000L / 60;
+
+    private static volatile int lateTicks = 0;
+
+    public static void main(String[] args) throws Exception {
+        int viewerCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int ticks = seconds * 60;
+
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        DatagramChannel serverChannel = RollbackSession.openChannel(new InetSocketAddress(loopback, 0));
+        SpectatorServer server = new SpectatorServer(serverChannel, viewerCount);
+        server.start();
+
+        Selector selector = Selector.open();
+        SpectatorClient[] viewers = new SpectatorClient[viewerCount];
+        for (int i = 0; i < viewerCount; i++) {
+            viewers[i] = new SpectatorClient(SpectatorClient.openChannel(server.getLocalAddress()));
+            viewers[i].getChannel().register(selector, SelectionKey.OP_READ, viewers[i]);
+            viewers[i].join();
+        }
+        long joinDeadline = System.nanoTime() + 2_000_000_000L;
+        while (server.getViewerCount() < viewerCount && System.nanoTime() < joinDeadline) {
+            Thread.sleep(10);
+        }
+        System.out.printf("%d of %d viewers joined, %d ticks%n", server.getViewerCount(), viewerCount, ticks);
+
+        // What the game thread published under each id, to check every decoded snapshot against
+        AtomicReferenceArray<Snapshot> truth = new AtomicReferenceArray<>(ticks);
+        Thread game = new Thread(() -> play(server, truth, ticks), "Game");
+        game.start();
+
+        long mismatches = 0;
+        long decoded = 0;
+        while (game.isAlive()) {
+            selector.select(100);
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SpectatorClient viewer = (SpectatorClient) keys.next().attachment();
+                keys.remove();
+                if (viewer.poll()) {
+                    decoded++;
+                    Snapshot got = viewer.getSnapshot();
+                    Snapshot expected = truth.get(got.getId());
+                    if (expected == null || !expected.sameState(got)) {
+                        mismatches++;
+                    }
+                }
+            }
+        }
+        // let the last broadcast arrive
+        long drainDeadline = System.nanoTime() + 200_000_000L;
+        while (System.nanoTime() < drainDeadline) {
+            selector.select(20);
+            for (SelectionKey key : selector.selectedKeys()) {
+                ((SpectatorClient) key.attachment()).poll();
+            }
+            selector.selectedKeys().clear();
+        }
+
+        long packets = 0;
+        long bytes = 0;
+        long missing = 0;
+        long lagSum = 0;
+        int newest = server.getPublishedCount() - 1;
+        for (SpectatorClient viewer : viewers) {
+            packets += viewer.getPackets();
+            bytes += viewer.getBytes();
+            missing += viewer.getMissingBaselines();
+            lagSum += newest - viewer.getSnapshot().getId();
+            viewer.leave();
+            viewer.getChannel().close();
+        }
+        server.close();
+
+        System.out.printf("Server: %d packets sent (%.1f/s), %.1f bytes/packet, %d full snapshots, %d sends dropped%n",
+                server.getPacketsSent(), server.getPacketsSent() / (double) seconds,
+                server.getBytesSent() / (double) Math.max(1, server.getPacketsSent()),
+                server.getFullSnapshots(), server.getSendsDropped());
+        System.out.printf("Viewers: %.1f snapshots each of %d published, %d missing baselines, "
+                        + "%.1f snapshots behind at the end%n", packets / (double) viewerCount,
+                server.getPublishedCount(), missing, lagSum / (double) viewerCount);
+        System.out.printf("Game thread: publish() mean %.2f us, max %.1f us, %d ticks more than a tick late%n",
+                server.getPublishNanos() / 1e3 / Math.max(1, server.getPublishedCount()),
+                server.getMaxPublishNanos() / 1e3, lateTicks);
+        System.out.printf("%d snapshots decoded, %d wrong, %.1f bytes/packet received%n",
+                decoded, mismatches, bytes / (double) Math.max(1, packets));
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Plays a match between two computer players at 60 ticks per second, publishing each tick.
+     */
+    private static void play(SpectatorServer server, AtomicReferenceArray<Snapshot> truth, int ticks) {
+        PongSimulation sim = new PongSimulation(PongSimulation.DEFAULT_WIDTH, PongSimulation.DEFAULT_HEIGHT, 42, false);
+        PaddleAI left = new PaddleAI(true, PaddleAI.Difficulty.HARD, 1);
+        PaddleAI right = new PaddleAI(false, PaddleAI.Difficulty.NORMAL, 2);
+        long deadline = System.nanoTime();
+        for (int t = 0; t < ticks; t++) {
+            sim.step(sim.isGameOver() ? PongSimulation.RESTART : left.inputs(sim) | right.inputs(sim));
+            Snapshot snapshot = new Snapshot();
+            snapshot.capture(sim);
+            snapshot.id = server.getPublishedCount();
+            truth.set(snapshot.id, snapshot);
+            server.publish(sim);
+            deadline += TICK_NANOS;
+            long wait = deadline - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            } else if (wait < -TICK_NANOS) {
+                lateTicks++;
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package net;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Packet layout between a SpectatorServer and its viewers.
+ * <p>
+ * Viewers send PACKET_ACK with the id of the newest snapshot they have (-1 to join) and
+ * PACKET_BYE when they leave. The server answers every broadcast with PACKET_SNAPSHOT: the
+ * snapshot id, how many ids back its baseline is (0 for none), a bitmask of the fields that
+ * differ from the baseline, then each of those fields as a zigzag varint of the difference. A
+ * full snapshot is simply a delta against the all-zero state. All values are big-endian.
+ */
+final class SpectatorProtocol {
+    static final byte PACKET_ACK = 1;
+    static final byte PACKET_SNAPSHOT = 2;
+    static final byte PACKET_BYE = 3;
+
+    static final int ACK_BYTES = 5;
+    // type, id, baseline distance, field mask, then at most five bytes per field
+    static final int MAX_SNAPSHOT_BYTES = 1 + 4 + 1 + 2 + 5 * Snapshot.FIELDS;
+
+    // Snapshots kept for deltas; a viewer whose last ack is older gets a full snapshot
+    static final int HISTORY = 64;
+    static final int HISTORY_MASK = HISTORY - 1;
+
+    private static final int[] ZERO = new int[Snapshot.FIELDS];
+
+    private SpectatorProtocol() {
+    }
+
+    static void writeAck(ByteBuffer out, int id) {
+        out.put(PACKET_ACK);
+        out.putInt(id);
+    }
+
+    /**
+     * Writes a snapshot as a delta against a baseline.
+     * @param base Baseline the viewer has acknowledged, or null for a full snapshot
+     */
+    static void writeSnapshot(ByteBuffer out, Snapshot current, Snapshot base) {
+        int[] from = base == null ? ZERO : base.fields;
+        out.put(PACKET_SNAPSHOT);
+        out.putInt(current.id);
+        out.put((byte) (base == null ? 0 : current.id - base.id));
+        int maskAt = out.position();
+        out.putShort((short) 0);
+        int mask = 0;
+        for (int f = 0; f < Snapshot.FIELDS; f++) {
+            int diff = current.fields[f] - from[f];
+            if (diff != 0) {
+                mask |= 1 << f;
+                writeVarint(out, (diff << 1) ^ (diff >> 31));
+            }
+        }
+        out.putShort(maskAt, (short) mask);
+    }
+
+    /**
+     * Reads the fields of a snapshot packet whose header (type, id, distance) was already read.
+     * @param base Baseline named by the packet, or null for a full snapshot
+     * @return False if the packet is truncated
+     */
+    static boolean readFields(ByteBuffer in, Snapshot out, Snapshot base) {
+        if (in.remaining() < 2) {
+            return false;
+        }
+        int[] from = base == null ? ZERO : base.fields;
+        int mask = in.getShort() & 0xFFFF;
+        for (int f = 0; f < Snapshot.FIELDS; f++) {
+            if ((mask & (1 << f)) == 0) {
+                out.fields[f] = from[f];
+                continue;
+            }
+            long varint = readVarint(in);
+            if (varint < 0) {
+                return false;
+            }
+            int zigzag = (int) varint;
+            out.fields[f] = from[f] + ((zigzag >>> 1) ^ -(zigzag & 1));
+        }
+        return true;
+    }
+
+    private static void writeVarint(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    /**
+     * @return The value as an unsigned int, or -1 if the packet ended mid-varint
+     */
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (!in.hasRemaining()) {
+                return -1;
+            }
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value & 0xFFFFFFFFL;
+            }
+        }
+        return value & 0xFFFFFFFFL;
+    }
+}
@@ -0,0 +1,320 @@
+package net;
+
+import sim.PongSimulation;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Broadcasts snapshots of a match to spectators over UDP.
+ * <p>
+ * The game thread only quantizes the match into a preallocated slot and wakes the server; it
+ * never touches a socket or a viewer, so no number of slow viewers can hold it up. One server
+ * thread owns a non-blocking channel and a selector: it reads joins and acks, and sends each new
+ * snapshot to every viewer as a delta against the newest snapshot that viewer acknowledged.
+ * <p>
+ * Viewers that acknowledged the same snapshot get the same bytes, so each broadcast encodes at
+ * most one packet per distinct baseline and then only copies it out, no matter how many viewers
+ * there are. A send that does not fit in the socket buffer is dropped rather than retried; the
+ * viewer keeps acking its older snapshot and the next delta covers the gap. The starting viewer
+ * rotates every broadcast so such drops are spread evenly. Viewers that stay silent for
+ * TIMEOUT_NANOS are forgotten.
+ */
+public class SpectatorServer {
+    private static final long TIMEOUT_NANOS = 5_000_000_000L;
+    private static final long SWEEP_NANOS = 1_000_000_000L;
+    // Slots between the game thread and the server thread
+    private static final int HANDOFF = 8;
+
+    private final DatagramChannel channel;
+    private final Selector selector;
+    private final int maxViewers;
+    private Thread thread;
+    private volatile boolean running = false;
+
+    // Written by the game thread, slot publishedCount % HANDOFF holds the newest snapshot
+    private final Snapshot[] handoff = new Snapshot[HANDOFF];
+    private volatile int publishedCount = 0;
+    private long publishNanos = 0;
+    private long maxPublishNanos = 0;
+
+    // Server thread state
+    private final Snapshot[] history = new Snapshot[SpectatorProtocol.HISTORY];
+    private int newest = -1;
+    private final ByteBuffer[] encoded = new ByteBuffer[SpectatorProtocol.HISTORY];
+    private final int[] encodedFor = new int[SpectatorProtocol.HISTORY]; // snapshot id each packet encodes
+    private final Map<SocketAddress, Viewer> viewers = new HashMap<>();
+    private final List<Viewer> viewerList = new ArrayList<>();
+    private int rotation = 0;
+    private long lastSweep = System.nanoTime();
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocate(64);
+
+    // Statistics
+    private volatile int viewerCount = 0;
+    private volatile long packetsSent = 0;
+    private volatile long bytesSent = 0;
+    private volatile long fullSnapshots = 0;
+    private volatile long sendsDropped = 0;
+
+    /**
+     * A spectator, identified by the address its acks come from.
+     */
+    private static final class Viewer {
+        final SocketAddress address;
+        int acked = -1;
+        long lastHeard;
+        int index; // position in viewerList
+
+        Viewer(SocketAddress address, long now) {
+            this.address = address;
+            this.lastHeard = now;
+        }
+    }
+
+    /**
+     * @param channel Non-blocking channel bound to the port spectators join on
+     * @param maxViewers Most viewers served at once; further joins are ignored
+     */
+    public SpectatorServer(DatagramChannel channel, int maxViewers) throws IOException {
+        this.channel = channel;
+        this.maxViewers = maxViewers;
+        this.selector = Selector.open();
+        channel.register(selector, SelectionKey.OP_READ);
+        for (int i = 0; i < HANDOFF; i++) {
+            handoff[i] = new Snapshot();
+        }
+        for (int i = 0; i < SpectatorProtocol.HISTORY; i++) {
+            history[i] = new Snapshot();
+            encoded[i] = ByteBuffer.allocate(SpectatorProtocol.MAX_SNAPSHOT_BYTES);
+            encodedFor[i] = -1;
+        }
+    }
+
+    /**
+     * Starts the server thread.
+     */
+    public void start() {
+        running = true;
+        thread = new Thread(this::run, "Spectator server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the server thread and closes the channel.
+     */
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        if (thread != null) {
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        selector.close();
+        channel.close();
+    }
+
+    /**
+     * Hands the current state of the match to the server for broadcasting. Called by the game
+     * thread after each update; never blocks and never allocates.
+     */
+    public void publish(PongSimulation sim) {
+        long start = System.nanoTime();
+        int count = publishedCount;
+        Snapshot slot = handoff[count % HANDOFF];
+        slot.capture(sim);
+        slot.id = count;
+        publishedCount = count + 1;
+        long elapsed = System.nanoTime() - start;
+        publishNanos += elapsed;
+        maxPublishNanos = Math.max(maxPublishNanos, elapsed);
+        // on a single core the woken server thread may run before this call returns
+        selector.wakeup();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                selector.select(SWEEP_NANOS / 1_000_000);
+                selector.selectedKeys().clear();
+                receive();
+                takePublished();
+                sweep();
+            } catch (IOException e) {
+                System.out.println("Error serving spectators -> " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reads every waiting join, ack and bye.
+     */
+    private void receive() throws IOException {
+        long now = System.nanoTime();
+        while (true) {
+            receiveBuffer.clear();
+            SocketAddress from = channel.receive(receiveBuffer);
+            if (from == null) {
+                return;
+            }
+            receiveBuffer.flip();
+            if (receiveBuffer.remaining() < 1) {
+                continue;
+            }
+            byte type = receiveBuffer.get();
+            Viewer viewer = viewers.get(from);
+            if (type == SpectatorProtocol.PACKET_BYE) {
+                if (viewer != null) {
+                    remove(viewer);
+                }
+                continue;
+            }
+            if (type != SpectatorProtocol.PACKET_ACK || receiveBuffer.remaining() < 4) {
+                continue;
+            }
+            int ack = receiveBuffer.getInt();
+            if (viewer == null) {
+                if (viewers.size() >= maxViewers) {
+                    continue;
+                }
+                viewer = new Viewer(from, now);
+                viewer.index = viewerList.size();
+                viewers.put(from, viewer);
+                viewerList.add(viewer);
+                viewerCount = viewerList.size();
+                if (newest >= 0) {
+                    send(viewer); // joiners get a full snapshot right away
+                }
+            }
+            viewer.lastHeard = now;
+            // ignore acks for snapshots that were never sent, or older than one already acked
+            if (ack <= newest && ack > viewer.acked) {
+                viewer.acked = ack;
+            }
+        }
+    }
+
+    /**
+     * Moves the newest published snapshot into the history and broadcasts it. Snapshots the
+     * game thread published in between are skipped; deltas are taken against acked snapshots,
+     * so viewers never need them.
+     */
+    private void takePublished() throws IOException {
+        int count = publishedCount;
+        if (count == 0 || count - 1 == newest) {
+            return;
+        }
+        int id = count - 1;
+        Snapshot target = history[id & SpectatorProtocol.HISTORY_MASK];
+        target.copyFrom(handoff[id % HANDOFF]);
+        if (publishedCount - id >= HANDOFF) {
+            return; // the game thread lapped the slot while it was copied
+        }
+        newest = id;
+        broadcast();
+    }
+
+    private void broadcast() throws IOException {
+        int n = viewerList.size();
+        if (n == 0) {
+            return;
+        }
+        rotation = rotation + 1 < n ? rotation + 1 : 0;
+        for (int i = 0; i < n; i++) {
+            int index = rotation + i;
+            send(viewerList.get(index < n ? index : index - n));
+        }
+    }
+
+    private void send(Viewer viewer) throws IOException {
+        ByteBuffer packet = packetFor(viewer.acked);
+        packet.position(0);
+        if (channel.send(packet, viewer.address) == 0) {
+            sendsDropped++;
+            return;
+        }
+        packetsSent++;
+        bytesSent += packet.limit();
+    }
+
+    /**
+     * @return The newest snapshot encoded against the given baseline, encoding it on first use
+     */
+    private ByteBuffer packetFor(int acked) {
+        int distance = acked < 0 || newest - acked >= SpectatorProtocol.HISTORY
+                || history[acked & SpectatorProtocol.HISTORY_MASK].id != acked ? 0 : newest - acked;
+        ByteBuffer packet = encoded[distance];
+        if (encodedFor[distance] != newest) {
+            packet.clear();
+            Snapshot current = history[newest & SpectatorProtocol.HISTORY_MASK];
+            Snapshot base = null;
+            if (distance > 0) {
+                base = history[acked & SpectatorProtocol.HISTORY_MASK];
+            } else {
+                fullSnapshots++;
+            }
+            SpectatorProtocol.writeSnapshot(packet, current, base);
+            packet.flip();
+            encodedFor[distance] = newest;
+        }
+        return packet;
+    }
+
+    /**
+     * Forgets viewers that have not been heard from for TIMEOUT_NANOS.
+     */
+    private void sweep() {
+        long now = System.nanoTime();
+        if (now - lastSweep < SWEEP_NANOS) {
+            return;
+        }
+        lastSweep = now;
+        for (int i = viewerList.size() - 1; i >= 0; i--) {
+            Viewer viewer = viewerList.get(i);
+            if (now - viewer.lastHeard > TIMEOUT_NANOS) {
+                remove(viewer);
+            }
+        }
+    }
+
+    private void remove(Viewer viewer) {
+        viewers.remove(viewer.address);
+        // swap with the last viewer so removal stays O(1)
+        Viewer last = viewerList.remove(viewerList.size() - 1);
+        if (last != viewer) {
+            viewerList.set(viewer.index, last);
+            last.index = viewer.index;
+        }
+        viewerCount = viewerList.size();
+    }
+
+    /** @return Viewers currently joined */
+    public int getViewerCount() { return viewerCount; }
+    /** @return Snapshots handed over by the game thread */
+    public int getPublishedCount() { return publishedCount; }
+    /** @return Snapshot packets sent */
+    public long getPacketsSent() { return packetsSent; }
+    /** @return Bytes of snapshot packets sent */
+    public long getBytesSent() { return bytesSent; }
+    /** @return Full (non-delta) snapshots encoded */
+    public long getFullSnapshots() { return fullSnapshots; }
+    /** @return Sends dropped because the socket buffer was full */
+    public long getSendsDropped() { return sendsDropped; }
+    /** @return Total time the game thread spent capturing snapshots in publish() */
+    public long getPublishNanos() { return publishNanos; }
+    /** @return Longest single capture in publish() */
+    public long getMaxPublishNanos() { return maxPublishNanos; }
+    /** @return Local address spectators join on */
+    public SocketAddress getLocalAddress() throws IOException { return channel.getLocalAddress(); }
+}
@@ -1,16 +1,37 @@
 package objects;
 
 import java.awt.*;
+import java.util.function.DoubleSupplier;
 
 /**
  * Represents the ball in the Pong game.
  * Handles position, movement, velocity, and collision logic.
+ * <p>
+ * By default the position is truncated to whole pixels after every move. In sub-pixel mode the
+ * fractional part is kept, so motion no longer depends on where truncation happens.
+ * <p>
+ * Speeds are defined in pixels per second and converted to pixels per update for the update
+ * rate the ball runs at, so in sub-pixel mode the game plays at the same pace whatever that
+ * rate. Whole-pixel truncation runs toward zero, which makes a ball going left a little faster
+ * than one going right. The velocity itself is kept per update, which is what the movement,
+ * collision and prediction code works in; at the default 60 updates per second every conversion
+ * is exact, so those matches are unchanged bit for bit.
  */
 public class Ball {
-    private int x, y, size; // Ball position and size
+    private double x, y; // Ball position, whole pixels unless subPixel is set
+    private int size; // Ball diameter
     private double velocityX, velocityY; // Ball velocity in X and Y directions
-    private static final double BASE_SPEED = 4.0; // Initial speed
-    private static final double MAX_SPEED = 8.0;  // Maximum speed
+    private boolean subPixel = false; // Keep fractional positions
+    private final DoubleSupplier random; // Source of the random serve angle, doubles in [0, 1)
+    public static final int DEFAULT_UPDATES_PER_SECOND = 60;
+    private static final double BASE_SPEED = 240.0; // Initial speed in pixels per second
+    private static final double MAX_SPEED = 480.0;  // Maximum speed in pixels per second
+    private static final double SERVE_SPREAD = 120.0; // Vertical serve speeds span this many pixels per second
+    private static final double SPEED_UP = 1.001; // Speed gained every 1/60 s
+
+    // The speeds above converted to the current update rate
+    private int updatesPerSecond;
+    private double baseSpeed, maxSpeed, serveSpread, speedUp;
 
     /**
      * Constructs a Ball object at the specified position and size.
@@ -19,22 +40,60 @@ public class Ball {
      * @param size Diameter of the ball
      */
     public Ball(int x, int y, int size) {
+        this(x, y, size, Math::random);
+    }
+
+    /**
+     * Constructs a Ball object that draws its serve angles from the given source.
+     * @param x Initial X position
+     * @param y Initial Y position
+     * @param size Diameter of the ball
+     * @param random Doubles in [0, 1), usually from the match's seeded generator
+     */
+    public Ball(int x, int y, int size, DoubleSupplier random) {
         this.x = x;
         this.y = y;
         this.size = size;
+        this.random = random;
+        setRates(DEFAULT_UPDATES_PER_SECOND);
         resetVelocity(-1); // Start going left
     }
 
+    /**
+     * Changes how many updates make up a second. The current velocity is rescaled so the ball
+     * keeps its speed in pixels per second.
+     * @param updatesPerSecond Calls to update() per second of game time
+     */
+    public void setUpdatesPerSecond(int updatesPerSecond) {
+        double scale = (double) this.updatesPerSecond / updatesPerSecond;
+        setRates(updatesPerSecond);
+        velocityX *= scale;
+        velocityY *= scale;
+    }
+
+    private void setRates(int updatesPerSecond) {
+        this.updatesPerSecond = updatesPerSecond;
+        baseSpeed = BASE_SPEED / updatesPerSecond;
+        maxSpeed = MAX_SPEED / updatesPerSecond;
+        serveSpread = SERVE_SPREAD / updatesPerSecond;
+        speedUp = Math.pow(SPEED_UP, (double) DEFAULT_UPDATES_PER_SECOND / updatesPerSecond);
+    }
+
     /**
      * Updates the ball's position and gradually increases its speed.
      */
     public void update() {
-        x += velocityX;
-        y += velocityY;
+        if (subPixel) {
+            x += velocityX;
+            y += velocityY;
+        } else {
+            x = (int) (x + velocityX);
+            y = (int) (y + velocityY);
+        }
 
         // Gradually increase speed (up to max)
-        if (Math.abs(velocityX) < MAX_SPEED) {
-            velocityX *= 1.001; // Very gradual increase
+        if (Math.abs(velocityX) < maxSpeed) {
+            velocityX *= speedUp; // Very gradual increase
         }
     }
 
@@ -59,8 +118,8 @@ public class Ball {
     public void adjustYVelocity(double adjustment) {
         velocityY += adjustment;
         // Clamp Y velocity to reasonable bounds
-        if (velocityY > MAX_SPEED) velocityY = MAX_SPEED;
-        if (velocityY < -MAX_SPEED) velocityY = -MAX_SPEED;
+        if (velocityY > maxSpeed) velocityY = maxSpeed;
+        if (velocityY < -maxSpeed) velocityY = -maxSpeed;
     }
 
     /**
@@ -80,8 +139,8 @@ public class Ball {
      * @param direction Direction for ball to move (-1 for left, 1 for right)
      */
     private void resetVelocity(int direction) {
-        velocityX = BASE_SPEED * direction;
-        velocityY = (Math.random() - 0.5) * 2; // Random Y direction
+        velocityX = baseSpeed * direction;
+        velocityY = (random.getAsDouble() - 0.5) * serveSpread; // Random Y direction
     }
 
     /**
@@ -89,7 +148,7 @@ public class Ball {
      * @return Rectangle representing the ball's bounds
      */
     public Rectangle getRectangle() {
-        return new Rectangle(x, y, size, size);
+        return new Rectangle(getX(), getY(), size, size);
     }
 
     /**
@@ -97,18 +156,40 @@ public class Ball {
      * @return Y coordinate of the ball's center
      */
     public int getCenterY() {
-        return y + size/2;
+        return getY() + size/2;
     }
 
     // Getters and setters
     /** @return Current X position */
-    public int getX() { return x; }
+    public int getX() { return (int) x; }
     /** @return Current Y position */
-    public int getY() { return y; }
+    public int getY() { return (int) y; }
+    /** @return Current X position including any fraction */
+    public double getExactX() { return x; }
+    /** @return Current Y position including any fraction */
+    public double getExactY() { return y; }
+    /** @return X velocity in pixels per update */
+    public double getVelocityX() { return velocityX; }
+    /** @return Y velocity in pixels per update */
+    public double getVelocityY() { return velocityY; }
+    /** @return X velocity in pixels per second */
+    public double getVelocityXPerSecond() { return velocityX * updatesPerSecond; }
+    /** @return Y velocity in pixels per second */
+    public double getVelocityYPerSecond() { return velocityY * updatesPerSecond; }
+    /** @return Updates per second the velocity is measured against */
+    public int getUpdatesPerSecond() { return updatesPerSecond; }
+    /** @return True if fractional positions are kept */
+    public boolean isSubPixel() { return subPixel; }
+    /** Keeps fractional positions instead of truncating to whole pixels */
+    public void setSubPixel(boolean subPixel) { this.subPixel = subPixel; }
     /** @return Ball diameter */
     public int getSize() { return size; }
     /** Sets the X position */
     public void setX(int x) { this.x = x; }
+    /** Sets the position including any fraction, e.g. when restoring a snapshot */
+    public void setExactPosition(double x, double y) { this.x = x; this.y = y; }
+    /** Sets both velocity components in pixels per update */
+    public void setVelocity(double velocityX, double velocityY) { this.velocityX = velocityX; this.velocityY = velocityY; }
     /** Sets the Y position */
     public void setY(int y) { this.y = y; }
 }
@@ -5,9 +5,15 @@ import java.awt.*;
 /**
  * Represents a paddle in the Pong game.
  * Handles position, movement, and boundary logic for a player paddle.
+ * <p>
+ * The vertical position keeps any fraction, so a speed that is not a whole number of pixels
+ * per update (at update rates other than 60 Hz) still moves the paddle at the right pace.
+ * getY() reports the whole pixel the paddle is drawn at; collisions and saved states use the
+ * exact position.
  */
 public class Paddle {
-    private int x, y, width, height, speed; // Paddle position, size, and movement speed
+    private int x, width, height; // Paddle position and size
+    private double y, speed; // Vertical position and movement speed per update
 
     /**
      * Constructs a Paddle object with specified position, size, and speed.
@@ -17,7 +23,7 @@ public class Paddle {
      * @param height Paddle height
      * @param speed Movement speed per update
      */
-    public Paddle(int x, int y, int width, int height, int speed) {
+    public Paddle(int x, int y, int width, int height, double speed) {
         this.x = x;
         this.y = y;
         this.width = width;
@@ -54,14 +60,43 @@ public class Paddle {
      * @return Rectangle representing the paddle's bounds
      */
     public Rectangle getRectangle() {
-        return new Rectangle(x, y, width, height);
+        return new Rectangle(x, getY(), width, height);
+    }
+
+    /**
+     * Moves the paddle to the given vertical position, e.g. when resetting a match.
+     * @param y New Y position
+     */
+    public void setY(int y) {
+        this.y = y;
+    }
+
+    /**
+     * Moves the paddle to the given vertical position, fraction included, e.g. when restoring a
+     * saved state.
+     * @param y New Y position
+     */
+    public void setExactY(double y) {
+        this.y = y;
+    }
+
+    /**
+     * Changes the movement speed, e.g. when the update rate changes.
+     * @param speed Movement speed per update
+     */
+    public void setSpeed(double speed) {
+        this.speed = speed;
     }
 
     // Getters
     /** @return Current X position */
     public int getX() { return x; }
     /** @return Current Y position */
-    public int getY() { return y; }
+    public int getY() { return (int) y; }
+    /** @return Current Y position including any fraction */
+    public double getExactY() { return y; }
+    /** @return Movement speed per update */
+    public double getSpeed() { return speed; }
     /** @return Paddle width */
     public int getWidth() { return width; }
     /** @return Paddle height */
@@ -0,0 +1,56 @@
+package replay;
+
+import sim.PongSimulation;
+
+/**
+ * Layout of a replay file.
+ * <p>
+ * A fixed-size header is followed by chunks of equal size. Chunk k starts with a keyframe (the
+ * match state written by PongSimulation.writeState after k * interval recorded ticks) followed by
+ * one input byte for each of the next interval ticks. Because every chunk has the same size, the
+ * keyframe for any tick can be found without scanning the file. All values are big-endian.
+ */
+final class ReplayFormat {
+    static final int MAGIC = 0x50505250; // "PPRP"
+    static final short VERSION = 3;
+
+    // Header fields
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 4;
+    static final int FLAGS_OFFSET = 6;
+    static final int WIDTH_OFFSET = 8;
+    static final int HEIGHT_OFFSET = 12;
+    static final int SEED_OFFSET = 16;
+    static final int INTERVAL_OFFSET = 24;
+    static final int TICK_COUNT_OFFSET = 28;
+    static final int HEADER_BYTES = 64;
+
+    static final short FLAG_SUB_PIXEL = 1;
+
+    // One keyframe every ten seconds of play at 60 updates per second
+    static final int DEFAULT_INTERVAL = 600;
+
+    private ReplayFormat() {
+    }
+
+    /**
+     * @return Size in bytes of one keyframe plus its inputs
+     */
+    static long chunkBytes(int interval) {
+        return PongSimulation.STATE_BYTES + (long) interval;
+    }
+
+    /**
+     * @return File offset of the keyframe of the given chunk
+     */
+    static long keyframeOffset(long chunk, int interval) {
+        return HEADER_BYTES + chunk * chunkBytes(interval);
+    }
+
+    /**
+     * @return File offset of the input byte of the given tick
+     */
+    static long inputOffset(long tick, int interval) {
+        return keyframeOffset(tick / interval, interval) + PongSimulation.STATE_BYTES + tick % interval;
+    }
+}
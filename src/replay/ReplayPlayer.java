@@ -0,0 +1,169 @@
+package replay;
+
+import sim.PongSimulation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Plays back a replay file headless.
+ * <p>
+ * The file is memory-mapped read-only and replayed through a PongSimulation, so playback runs as
+ * fast as the simulation steps. {@link #seek(long)} jumps to any tick by restoring the nearest
+ * earlier keyframe and stepping forward from there.
+ * <p>
+ * Usage: {@code java -Djava.awt.headless=true -cp out replay.ReplayPlayer file [tick]} plays the
+ * replay to the end (or to the given tick), checks every keyframe along the way and prints the
+ * result.
+ */
+public class ReplayPlayer implements Closeable {
+    private final FileChannel channel;
+    private final MappedByteBuffer data;
+    private final int interval;
+    private final long tickCount;
+    private final PongSimulation sim;
+    private final ByteBuffer scratch = ByteBuffer.allocate(PongSimulation.STATE_BYTES);
+    private long tick = 0;
+
+    /**
+     * Opens a replay and positions it at its first tick.
+     * @param path Replay file
+     */
+    public ReplayPlayer(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        if (data.capacity() < ReplayFormat.HEADER_BYTES || data.getInt(ReplayFormat.MAGIC_OFFSET) != ReplayFormat.MAGIC) {
+            channel.close();
+            throw new IOException("Not a replay file: " + path);
+        }
+        if (data.getShort(ReplayFormat.VERSION_OFFSET) != ReplayFormat.VERSION) {
+            channel.close();
+            throw new IOException("Unsupported replay version " + data.getShort(ReplayFormat.VERSION_OFFSET));
+        }
+        interval = data.getInt(ReplayFormat.INTERVAL_OFFSET);
+        tickCount = data.getLong(ReplayFormat.TICK_COUNT_OFFSET);
+        boolean subPixel = (data.getShort(ReplayFormat.FLAGS_OFFSET) & ReplayFormat.FLAG_SUB_PIXEL) != 0;
+        sim = new PongSimulation(data.getInt(ReplayFormat.WIDTH_OFFSET), data.getInt(ReplayFormat.HEIGHT_OFFSET),
+                data.getLong(ReplayFormat.SEED_OFFSET), subPixel);
+        if (tickCount > 0) {
+            restoreKeyframe(0);
+        }
+    }
+
+    /**
+     * Moves playback to the given tick, i.e. the state after that many recorded ticks.
+     * @param target Tick to seek to, between 0 and getTickCount()
+     */
+    public void seek(long target) {
+        if (target < 0 || target > tickCount) {
+            throw new IllegalArgumentException("Tick " + target + " outside 0.." + tickCount);
+        }
+        if (tickCount == 0) {
+            return;
+        }
+        // the keyframe of a chunk is only present once its first tick was recorded
+        long chunk = Math.min(target / interval, (tickCount - 1) / interval);
+        if (target < tick || chunk > tick / interval) {
+            restoreKeyframe(chunk);
+        }
+        while (tick < target) {
+            step();
+        }
+    }
+
+    /**
+     * Plays one recorded tick.
+     * @return False if the end of the replay was reached
+     */
+    public boolean step() {
+        if (tick >= tickCount) {
+            return false;
+        }
+        sim.step(data.get((int) ReplayFormat.inputOffset(tick, interval)));
+        tick++;
+        return true;
+    }
+
+    /**
+     * Plays the whole replay from the start, comparing the simulation against every keyframe.
+     * @return The first tick whose state differs from its keyframe, or -1 if all keyframes match
+     */
+    public long verify() {
+        if (tickCount > 0) {
+            restoreKeyframe(0);
+        }
+        ByteBuffer expected = data.duplicate();
+        while (tick < tickCount) {
+            if (tick % interval == 0) {
+                scratch.clear();
+                sim.writeState(scratch);
+                scratch.flip();
+                int offset = (int) ReplayFormat.keyframeOffset(tick / interval, interval);
+                expected.limit(offset + PongSimulation.STATE_BYTES);
+                expected.position(offset);
+                if (!scratch.equals(expected)) {
+                    return tick;
+                }
+            }
+            step();
+        }
+        return -1;
+    }
+
+    private void restoreKeyframe(long chunk) {
+        ByteBuffer keyframe = data.duplicate();
+        keyframe.position((int) ReplayFormat.keyframeOffset(chunk, interval));
+        sim.readState(keyframe);
+        tick = chunk * interval;
+    }
+
+    /** @return Simulation showing the state at the current tick */
+    public PongSimulation getSimulation() {
+        return sim;
+    }
+
+    /** @return Current playback tick */
+    public long getTick() {
+        return tick;
+    }
+
+    /** @return Number of recorded ticks */
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: ReplayPlayer file [tick]");
+            return;
+        }
+        try (ReplayPlayer player = new ReplayPlayer(Paths.get(args[0]))) {
+            long start = System.nanoTime();
+            long mismatch = player.verify();
+            long target = args.length > 1 ? Long.parseLong(args[1]) : player.getTickCount();
+            player.seek(target);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            PongSimulation sim = player.getSimulation();
+            System.out.printf("%d ticks verified in %.3f s (%.0f ticks/s)%n",
+                    player.getTickCount(), seconds, player.getTickCount() / seconds);
+            if (mismatch >= 0) {
+                System.out.println("State diverges from the recording at tick " + mismatch);
+            }
+            System.out.printf("Tick %d: score %d-%d, ball (%d, %d)%s, state hash %016x%n",
+                    player.getTick(), sim.getLeftScore(), sim.getRightScore(),
+                    sim.getBall().getX(), sim.getBall().getY(),
+                    sim.isGameOver() ? ", " + sim.getWinner() : "", sim.stateHash());
+        }
+    }
+}
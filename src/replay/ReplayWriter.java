@@ -0,0 +1,116 @@
+package replay;
+
+import sim.PongSimulation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Records a match as a compact replay file.
+ * <p>
+ * The file is written through memory-mapped regions, so recording a tick is a single byte store
+ * and a keyframe a few dozen. The tick count in the header is updated on every tick, which keeps
+ * the file readable even if the game exits without closing the writer.
+ */
+public class ReplayWriter implements Closeable {
+    // Size of each mapped window of the file
+    private static final long REGION_BYTES = 1 << 22;
+
+    private final FileChannel channel;
+    private final int interval;
+    private final MappedByteBuffer header;
+    private MappedByteBuffer region;
+    private long regionStart;
+    private long ticks = 0;
+
+    /**
+     * Creates (or replaces) a replay file for a match.
+     * @param path File to write
+     * @param sim Match being recorded; its settings go in the header
+     */
+    public ReplayWriter(Path path, PongSimulation sim) throws IOException {
+        this(path, sim, ReplayFormat.DEFAULT_INTERVAL);
+    }
+
+    /**
+     * @param path File to write
+     * @param sim Match being recorded; its settings go in the header
+     * @param interval Ticks between keyframes
+     */
+    public ReplayWriter(Path path, PongSimulation sim, int interval) throws IOException {
+        this.interval = interval;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, ReplayFormat.HEADER_BYTES);
+        header.putInt(ReplayFormat.MAGIC_OFFSET, ReplayFormat.MAGIC);
+        header.putShort(ReplayFormat.VERSION_OFFSET, ReplayFormat.VERSION);
+        header.putShort(ReplayFormat.FLAGS_OFFSET, sim.isSubPixel() ? ReplayFormat.FLAG_SUB_PIXEL : 0);
+        header.putInt(ReplayFormat.WIDTH_OFFSET, sim.getWidth());
+        header.putInt(ReplayFormat.HEIGHT_OFFSET, sim.getHeight());
+        header.putLong(ReplayFormat.SEED_OFFSET, sim.getSeed());
+        header.putInt(ReplayFormat.INTERVAL_OFFSET, interval);
+        header.putLong(ReplayFormat.TICK_COUNT_OFFSET, 0);
+        mapRegion(ReplayFormat.HEADER_BYTES);
+    }
+
+    /**
+     * Records one tick. Call with the match state and the inputs just before passing the same
+     * inputs to sim.step().
+     * @param sim Match being recorded
+     * @param inputs Input bitmask for this tick
+     */
+    public void record(PongSimulation sim, int inputs) throws IOException {
+        if (ticks % interval == 0) {
+            ensureRoom(PongSimulation.STATE_BYTES + 1);
+            sim.writeState(region);
+        } else {
+            ensureRoom(1);
+        }
+        region.put((byte) inputs);
+        ticks++;
+        header.putLong(ReplayFormat.TICK_COUNT_OFFSET, ticks);
+    }
+
+    /** @return Number of ticks recorded so far */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Makes sure the current region has room for the next write, mapping the next window if not.
+     */
+    private void ensureRoom(int bytes) throws IOException {
+        if (region.remaining() < bytes) {
+            mapRegion(regionStart + region.position());
+        }
+    }
+
+    private void mapRegion(long start) throws IOException {
+        regionStart = start;
+        region = channel.map(FileChannel.MapMode.READ_WRITE, start, REGION_BYTES);
+    }
+
+    /**
+     * Trims the unused tail of the last mapped region and closes the file. Must be called from
+     * the thread that records.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            long end = regionStart + region.position();
+            region.force();
+            header.force();
+            region = null;
+            channel.truncate(end);
+        } catch (IOException e) {
+            // some platforms refuse to shrink a mapped file; the header tick count still bounds the data
+            System.out.println("Could not trim replay file: " + e.getMessage());
+        } finally {
+            channel.close();
+        }
+    }
+}
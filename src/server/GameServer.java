@@ -0,0 +1,235 @@
+package server;
+
+import sim.PongSimulation;
+import sim.Rng;
+import telemetry.LatencyHistogram;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hosts many matches in one process.
+ * <p>
+ * Rooms are created on first join and ticked by a RoomScheduler; clients connect over TCP and
+ * each connection is served by plain blocking I/O on its own thread, one reading inputs and one
+ * streaming states. On Java 21 and later those are virtual threads, so thousands of connections
+ * cost little; on older runtimes they fall back to a cached pool of platform threads. The
+ * scheduler threads never touch a socket.
+ * <p>
+ * Protocol, big-endian: the client sends JOIN (room id, role) once, then INPUT (bitmask of
+ * RollbackSession.UP, DOWN and RESTART) whenever its held input changes. The server sends STATE
+ * (room tick, PongSimulation state) after every tick of the room. A client sending any other
+ * packet is disconnected.
+ */
+public class GameServer {
+    static final byte PACKET_JOIN = 1;
+    static final byte PACKET_INPUT = 2;
+    static final byte PACKET_STATE = 3;
+
+    // JOIN roles
+    public static final byte ROLE_LEFT = 0;
+    public static final byte ROLE_RIGHT = 1;
+    public static final byte ROLE_WATCH = 2;
+
+    private static final int TICKS_PER_SECOND = 60;
+
+    private final ServerSocket serverSocket;
+    private final RoomScheduler scheduler;
+    private final ExecutorService clients;
+    private final boolean virtualThreads;
+    private final long seed;
+    private final ConcurrentHashMap<Integer, Room> rooms = new ConcurrentHashMap<>();
+    private Thread acceptThread;
+    private volatile boolean running = false;
+
+    /**
+     * @param address Address to listen on
+     * @param schedulerThreads Number of threads ticking rooms
+     * @param seed Seed the room seeds are derived from
+     */
+    public GameServer(SocketAddress address, int schedulerThreads, long seed) throws IOException {
+        this.serverSocket = new ServerSocket();
+        serverSocket.bind(address);
+        this.scheduler = new RoomScheduler(schedulerThreads);
+        this.seed = seed;
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.clients = virtual != null ? virtual : Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "Game client");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Looks up Executors.newVirtualThreadPerTaskExecutor() at run time, so the game still
+     * builds and runs on runtimes without virtual threads.
+     * @return The executor, or null if this runtime has no virtual threads
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Starts the scheduler and accepts clients on a background thread.
+     */
+    public void start() {
+        running = true;
+        scheduler.start();
+        acceptThread = new Thread(this::acceptLoop, "Game server accept");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+    }
+
+    /**
+     * Stops accepting clients and ticking rooms.
+     */
+    public void close() throws IOException, InterruptedException {
+        running = false;
+        serverSocket.close();
+        clients.shutdownNow();
+        scheduler.stop();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                clients.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (running) {
+                    System.out.println("Error accepting client -> " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The room with the given id, created and scheduled on first use
+     */
+    public Room room(int id) {
+        return rooms.computeIfAbsent(id, key -> {
+            Room room = new Room(key, Rng.mix(seed + key * Rng.GOLDEN_GAMMA), TICKS_PER_SECOND);
+            scheduler.add(room);
+            return room;
+        });
+    }
+
+    /**
+     * Reads a client's join and inputs until it disconnects, while a second task streams the
+     * room's state to it.
+     */
+    private void serve(Socket socket) {
+        Room room = null;
+        boolean player = false;
+        boolean left = false;
+        try (Socket s = socket) {
+            s.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+            if (in.readByte() != PACKET_JOIN) {
+                return;
+            }
+            room = room(in.readInt());
+            byte role = in.readByte();
+            player = role == ROLE_LEFT || role == ROLE_RIGHT;
+            left = role == ROLE_LEFT;
+            if (player) {
+                room.setControlled(left, true);
+            }
+            Room joined = room;
+            clients.execute(() -> stream(joined, s, out));
+            while (true) {
+                byte type = in.readByte();
+                if (type != PACKET_INPUT) {
+                    // its payload length is unknown, so nothing after it can be read reliably
+                    System.out.println("Error reading client -> unknown packet type " + type + ", disconnecting");
+                    return;
+                }
+                int input = in.readByte();
+                if (player) {
+                    room.setInput(left, input);
+                }
+            }
+        } catch (EOFException e) {
+            // client disconnected
+        } catch (IOException e) {
+            if (running) {
+                System.out.println("Error reading client -> " + e.getMessage());
+            }
+        } finally {
+            if (player) {
+                room.setControlled(left, false);
+            }
+        }
+    }
+
+    private void stream(Room room, Socket socket, DataOutputStream out) {
+        ByteBuffer state = ByteBuffer.allocate(PongSimulation.STATE_BYTES);
+        long tick = -1;
+        try {
+            while (!socket.isClosed()) {
+                state.clear();
+                long next = room.awaitState(tick, state, 1, TimeUnit.SECONDS);
+                if (next == tick) {
+                    continue;
+                }
+                tick = next;
+                out.writeByte(PACKET_STATE);
+                out.writeLong(tick);
+                out.write(state.array(), 0, PongSimulation.STATE_BYTES);
+                out.flush();
+            }
+        } catch (IOException | InterruptedException e) {
+            // client gone or server closing
+        }
+    }
+
+    /**
+     * Prints the tick lag over all rooms and the rooms that lagged worst.
+     * @param worst Number of rooms to list
+     */
+    public void report(PrintStream stream, int worst) {
+        List<Room> all = scheduler.getRooms();
+        LatencyHistogram lag = scheduler.lagHistogram();
+        stream.printf("%d rooms, %d ticking on %d scheduler threads (%s client threads)%n", all.size(),
+                scheduler.getScheduledRooms(), scheduler.getThreadCount(), virtualThreads ? "virtual" : "platform");
+        stream.printf("Tick lag: p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, max %.2f ms over %d room ticks%n",
+                lag.percentile(0.5) / 1e6, lag.percentile(0.99) / 1e6, lag.percentile(0.999) / 1e6,
+                lag.getMax() / 1e6, lag.getCount());
+        all.sort(Comparator.comparingLong(Room::getMaxLagNanos).reversed());
+        for (int i = 0; i < Math.min(worst, all.size()); i++) {
+            Room room = all.get(i);
+            stream.printf("  room %d: %d ticks, lag last %.2f ms, mean %.2f ms, max %.2f ms, %d dropped%n",
+                    room.getId(), room.getTicks(), room.getLastLagNanos() / 1e6, room.getMeanLagNanos() / 1e6,
+                    room.getMaxLagNanos() / 1e6, room.getDroppedTicks());
+        }
+    }
+
+    /** @return The scheduler ticking the rooms */
+    public RoomScheduler getScheduler() { return scheduler; }
+    /** @return True if clients are served on virtual threads */
+    public boolean isVirtualThreads() { return virtualThreads; }
+    /** @return Address clients connect to */
+    public InetSocketAddress getLocalAddress() { return (InetSocketAddress) serverSocket.getLocalSocketAddress(); }
+}
@@ -0,0 +1,135 @@
+package server;
+
+import net.RollbackSession;
+import sim.PongSimulation;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+
+/**
+ * Checks that GameServer disconnects a client that sends an unknown packet type.
+ * <p>
+ * Two clients join room 0 as the left and the right player. The left one then sends a packet of
+ * an unknown type whose payload happens to look like an input packet. The server must close that
+ * connection instead of reading on, release the left seat so the room stops, and keep serving
+ * the right player, who gets states again once a new left player has joined.
+ * <p>
+ * Usage: {@code java -Djava.awt.headless=true -cp out server.ProtocolCheck}
+ * <br>
+ * Exits with 1 if any step fails.
+ */
+public class ProtocolCheck {
+    private static final byte UNKNOWN_PACKET = 99;
+    private static final int TIMEOUT_MILLIS = 3000;
+
+    public static void main(String[] args) throws Exception {
+        GameServer server = new GameServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1, 42);
+        server.start();
+        Room room = server.room(0);
+        Socket bad = join(server, GameServer.ROLE_LEFT);
+        Socket good = join(server, GameServer.ROLE_RIGHT);
+
+        boolean failed = !report("room active with both players", awaitActive(room, true));
+        failed |= !report("players receive states", readState(bad) >= 0 && readState(good) >= 0);
+
+        // in one write, as the server may close as soon as it has read the type
+        bad.getOutputStream().write(new byte[] {UNKNOWN_PACKET, GameServer.PACKET_INPUT, (byte) RollbackSession.UP});
+        failed |= !report("unknown packet closes the connection", awaitClosed(bad));
+        failed |= !report("left seat released", awaitActive(room, false));
+
+        long stopped = room.getTicks();
+        Socket rejoined = join(server, GameServer.ROLE_LEFT);
+        failed |= !report("right player served after rejoin", awaitActive(room, true) && awaitTick(good, stopped));
+
+        bad.close();
+        good.close();
+        rejoined.close();
+        server.close();
+        System.exit(failed ? 1 : 0);
+    }
+
+    private static boolean report(String step, boolean ok) {
+        System.out.printf("%-40s %s%n", step, ok ? "ok" : "FAILED");
+        return ok;
+    }
+
+    private static Socket join(GameServer server, byte role) throws IOException {
+        Socket socket = new Socket(server.getLocalAddress().getAddress(), server.getLocalAddress().getPort());
+        socket.setSoTimeout(TIMEOUT_MILLIS);
+        DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+        out.writeByte(GameServer.PACKET_JOIN);
+        out.writeInt(0);
+        out.writeByte(role);
+        out.flush();
+        return socket;
+    }
+
+    private static boolean awaitActive(Room room, boolean active) throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT_MILLIS * 1_000_000L;
+        while (room.isActive() != active) {
+            if (System.nanoTime() - deadline > 0) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    /**
+     * Reads one state packet.
+     * @return Its room tick, or -1 if none arrives within the timeout
+     */
+    private static long readState(Socket socket) throws IOException {
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        try {
+            if (in.readByte() != GameServer.PACKET_STATE) {
+                return -1;
+            }
+            long tick = in.readLong();
+            in.readFully(new byte[PongSimulation.STATE_BYTES]);
+            return tick;
+        } catch (SocketTimeoutException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Reads states, including those queued before the room stopped, until one is past a tick.
+     * @return False if none arrives within the timeout
+     */
+    private static boolean awaitTick(Socket socket, long afterTick) throws IOException {
+        long tick;
+        do {
+            tick = readState(socket);
+        } while (tick >= 0 && tick <= afterTick);
+        return tick > afterTick;
+    }
+
+    /**
+     * Drains the socket until the server closes it.
+     * @return False if the connection is still open after the timeout
+     */
+    private static boolean awaitClosed(Socket socket) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        long deadline = System.nanoTime() + TIMEOUT_MILLIS * 1_000_000L;
+        try {
+            while (System.nanoTime() - deadline < 0) {
+                if (in.read() < 0) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (SocketTimeoutException e) {
+            return false;
+        } catch (IOException e) {
+            // reset, since the server closed with our unread bytes still queued
+            return true;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package server;
+
+import net.RollbackSession;
+import sim.PaddleAI;
+import sim.PaddleController;
+import sim.PongSimulation;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One match hosted by a RoomScheduler.
+ * <p>
+ * A room ticks at a fixed rate while it is active: both paddles are controlled (by a client or
+ * a computer player) and the match is not over. Deadlines advance by exactly one period per
+ * tick, so the rate does not drift with scheduling jitter; a room that falls behind catches up
+ * by at most MAX_CATCH_UP_STEPS ticks at a time and drops the rest, as GDV5 does. An inactive
+ * room is simply not in the timer wheel and costs nothing until a join or restart wakes it.
+ * <p>
+ * Clients set their paddle's held input at any time from their own thread; the room reads it
+ * at its next tick. Clients that want the state wait in {@link #awaitState} and are signalled
+ * after each tick.
+ */
+public class Room extends TimerWheel.Timer {
+    private static final int MAX_CATCH_UP_STEPS = 5;
+
+    private final int id;
+    private final PongSimulation sim;
+    private final long periodNanos;
+    private volatile RoomScheduler.Shard shard;
+
+    // Written by client threads, read at the next tick
+    private volatile int leftInput = 0;
+    private volatile int rightInput = 0;
+    private volatile boolean leftControlled = false;
+    private volatile boolean rightControlled = false;
+    private volatile PaddleController leftController;
+    private volatile PaddleController rightController;
+    private volatile boolean restartRequested = false;
+
+    // Scheduler thread state
+    private long deadline;
+
+    // State handed to waiting clients after each tick
+    private final ReentrantLock stateLock = new ReentrantLock();
+    private final Condition stateChanged = stateLock.newCondition();
+    private final ByteBuffer state = ByteBuffer.allocate(PongSimulation.STATE_BYTES);
+    private long stateTick = -1;
+
+    // Lag statistics, written by the scheduler thread
+    private volatile long ticks = 0;
+    private volatile long lastLagNanos = 0;
+    private volatile long maxLagNanos = 0;
+    private volatile long totalLagNanos = 0;
+    private volatile long lagSamples = 0;
+    private volatile long droppedTicks = 0;
+
+    /**
+     * @param id Room number, unique within a scheduler
+     * @param seed Seed of the match
+     * @param ticksPerSecond Fixed tick rate
+     */
+    public Room(int id, long seed, int ticksPerSecond) {
+        this.id = id;
+        this.sim = new PongSimulation(PongSimulation.DEFAULT_WIDTH, PongSimulation.DEFAULT_HEIGHT, seed, true,
+                ticksPerSecond);
+        this.periodNanos = 1_000_000_000L / ticksPerSecond;
+    }
+
+    void attach(RoomScheduler.Shard shard) {
+        this.shard = shard;
+    }
+
+    /**
+     * @return True if the room should be ticking
+     */
+    public boolean isActive() {
+        return leftControlled && rightControlled && !sim.isGameOver();
+    }
+
+    /**
+     * Runs the ticks that are due, then schedules the next one if the room is still active.
+     */
+    @Override
+    void expire(long now) {
+        long lag = now - deadline;
+        lastLagNanos = lag;
+        maxLagNanos = Math.max(maxLagNanos, lag);
+        totalLagNanos += lag;
+        lagSamples++;
+        shard.recordLag(lag);
+
+        int steps = 0;
+        while (deadline - now <= 0 && steps < MAX_CATCH_UP_STEPS && isActive()) {
+            step(0);
+            deadline += periodNanos;
+            steps++;
+        }
+        if (deadline - now <= 0 && isActive()) {
+            // too far behind: drop the backlog instead of spiralling
+            long behind = (now - deadline) / periodNanos + 1;
+            droppedTicks += behind;
+            deadline += behind * periodNanos;
+        }
+        publishState();
+        if (isActive()) {
+            shard.schedule(this, deadline);
+        }
+    }
+
+    /**
+     * Applies a requested restart and starts ticking again from now if the room became active.
+     * Called on the scheduler thread when the room is woken.
+     */
+    void wake(long now) {
+        if (restartRequested) {
+            restartRequested = false;
+            if (sim.isGameOver()) {
+                step(PongSimulation.RESTART);
+                publishState();
+            }
+        }
+        if (!isScheduled() && isActive()) {
+            deadline = now;
+            shard.schedule(this, deadline);
+        }
+    }
+
+    /**
+     * @param extra Inputs added to the players', e.g. RESTART
+     */
+    private void step(int extra) {
+        int left = leftInput;
+        int right = rightInput;
+        // controller moves use the same UP and DOWN bits as players
+        PaddleController controller = leftController;
+        if (controller != null) {
+            left = controller.move(sim);
+        }
+        controller = rightController;
+        if (controller != null) {
+            right = controller.move(sim);
+        }
+        sim.step(RollbackSession.toSimInputs(left, right) | extra);
+        ticks++;
+    }
+
+    private void publishState() {
+        stateLock.lock();
+        try {
+            state.clear();
+            sim.writeState(state);
+            stateTick = ticks;
+            stateChanged.signalAll();
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the room has ticked past the given tick, then copies its state. Called by
+     * client threads.
+     * @param afterTick Room tick of the state the caller already has, or -1 for none
+     * @param out Receives PongSimulation.STATE_BYTES bytes of state
+     * @return Room tick of the copied state, or afterTick if nothing new arrived within the timeout
+     */
+    public long awaitState(long afterTick, ByteBuffer out, long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        stateLock.lock();
+        try {
+            while (stateTick <= afterTick && remaining > 0) {
+                remaining = stateChanged.awaitNanos(remaining);
+            }
+            if (stateTick <= afterTick) {
+                return afterTick;
+            }
+            out.put(state.array(), 0, PongSimulation.STATE_BYTES);
+            return stateTick;
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    /**
+     * Gives a paddle to a client, or takes it back. Wakes the room once both paddles are
+     * controlled.
+     * @param left True for the left paddle, false for the right one
+     * @param option True when a client takes the paddle, false when it leaves
+     */
+    public void setControlled(boolean left, boolean option) {
+        if (left) {
+            leftControlled = option;
+            leftInput = 0;
+        } else {
+            rightControlled = option;
+            rightInput = 0;
+        }
+        wakeLater();
+    }
+
+    private void wakeLater() {
+        RoomScheduler.Shard s = shard;
+        if (s != null) {
+            s.wake(this);
+        }
+    }
+
+    /**
+     * Hands a paddle to a computer player.
+     * @param left True for the left paddle, false for the right one
+     * @param difficulty Difficulty of the computer player
+     * @param seed Seed for its aim noise
+     */
+    public void setComputerPlayer(boolean left, PaddleAI.Difficulty difficulty, long seed) {
+        setController(left, new PaddleAI(left, difficulty, seed));
+    }
+
+    /**
+     * Hands a paddle to a controller, which then moves it every tick instead of a client.
+     * @param left True for the left paddle, false for the right one
+     * @param controller Controller created for that paddle
+     */
+    public void setController(boolean left, PaddleController controller) {
+        if (left) {
+            leftController = controller;
+        } else {
+            rightController = controller;
+        }
+        setControlled(left, true);
+    }
+
+    /**
+     * Sets a paddle's held input. A RESTART bit after a game over restarts the match.
+     * @param left True for the left paddle, false for the right one
+     * @param input Bitmask of RollbackSession.UP, DOWN and RESTART
+     */
+    public void setInput(boolean left, int input) {
+        if ((input & RollbackSession.RESTART) != 0) {
+            restartRequested = true;
+            wakeLater();
+            input &= ~RollbackSession.RESTART;
+        }
+        if (left) {
+            leftInput = input;
+        } else {
+            rightInput = input;
+        }
+    }
+
+    /**
+     * @return Room number
+     */
+    public int getId() { return id; }
+    /** @return The match; only safe to read from the scheduler thread or once the room is idle */
+    public PongSimulation getSimulation() { return sim; }
+    /** @return Ticks run */
+    public long getTicks() { return ticks; }
+    /** @return How late the most recent tick started, in nanoseconds */
+    public long getLastLagNanos() { return lastLagNanos; }
+    /** @return Latest start of any tick, in nanoseconds */
+    public long getMaxLagNanos() { return maxLagNanos; }
+    /** @return Mean lateness of tick starts, in nanoseconds */
+    public double getMeanLagNanos() { return lagSamples == 0 ? 0 : (double) totalLagNanos / lagSamples; }
+    /** @return Ticks dropped because the room fell too far behind */
+    public long getDroppedTicks() { return droppedTicks; }
+}
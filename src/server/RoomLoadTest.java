@@ -0,0 +1,122 @@
+package server;
+
+import sim.PaddleAI;
+import sim.PongSimulation;
+import sim.Rng;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs many computer-played rooms on one GameServer and reports the tick rate and lag.
+ * <p>
+ * Every active room is played by two computer players. A quarter of the rooms only ever get one
+ * player, so they stay idle and must cost nothing. Optionally a number of TCP clients watch
+ * rooms, to load the client threads as well.
+ * <p>
+ * Usage: {@code java -Djava.awt.headless=true -cp out server.RoomLoadTest [rooms seconds threads watchers]}
+ */
+public class RoomLoadTest {
+    public static void main(String[] args) throws Exception {
+        int roomCount = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int watcherCount = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+
+        GameServer server = new GameServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), threads, 42);
+        server.start();
+        int idle = 0;
+        for (int i = 0; i < roomCount; i++) {
+            Room room = server.room(i);
+            room.setComputerPlayer(true, PaddleAI.Difficulty.HARD, Rng.mix(i * 2L));
+            if (i % 4 == 3) {
+                idle++;
+                continue;
+            }
+            room.setComputerPlayer(false, PaddleAI.Difficulty.HARD, Rng.mix(i * 2L + 1));
+        }
+
+        AtomicLong statesReceived = new AtomicLong();
+        List<Socket> watchers = new ArrayList<>();
+        for (int i = 0; i < watcherCount; i++) {
+            Socket socket = new Socket(server.getLocalAddress().getAddress(), server.getLocalAddress().getPort());
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeByte(GameServer.PACKET_JOIN);
+            out.writeInt(i % roomCount);
+            out.writeByte(GameServer.ROLE_WATCH);
+            out.flush();
+            watchers.add(socket);
+            Thread reader = new Thread(() -> readStates(socket, statesReceived), "Watcher " + i);
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        long cpuBefore = schedulerCpuNanos(threadBean);
+        long ticksBefore = totalTicks(server);
+        long start = System.nanoTime();
+        Thread.sleep(seconds * 1000L);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        long ticks = totalTicks(server) - ticksBefore;
+        long cpu = schedulerCpuNanos(threadBean) - cpuBefore;
+
+        int active = roomCount - idle;
+        System.out.printf("%d rooms (%d idle), %d watchers, %.1f s%n", roomCount, idle, watcherCount, elapsed);
+        System.out.printf("Room ticks: %.0f/s of %.0f/s expected, scheduler CPU %.1f us per room tick%n",
+                ticks / elapsed, active * 60.0, cpu / 1e3 / Math.max(1, ticks));
+        if (watcherCount > 0) {
+            System.out.printf("Watchers received %.0f states/s%n", statesReceived.get() / elapsed);
+        }
+        server.report(System.out, 5);
+
+        for (Socket socket : watchers) {
+            socket.close();
+        }
+        server.close();
+    }
+
+    private static void readStates(Socket socket, AtomicLong received) {
+        byte[] state = new byte[PongSimulation.STATE_BYTES];
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            while (in.readByte() == GameServer.PACKET_STATE) {
+                in.readLong();
+                in.readFully(state);
+                received.incrementAndGet();
+            }
+        } catch (IOException e) {
+            // closed at the end of the run
+        }
+    }
+
+    private static long totalTicks(GameServer server) {
+        long ticks = 0;
+        for (Room room : server.getScheduler().getRooms()) {
+            ticks += room.getTicks();
+        }
+        return ticks;
+    }
+
+    /**
+     * @return CPU time used so far by the scheduler threads
+     */
+    private static long schedulerCpuNanos(ThreadMXBean bean) {
+        long total = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("Room scheduler")) {
+                total += Math.max(0, bean.getThreadCpuTime(thread.getId()));
+            }
+        }
+        return total;
+    }
+}
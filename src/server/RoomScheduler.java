@@ -0,0 +1,172 @@
+package server;
+
+import telemetry.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ticks many rooms from a small, fixed pool of scheduler threads.
+ * <p>
+ * Each thread owns a shard: a hashed timer wheel holding the rooms assigned to it, which it
+ * advances once per wheel tick, running every room that is due inline. Rooms are spread over
+ * the shards by id and never move, so no room state is shared between scheduler threads and
+ * the wheels need no locking. Other threads reach a shard only through its wake queue, used when
+ * a room is added, joined or restarted. A shard with nothing scheduled parks until it is woken,
+ * so idle and finished rooms cost no CPU at all.
+ */
+public class RoomScheduler {
+    // 1 ms wheel ticks and 512 slots: every 60 Hz deadline lands less than one revolution ahead
+    private static final long RESOLUTION_NANOS = 1_000_000L;
+    private static final int SLOTS = 512;
+
+    private final Shard[] shards;
+    private final List<Room> rooms = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * One scheduler thread with its own timer wheel.
+     */
+    static final class Shard implements Runnable {
+        private final TimerWheel wheel;
+        private final ConcurrentLinkedQueue<Room> woken = new ConcurrentLinkedQueue<>();
+        private final LatencyHistogram lag = new LatencyHistogram();
+        private final Thread thread;
+        private volatile boolean running = true;
+        private volatile long expired = 0;
+        private volatile int scheduled = 0;
+
+        Shard(int index) {
+            wheel = new TimerWheel(SLOTS, RESOLUTION_NANOS, System.nanoTime());
+            thread = new Thread(this, "Room scheduler " + index);
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                long now = System.nanoTime();
+                Room room;
+                while ((room = woken.poll()) != null) {
+                    room.wake(now);
+                }
+                expired += wheel.advance(now);
+                scheduled = wheel.size();
+                if (wheel.size() == 0) {
+                    LockSupport.park(this); // until a room is woken
+                } else {
+                    long wait = wheel.nextTickAt() - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(this, wait);
+                    }
+                }
+            }
+        }
+
+        void schedule(Room room, long deadline) {
+            wheel.schedule(room, deadline);
+        }
+
+        void recordLag(long nanos) {
+            lag.record(nanos);
+        }
+
+        /**
+         * Asks the scheduler thread to look at a room. Safe from any thread.
+         */
+        void wake(Room room) {
+            woken.add(room);
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * @param threads Number of scheduler threads
+     */
+    public RoomScheduler(int threads) {
+        shards = new Shard[threads];
+        for (int i = 0; i < threads; i++) {
+            shards[i] = new Shard(i);
+        }
+    }
+
+    /**
+     * Starts the scheduler threads.
+     */
+    public void start() {
+        for (Shard shard : shards) {
+            shard.thread.start();
+        }
+    }
+
+    /**
+     * Stops the scheduler threads. Rooms keep their state but no longer tick.
+     */
+    public void stop() throws InterruptedException {
+        for (Shard shard : shards) {
+            shard.running = false;
+            LockSupport.unpark(shard.thread);
+        }
+        for (Shard shard : shards) {
+            shard.thread.join(1000);
+        }
+    }
+
+    /**
+     * Assigns a room to a scheduler thread. It starts ticking once both paddles are controlled.
+     */
+    public void add(Room room) {
+        Shard shard = shards[Math.floorMod(room.getId(), shards.length)];
+        room.attach(shard);
+        rooms.add(room);
+        shard.wake(room);
+    }
+
+    /**
+     * @return Every room added so far
+     */
+    public List<Room> getRooms() {
+        synchronized (rooms) {
+            return new ArrayList<>(rooms);
+        }
+    }
+
+    /**
+     * @return Rooms currently in a timer wheel, i.e. ticking
+     */
+    public int getScheduledRooms() {
+        int n = 0;
+        for (Shard shard : shards) {
+            n += shard.scheduled;
+        }
+        return n;
+    }
+
+    /**
+     * @return Room ticks started by all scheduler threads, counting catch-up passes once
+     */
+    public long getExpiredTimers() {
+        long n = 0;
+        for (Shard shard : shards) {
+            n += shard.expired;
+        }
+        return n;
+    }
+
+    /**
+     * Combines the tick lag of every room so far: how late each room tick started after its
+     * deadline. Counts may be slightly stale while the scheduler runs.
+     */
+    public LatencyHistogram lagHistogram() {
+        LatencyHistogram total = new LatencyHistogram();
+        for (Shard shard : shards) {
+            total.add(shard.lag);
+        }
+        return total;
+    }
+
+    /** @return Number of scheduler threads */
+    public int getThreadCount() { return shards.length; }
+}
@@ -0,0 +1,141 @@
+package server;
+
+/**
+ * Hashed timer wheel for timers that fire on one thread.
+ * <p>
+ * Time is cut into ticks of a fixed resolution and a timer due at tick t sits in slot
+ * t % slots. Scheduling and cancelling are O(1), and advancing the wheel only looks at the slots
+ * whose ticks have passed, so the cost per wheel tick does not depend on how many timers are
+ * waiting further ahead. Timers are intrusive list nodes, so scheduling never allocates. Timers
+ * due more than one revolution ahead stay in their slot until their tick comes round.
+ * <p>
+ * Not thread-safe: only the thread that advances the wheel may schedule or cancel.
+ */
+final class TimerWheel {
+    /**
+     * A schedulable timer. Each timer is in the wheel at most once.
+     */
+    abstract static class Timer {
+        Timer next;
+        Timer prev;
+        long dueTick = -1; // -1 while not scheduled
+
+        /**
+         * Called by advance() once the timer is due. The timer is no longer scheduled and may
+         * schedule itself again.
+         * @param now System.nanoTime() at which the wheel was advanced
+         */
+        abstract void expire(long now);
+
+        /** @return True while the timer is in a wheel */
+        boolean isScheduled() { return dueTick >= 0; }
+    }
+
+    private final Timer[] slots;
+    private final int mask;
+    private final long resolutionNanos;
+    private final long origin;
+    private long currentTick = 0; // every tick below this has been expired
+    private int size = 0;
+
+    /**
+     * @param slotCount Number of slots, a power of two
+     * @param resolutionNanos Length of one wheel tick
+     * @param origin System.nanoTime() of wheel tick 0
+     */
+    TimerWheel(int slotCount, long resolutionNanos, long origin) {
+        if (Integer.bitCount(slotCount) != 1) {
+            throw new IllegalArgumentException("Slot count must be a power of two: " + slotCount);
+        }
+        this.slots = new Timer[slotCount];
+        this.mask = slotCount - 1;
+        this.resolutionNanos = resolutionNanos;
+        this.origin = origin;
+    }
+
+    /**
+     * Schedules a timer, rounding its deadline up to the next wheel tick. Deadlines in the past
+     * fire on the next advance().
+     * @param deadline System.nanoTime() value the timer is due at
+     */
+    void schedule(Timer timer, long deadline) {
+        if (timer.isScheduled()) {
+            cancel(timer);
+        }
+        long tick = Math.max(currentTick, -Math.floorDiv(origin - deadline, resolutionNanos));
+        timer.dueTick = tick;
+        int slot = (int) (tick & mask);
+        timer.prev = null;
+        timer.next = slots[slot];
+        if (timer.next != null) {
+            timer.next.prev = timer;
+        }
+        slots[slot] = timer;
+        size++;
+    }
+
+    /**
+     * Removes a timer if it is scheduled.
+     */
+    void cancel(Timer timer) {
+        if (!timer.isScheduled()) {
+            return;
+        }
+        unlink(timer, (int) (timer.dueTick & mask));
+    }
+
+    private void unlink(Timer timer, int slot) {
+        if (timer.prev != null) {
+            timer.prev.next = timer.next;
+        } else {
+            slots[slot] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.prev = timer.prev;
+        }
+        timer.next = null;
+        timer.prev = null;
+        timer.dueTick = -1;
+        size--;
+    }
+
+    /**
+     * Expires every timer due up to now. Timers rescheduled from expire() for a tick that has
+     * already passed fire on the next call, not this one. expire() must not cancel other timers.
+     * @return Number of timers expired
+     */
+    int advance(long now) {
+        long target = Math.floorDiv(now - origin, resolutionNanos);
+        int expired = 0;
+        // at most one revolution needs visiting, however long the thread was away
+        long first = Math.max(currentTick, target - mask);
+        // timers rescheduled from expire() land at target + 1 or later
+        currentTick = Math.max(currentTick, target + 1);
+        for (long tick = first; tick <= target && size > 0; tick++) {
+            int slot = (int) (tick & mask);
+            Timer timer = slots[slot];
+            while (timer != null) {
+                Timer next = timer.next;
+                if (timer.dueTick <= target) {
+                    unlink(timer, slot);
+                    expired++;
+                    timer.expire(now);
+                }
+                timer = next;
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * @return System.nanoTime() at which the next wheel tick starts
+     */
+    long nextTickAt() {
+        return origin + currentTick * resolutionNanos;
+    }
+
+    /** @return Number of scheduled timers */
+    int size() { return size; }
+    /** @return Length of one wheel tick */
+    long getResolutionNanos() { return resolutionNanos; }
+}
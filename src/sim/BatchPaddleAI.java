@@ -0,0 +1,88 @@
+package sim;
+
+/**
+ * Computer players for one side of every match in a BatchSimulation.
+ * <p>
+ * Applies the same rules as {@link PaddleAI} to each match, with the per-match AI state kept in
+ * flat arrays. Each decision is an O(1) prediction, so playing every match costs about as much
+ * as stepping it. Aim noise for match i comes from a generator seeded with
+ * BatchSimulation.matchSeed(seed, i), so match i plays like a PongSimulation driven by a
+ * PaddleAI with that seed.
+ */
+public class BatchPaddleAI {
+    private final BatchSimulation batch;
+    private final boolean left;
+    private final int reactionTicks;
+    private final double aimNoise;
+    private final int paddleX;
+
+    // Per-match AI state
+    private final long[] rngState;
+    private final int[] lastDirection;
+    private final int[] lastBallX;
+    private final int[] waiting; // ticks until the next prediction, -1 once made
+    private final double[] noise;
+    private final double[] target;
+
+    /**
+     * @param batch Matches to play
+     * @param left True to control the left paddles, false for the right ones
+     * @param difficulty Reaction delay and aim noise
+     * @param seed Seed for the per-match aim noise
+     */
+    public BatchPaddleAI(BatchSimulation batch, boolean left, PaddleAI.Difficulty difficulty, long seed) {
+        this.batch = batch;
+        this.left = left;
+        this.reactionTicks = difficulty.reactionTicks;
+        this.aimNoise = difficulty.aimNoise;
+        this.paddleX = left ? PongSimulation.PADDLE_OFFSET + PongSimulation.PADDLE_WIDTH
+                : batch.getWidth() - PongSimulation.PADDLE_OFFSET - PongSimulation.PADDLE_WIDTH - PongSimulation.BALL_SIZE;
+
+        int count = batch.getCount();
+        rngState = new long[count];
+        lastDirection = new int[count];
+        lastBallX = new int[count];
+        waiting = new int[count];
+        noise = new double[count];
+        target = new double[count];
+        for (int i = 0; i < count; i++) {
+            rngState[i] = BatchSimulation.matchSeed(seed, i);
+            target[i] = batch.getHeight() / 2.0;
+        }
+    }
+
+    /**
+     * Adds this tick's AI moves to the inputs of every match.
+     * @param inputs Input bitmask per match; the AI's bits are or-ed in
+     */
+    public void addInputs(int[] inputs) {
+        int height = batch.getHeight();
+        for (int i = 0; i < inputs.length && i < rngState.length; i++) {
+            if (batch.isGameOver(i)) {
+                continue;
+            }
+            int ballX = batch.getBallX(i);
+            double vx = batch.getVelocityX(i);
+            int direction = vx < 0 ? -1 : 1;
+            if (direction != lastDirection[i] || Math.abs(ballX - lastBallX[i]) > PaddleAI.SERVE_JUMP) {
+                waiting[i] = reactionTicks;
+                noise[i] = aimNoise * (Rng.nextDouble(rngState, i) * 2 - 1);
+            }
+            lastDirection[i] = direction;
+            lastBallX[i] = ballX;
+
+            if (waiting[i] == 0) {
+                target[i] = PaddleAI.targetY(ballX, batch.getBallY(i), vx, batch.getVelocityY(i), paddleX, left,
+                        height, false, noise[i], PongSimulation.DEFAULT_TICKS_PER_SECOND);
+            }
+            if (waiting[i] >= 0) {
+                waiting[i]--;
+            }
+            int paddleY = left ? batch.getLeftPaddleY(i) : batch.getRightPaddleY(i);
+            inputs[i] |= PaddleAI.move(paddleY, target[i], left);
+        }
+    }
+
+    /** @return True if this AI controls the left paddles */
+    public boolean isLeft() { return left; }
+}
@@ -0,0 +1,314 @@
+package sim;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs many independent Pong matches at once.
+ * <p>
+ * Instead of one Ball and two Paddle objects per match, the state of every match is kept in
+ * flat primitive arrays indexed by match number. Each tick applies the same rules as
+ * {@link PongSimulation#step(int)} (integer positions, wall bounce, swept paddle collision,
+ * paddle spin and scoring), and the batch is split into contiguous ranges that are stepped in
+ * parallel on a fork-join pool. Every match has its own seeded random generator, so results do
+ * not depend on how the batch was split across threads.
+ */
+public class BatchSimulation {
+    // Ball settings, matching objects.Ball
+    private static final double BASE_SPEED = 4.0;
+    private static final double MAX_SPEED = 8.0;
+    private static final double SPEED_UP = 1.001;
+
+    // Smallest number of matches handed to a single fork-join task
+    private static final int MIN_CHUNK = 256;
+
+    private final int count;
+    private final int width;
+    private final int height;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    // Per-match state
+    private final int[] ballX;
+    private final int[] ballY;
+    private final double[] velocityX;
+    private final double[] velocityY;
+    private final int[] leftY;
+    private final int[] rightY;
+    private final int[] leftScore;
+    private final int[] rightScore;
+    private final boolean[] gameOver;
+    private final long[] rngState;
+    private final int[] completed;
+
+    private boolean autoRestart = false;
+
+    /**
+     * Constructs a batch of matches on the default field, stepped on the common fork-join pool.
+     * @param count Number of matches
+     * @param seed Seed for the per-match random generators
+     */
+    public BatchSimulation(int count, long seed) {
+        this(count, PongSimulation.DEFAULT_WIDTH, PongSimulation.DEFAULT_HEIGHT, seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a batch of matches.
+     * @param count Number of matches
+     * @param width Width of the playing field in pixels
+     * @param height Height of the playing field in pixels
+     * @param seed Seed for the per-match random generators
+     * @param pool Pool used to step the matches in parallel
+     */
+    public BatchSimulation(int count, int width, int height, long seed, ForkJoinPool pool) {
+        this.count = count;
+        this.width = width;
+        this.height = height;
+        this.pool = pool;
+        // a few chunks per worker so stragglers can be stolen
+        this.chunkSize = Math.max(MIN_CHUNK, count / (pool.getParallelism() * 4) + 1);
+
+        ballX = new int[count];
+        ballY = new int[count];
+        velocityX = new double[count];
+        velocityY = new double[count];
+        leftY = new int[count];
+        rightY = new int[count];
+        leftScore = new int[count];
+        rightScore = new int[count];
+        gameOver = new boolean[count];
+        rngState = new long[count];
+        completed = new int[count];
+
+        for (int i = 0; i < count; i++) {
+            rngState[i] = matchSeed(seed, i);
+            restart(i);
+        }
+    }
+
+    /**
+     * Returns the seed of match i. A PongSimulation constructed with this seed plays exactly the
+     * same match as index i of the batch, given the same inputs.
+     * @param seed Seed passed to the batch
+     * @param i Match index
+     */
+    public static long matchSeed(long seed, int i) {
+        return seed + i * Rng.GOLDEN_GAMMA;
+    }
+
+    /**
+     * Advances every match by one tick.
+     * @param inputs Input bitmask per match, as for PongSimulation.step
+     */
+    public void step(int[] inputs) {
+        run(inputs, 1);
+    }
+
+    /**
+     * Advances every match by the given number of ticks while holding the same inputs.
+     * Each worker runs all ticks for its range of matches before moving on.
+     * @param inputs Input bitmask per match, as for PongSimulation.step
+     * @param ticks Number of ticks to simulate
+     */
+    public void run(int[] inputs, int ticks) {
+        if (inputs.length < count) {
+            throw new IllegalArgumentException("Expected " + count + " inputs, got " + inputs.length);
+        }
+        pool.invoke(new StepTask(inputs, ticks, 0, count));
+    }
+
+    /**
+     * Steps the matches in [from, to) sequentially on the calling thread.
+     */
+    private void stepRange(int[] inputs, int ticks, int from, int to) {
+        Collision.Hit hit = new Collision.Hit();
+        for (int i = from; i < to; i++) {
+            int in = inputs[i];
+            for (int t = 0; t < ticks; t++) {
+                stepMatch(i, in, hit);
+            }
+        }
+    }
+
+    /**
+     * Advances match i by one tick, mirroring PongSimulation.step.
+     */
+    private void stepMatch(int i, int inputs, Collision.Hit hit) {
+        if (gameOver[i]) {
+            if ((inputs & PongSimulation.RESTART) != 0 || autoRestart) {
+                restart(i);
+            }
+            return;
+        }
+
+        final int paddleHeight = PongSimulation.PADDLE_HEIGHT;
+        final int paddleWidth = PongSimulation.PADDLE_WIDTH;
+        final int speed = PongSimulation.PADDLE_SPEED;
+        final int size = PongSimulation.BALL_SIZE;
+
+        // Paddle movement and bounds
+        int ly = leftY[i];
+        int ry = rightY[i];
+        if ((inputs & PongSimulation.LEFT_UP) != 0) ly -= speed;
+        if ((inputs & PongSimulation.LEFT_DOWN) != 0) ly += speed;
+        if ((inputs & PongSimulation.RIGHT_UP) != 0) ry -= speed;
+        if ((inputs & PongSimulation.RIGHT_DOWN) != 0) ry += speed;
+        if (ly < 0) ly = 0;
+        if (ly + paddleHeight > height) ly = height - paddleHeight;
+        if (ry < 0) ry = 0;
+        if (ry + paddleHeight > height) ry = height - paddleHeight;
+        leftY[i] = ly;
+        rightY[i] = ry;
+
+        // Ball movement, truncated to whole pixels like Ball.update
+        double vx = velocityX[i];
+        double vy = velocityY[i];
+        int previousX = ballX[i];
+        int previousY = ballY[i];
+        int bx = (int) (previousX + vx);
+        int by = (int) (previousY + vy);
+        if (Math.abs(vx) < MAX_SPEED) {
+            vx *= SPEED_UP;
+        }
+
+        // Top/bottom walls
+        if (by <= 0 || by + size >= height) {
+            vy = -vy;
+        }
+
+        // Paddles, both swept against the ball's move before either response
+        int leftX = PongSimulation.PADDLE_OFFSET;
+        int rightX = width - PongSimulation.PADDLE_OFFSET - paddleWidth;
+        int dx = bx - previousX;
+        int dy = by - previousY;
+        // spin comes from where the ball met the paddle, not where the tick left it
+        boolean hitLeft = Collision.sweep(previousX, previousY, size, size, dx, dy,
+                leftX, ly, paddleWidth, paddleHeight, hit);
+        int leftContactY = (int) (previousY + dy * hit.time);
+        boolean hitRight = Collision.sweep(previousX, previousY, size, size, dx, dy,
+                rightX, ry, paddleWidth, paddleHeight, hit);
+        int rightContactY = (int) (previousY + dy * hit.time);
+        if (hitLeft) {
+            vx = -vx;
+            bx = leftX + paddleWidth + 1;
+            vy = spin(vy, leftContactY, ly);
+        }
+        if (hitRight) {
+            vx = -vx;
+            bx = rightX - size - 1;
+            vy = spin(vy, rightContactY, ry);
+        }
+
+        ballX[i] = bx;
+        ballY[i] = by;
+        velocityX[i] = vx;
+        velocityY[i] = vy;
+
+        // Scoring
+        if (bx < -size) {
+            rightScore[i]++;
+            resetBall(i, 1);
+            checkGameOver(i);
+        } else if (bx > width) {
+            leftScore[i]++;
+            resetBall(i, -1);
+            checkGameOver(i);
+        }
+    }
+
+    /**
+     * Applies paddle spin to the Y velocity, like PongSimulation.addSpin and Ball.adjustYVelocity.
+     * @param ballY Ball's top edge where it met the paddle
+     */
+    private static double spin(double vy, int ballY, int paddleY) {
+        int centerY = ballY + PongSimulation.BALL_SIZE / 2;
+        double relativeHitPos = (centerY - paddleY) / PongSimulation.PADDLE_HEIGHT;
+        double spinFactor = (relativeHitPos - 0.5) * 2.0;
+        vy += spinFactor * 2;
+        if (vy > MAX_SPEED) vy = MAX_SPEED;
+        if (vy < -MAX_SPEED) vy = -MAX_SPEED;
+        return vy;
+    }
+
+    private void resetBall(int i, int direction) {
+        ballX[i] = width / 2 - PongSimulation.BALL_SIZE / 2;
+        ballY[i] = height / 2 - PongSimulation.BALL_SIZE / 2;
+        velocityX[i] = BASE_SPEED * direction;
+        velocityY[i] = (Rng.nextDouble(rngState, i) - 0.5) * 2;
+    }
+
+    private void checkGameOver(int i) {
+        if (leftScore[i] >= PongSimulation.WINNING_SCORE || rightScore[i] >= PongSimulation.WINNING_SCORE) {
+            gameOver[i] = true;
+            completed[i]++;
+        }
+    }
+
+    private void restart(int i) {
+        leftScore[i] = 0;
+        rightScore[i] = 0;
+        gameOver[i] = false;
+        leftY[i] = height / 2 - PongSimulation.PADDLE_HEIGHT / 2;
+        rightY[i] = height / 2 - PongSimulation.PADDLE_HEIGHT / 2;
+        resetBall(i, -1);
+    }
+
+    /**
+     * Fork-join task that splits a range of matches until it is small enough to step directly.
+     */
+    private final class StepTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] inputs;
+        private final int ticks;
+        private final int from;
+        private final int to;
+
+        StepTask(int[] inputs, int ticks, int from, int to) {
+            this.inputs = inputs;
+            this.ticks = ticks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                stepRange(inputs, ticks, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new StepTask(inputs, ticks, from, mid), new StepTask(inputs, ticks, mid, to));
+        }
+    }
+
+    // --- Getters / Setters ---
+    /**
+     * When enabled, a finished match restarts on its next tick without needing the RESTART input.
+     */
+    public void setAutoRestart(boolean option) {
+        this.autoRestart = option;
+    }
+
+    /** @return Total number of matches finished across the batch */
+    public long getCompletedMatches() {
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            total += completed[i];
+        }
+        return total;
+    }
+
+    public int getCount() { return count; }
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public int getBallX(int i) { return ballX[i]; }
+    public int getBallY(int i) { return ballY[i]; }
+    public double getVelocityX(int i) { return velocityX[i]; }
+    public double getVelocityY(int i) { return velocityY[i]; }
+    public int getLeftPaddleY(int i) { return leftY[i]; }
+    public int getRightPaddleY(int i) { return rightY[i]; }
+    public int getLeftScore(int i) { return leftScore[i]; }
+    public int getRightScore(int i) { return rightScore[i]; }
+    public boolean isGameOver(int i) { return gameOver[i]; }
+}
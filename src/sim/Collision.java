@@ -0,0 +1,127 @@
+package sim;
+
+/**
+ * Allocation-free axis-aligned box collision tests on primitive coordinates.
+ * <p>
+ * {@link #sweep} moves one box along a displacement and finds the exact fraction of the move at
+ * which it first overlaps a stationary box, so fast objects cannot pass through thin ones between
+ * ticks. Overlap is strict, like {@code java.awt.Rectangle.intersects}: boxes that only touch do
+ * not collide.
+ */
+public final class Collision {
+    // Side of the stationary box that was hit, as returned by GDV5.collisionDirection
+    public static final int RIGHT = 0;
+    public static final int TOP = 1;
+    public static final int LEFT = 2;
+    public static final int BOTTOM = 3;
+
+    private Collision() {
+    }
+
+    /**
+     * Result of a swept test. Callers keep one instance and reuse it.
+     */
+    public static final class Hit {
+        /** Fraction of the displacement at which the boxes first overlap, in [0, 1) */
+        public double time;
+        /** Side of the stationary box that was hit (RIGHT, TOP, LEFT or BOTTOM) */
+        public int side;
+    }
+
+    /**
+     * Tests whether two boxes overlap.
+     * @return True if the interiors of the boxes intersect
+     */
+    public static boolean intersects(double ax, double ay, double aw, double ah,
+                                     double bx, double by, double bw, double bh) {
+        return ax < bx + bw && bx < ax + aw && ay < by + bh && by < ay + ah;
+    }
+
+    /**
+     * Sweeps box A from (ax, ay) by (dx, dy) against the stationary box B.
+     * <p>
+     * A collision is reported when A overlaps B at any point during the move and still
+     * overlaps it at the end, or enters it part way through. A box that starts inside B and
+     * leaves it during the move is not reported.
+     * @param hit Receives the time of impact and the side of B that was hit
+     * @return True if the boxes collide during the move
+     */
+    public static boolean sweep(double ax, double ay, double aw, double ah, double dx, double dy,
+                                double bx, double by, double bw, double bh, Hit hit) {
+        // cheap rejection first: the box covering the whole move misses B
+        return intersects(dx < 0 ? ax + dx : ax, dy < 0 ? ay + dy : ay,
+                aw + Math.abs(dx), ah + Math.abs(dy), bx, by, bw, bh)
+                && sweepSide(ax, ay, aw, ah, dx, dy, bx, by, bw, bh, hit) >= 0;
+    }
+
+    /**
+     * Shared body of sweep and direction.
+     * @param hit Receives the time of impact and the side of B that was hit, may be null
+     * @return Side of B that was hit, or -1 if there was no collision
+     */
+    private static int sweepSide(double ax, double ay, double aw, double ah, double dx, double dy,
+                                 double bx, double by, double bw, double bh, Hit hit) {
+        double xEntry;
+        double xExit;
+        if (dx == 0) {
+            if (!(ax < bx + bw && bx < ax + aw)) {
+                return -1;
+            }
+            xEntry = Double.NEGATIVE_INFINITY;
+            xExit = Double.POSITIVE_INFINITY;
+        } else {
+            double t1 = (bx - (ax + aw)) / dx;
+            double t2 = (bx + bw - ax) / dx;
+            xEntry = Math.min(t1, t2);
+            xExit = Math.max(t1, t2);
+        }
+
+        double yEntry;
+        double yExit;
+        if (dy == 0) {
+            if (!(ay < by + bh && by < ay + ah)) {
+                return -1;
+            }
+            yEntry = Double.NEGATIVE_INFINITY;
+            yExit = Double.POSITIVE_INFINITY;
+        } else {
+            double t1 = (by - (ay + ah)) / dy;
+            double t2 = (by + bh - ay) / dy;
+            yEntry = Math.min(t1, t2);
+            yExit = Math.max(t1, t2);
+        }
+
+        double entry = Math.max(xEntry, yEntry);
+        double exit = Math.min(xExit, yExit);
+        if (entry >= exit || entry >= 1 || exit <= 0) {
+            return -1;
+        }
+        if (entry < 0 && exit <= 1) {
+            // started inside and left again: not a new contact
+            return -1;
+        }
+
+        int side;
+        if (xEntry >= yEntry) {
+            side = dx > 0 ? LEFT : RIGHT;
+        } else {
+            side = dy > 0 ? TOP : BOTTOM;
+        }
+        if (hit != null) {
+            hit.time = Math.max(0, entry);
+            hit.side = side;
+        }
+        return side;
+    }
+
+    /**
+     * Works out which side of a stationary box a projectile hit, given the projectile's current
+     * position and its displacement over the last move.
+     * @return RIGHT, TOP, LEFT or BOTTOM; RIGHT if the side cannot be determined
+     */
+    public static int direction(int sx, int sy, int sw, int sh,
+                                int px, int py, int pw, int ph, int dx, int dy) {
+        int side = sweepSide(px - dx, py - dy, pw, ph, dx, dy, sx, sy, sw, sh, null);
+        return side < 0 ? RIGHT : side;
+    }
+}
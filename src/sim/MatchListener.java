@@ -0,0 +1,61 @@
+package sim;
+
+/**
+ * Receives the events of a PongSimulation as they happen, on the thread stepping it.
+ * <p>
+ * Every event is a call with primitive arguments, so reporting one allocates nothing; a
+ * listener that needs to keep events must copy them out. Listeners run inside step() and should
+ * return quickly. Every method does nothing by default.
+ */
+public interface MatchListener {
+    /**
+     * The ball bounced off a paddle.
+     * @param tick Tick the hit happened in
+     * @param left True for the left paddle, false for the right one
+     * @param spinFactor Spin the hit added, as a multiple of the full spin; worked out in whole
+     * pixels from where the ball met the paddle, so it is -1, or 1 if the ball's center met it
+     * below its bottom edge
+     * @param hitPosition Ball's center relative to the paddle's top edge where the ball met the
+     * paddle, in pixels; from 0 to PADDLE_HEIGHT on the paddle, and up to half a ball beyond on
+     * its corners
+     * @param speed Ball's speed after the hit, in pixels per second
+     */
+    default void onPaddleHit(long tick, boolean left, double spinFactor, double hitPosition, double speed) {
+    }
+
+    /**
+     * The ball bounced off the top or bottom wall.
+     * @param tick Tick the bounce happened in
+     * @param top True for the top wall, false for the bottom one
+     * @param ballX Ball's left edge at the bounce
+     */
+    default void onWallBounce(long tick, boolean top, int ballX) {
+    }
+
+    /**
+     * A player scored; the ball has been served again.
+     * @param tick Tick the ball left the field in
+     * @param left True if the left player scored
+     * @param leftScore Left player's score after the point
+     * @param rightScore Right player's score after the point
+     */
+    default void onPoint(long tick, boolean left, int leftScore, int rightScore) {
+    }
+
+    /**
+     * A player reached WINNING_SCORE; follows the winning point.
+     * @param tick Tick of the winning point
+     * @param leftWon True if the left player won
+     * @param leftScore Final left score
+     * @param rightScore Final right score
+     */
+    default void onGameOver(long tick, boolean leftWon, int leftScore, int rightScore) {
+    }
+
+    /**
+     * A new match started after a game over.
+     * @param tick Tick of the restart
+     */
+    default void onRestart(long tick) {
+    }
+}
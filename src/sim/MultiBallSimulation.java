@@ -0,0 +1,311 @@
+package sim;
+
+import java.util.Arrays;
+
+/**
+ * Pong with many balls at once, as a stress test for the collision and render paths.
+ * <p>
+ * Ball state is kept in flat primitive arrays. Balls bounce off the top and bottom walls, the
+ * two paddles and each other (as equal-mass circles); a ball that leaves the field scores for
+ * the opposite side and is served again from the center line. Ball-vs-ball candidates come from
+ * a uniform grid rebuilt every tick with a counting sort, so each ball is only tested against
+ * the few balls in its own and neighbouring cells and the cost grows roughly linearly with the
+ * ball count. The naive all-pairs test can be switched on for comparison.
+ */
+public class MultiBallSimulation {
+    private static final double MIN_SPEED = 2.0;
+    private static final double MAX_SPEED = 4.0;
+    // Grid cells are at least one ball wide, so touching balls are always in adjacent cells
+    private static final int CELL_SIZE = 16;
+
+    private final int width;
+    private final int height;
+    private final int count;
+    private final int size;
+    private final Rng rng;
+
+    // Per-ball state
+    private final double[] x;
+    private final double[] y;
+    private final double[] vx;
+    private final double[] vy;
+
+    // Uniform grid: balls sorted by cell, cellStart[c]..cellStart[c + 1] indexes into cellBalls
+    private final int columns;
+    private final int rows;
+    private final int[] cellOf;
+    private final int[] cellStart;
+    private final int[] cellFill;
+    private final int[] cellBalls;
+    private boolean broadphase = true;
+
+    private int leftPaddleY;
+    private int rightPaddleY;
+    private int leftScore = 0;
+    private int rightScore = 0;
+    private long tick = 0;
+    private long pairTests = 0;
+    private long contacts = 0;
+
+    /**
+     * @param width Width of the playing field in pixels
+     * @param height Height of the playing field in pixels
+     * @param count Number of balls
+     * @param seed Seed for the initial layout and serves
+     */
+    public MultiBallSimulation(int width, int height, int count, long seed) {
+        this.width = width;
+        this.height = height;
+        this.count = count;
+        this.size = PongSimulation.BALL_SIZE;
+        this.rng = new Rng(seed);
+        x = new double[count];
+        y = new double[count];
+        vx = new double[count];
+        vy = new double[count];
+
+        columns = (width + CELL_SIZE - 1) / CELL_SIZE;
+        rows = (height + CELL_SIZE - 1) / CELL_SIZE;
+        cellOf = new int[count];
+        cellStart = new int[columns * rows + 1];
+        cellFill = new int[columns * rows];
+        cellBalls = new int[count];
+
+        leftPaddleY = height / 2 - PongSimulation.PADDLE_HEIGHT / 2;
+        rightPaddleY = leftPaddleY;
+        layOut();
+    }
+
+    /**
+     * Spreads the balls over a grid in the middle of the field, each moving in a random direction.
+     */
+    private void layOut() {
+        int left = PongSimulation.PADDLE_OFFSET + PongSimulation.PADDLE_WIDTH + size;
+        int usable = width - 2 * left;
+        int spacing = size + 2;
+        int perRow = Math.max(1, usable / spacing);
+        for (int i = 0; i < count; i++) {
+            int row = i / perRow;
+            x[i] = left + (i % perRow) * spacing + (usable - perRow * spacing) / 2.0;
+            y[i] = (row * spacing) % Math.max(spacing, height - size);
+            randomVelocity(i, rng.nextDouble() < 0.5 ? -1 : 1);
+        }
+    }
+
+    private void randomVelocity(int i, int direction) {
+        double speed = MIN_SPEED + rng.nextDouble() * (MAX_SPEED - MIN_SPEED);
+        // keep within 60 degrees of horizontal so rallies keep moving
+        double angle = (rng.nextDouble() - 0.5) * (Math.PI * 2 / 3);
+        vx[i] = Math.cos(angle) * speed * direction;
+        vy[i] = Math.sin(angle) * speed;
+    }
+
+    /**
+     * Advances every ball by one tick.
+     * @param inputs Bitmask of LEFT_UP, LEFT_DOWN, RIGHT_UP and RIGHT_DOWN, as for PongSimulation
+     */
+    public void step(int inputs) {
+        tick++;
+        leftPaddleY = movePaddle(leftPaddleY, inputs, PongSimulation.LEFT_UP, PongSimulation.LEFT_DOWN);
+        rightPaddleY = movePaddle(rightPaddleY, inputs, PongSimulation.RIGHT_UP, PongSimulation.RIGHT_DOWN);
+
+        int leftEdge = PongSimulation.PADDLE_OFFSET + PongSimulation.PADDLE_WIDTH;
+        int rightEdge = width - PongSimulation.PADDLE_OFFSET - PongSimulation.PADDLE_WIDTH;
+        for (int i = 0; i < count; i++) {
+            double bx = x[i] + vx[i];
+            double by = y[i] + vy[i];
+
+            // Top/bottom walls, reflecting the position so balls never stay outside
+            if (by < 0) {
+                by = -by;
+                vy[i] = Math.abs(vy[i]);
+            } else if (by + size > height) {
+                by = 2 * (height - size) - by;
+                vy[i] = -Math.abs(vy[i]);
+            }
+
+            // Paddles
+            if (vx[i] < 0 && Collision.intersects(bx, by, size, size, PongSimulation.PADDLE_OFFSET, leftPaddleY,
+                    PongSimulation.PADDLE_WIDTH, PongSimulation.PADDLE_HEIGHT)) {
+                vx[i] = -vx[i];
+                bx = leftEdge;
+            } else if (vx[i] > 0 && Collision.intersects(bx, by, size, size, rightEdge, rightPaddleY,
+                    PongSimulation.PADDLE_WIDTH, PongSimulation.PADDLE_HEIGHT)) {
+                vx[i] = -vx[i];
+                bx = rightEdge - size;
+            }
+
+            // Scoring: serve again from the center line toward the side that conceded
+            if (bx < -size) {
+                rightScore++;
+                serve(i, -1);
+                continue;
+            } else if (bx > width) {
+                leftScore++;
+                serve(i, 1);
+                continue;
+            }
+            x[i] = bx;
+            y[i] = by;
+        }
+
+        if (broadphase) {
+            collideGrid();
+        } else {
+            collideAllPairs();
+        }
+    }
+
+    private int movePaddle(int paddleY, int inputs, int up, int down) {
+        if ((inputs & up) != 0) paddleY -= PongSimulation.PADDLE_SPEED;
+        if ((inputs & down) != 0) paddleY += PongSimulation.PADDLE_SPEED;
+        return Math.max(0, Math.min(height - PongSimulation.PADDLE_HEIGHT, paddleY));
+    }
+
+    private void serve(int i, int direction) {
+        x[i] = width / 2.0 - size / 2.0;
+        y[i] = rng.nextDouble() * (height - size);
+        randomVelocity(i, direction);
+    }
+
+    /**
+     * Sorts the balls into grid cells, then tests each ball against the balls in its own cell
+     * and in four of its eight neighbours, which covers every adjacent pair exactly once.
+     */
+    private void collideGrid() {
+        Arrays.fill(cellStart, 0);
+        for (int i = 0; i < count; i++) {
+            int cx = Math.max(0, Math.min(columns - 1, (int) (x[i] + size / 2.0) / CELL_SIZE));
+            int cy = Math.max(0, Math.min(rows - 1, (int) (y[i] + size / 2.0) / CELL_SIZE));
+            int cell = cy * columns + cx;
+            cellOf[i] = cell;
+            cellStart[cell + 1]++;
+        }
+        for (int c = 0; c < columns * rows; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        System.arraycopy(cellStart, 0, cellFill, 0, cellFill.length);
+        for (int i = 0; i < count; i++) {
+            cellBalls[cellFill[cellOf[i]]++] = i;
+        }
+
+        for (int cy = 0; cy < rows; cy++) {
+            for (int cx = 0; cx < columns; cx++) {
+                int cell = cy * columns + cx;
+                int end = cellStart[cell + 1];
+                for (int a = cellStart[cell]; a < end; a++) {
+                    int i = cellBalls[a];
+                    for (int b = a + 1; b < end; b++) {
+                        collide(i, cellBalls[b]);
+                    }
+                    if (cx + 1 < columns) {
+                        collideCell(i, cell + 1);
+                    }
+                    if (cy + 1 < rows) {
+                        if (cx > 0) {
+                            collideCell(i, cell + columns - 1);
+                        }
+                        collideCell(i, cell + columns);
+                        if (cx + 1 < columns) {
+                            collideCell(i, cell + columns + 1);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void collideCell(int i, int cell) {
+        int end = cellStart[cell + 1];
+        for (int b = cellStart[cell]; b < end; b++) {
+            collide(i, cellBalls[b]);
+        }
+    }
+
+    private void collideAllPairs() {
+        for (int i = 0; i < count; i++) {
+            for (int j = i + 1; j < count; j++) {
+                collide(i, j);
+            }
+        }
+    }
+
+    /**
+     * Bounces two balls off each other if they overlap and are approaching: equal-mass circles
+     * swap their velocity components along the line between their centers, and are pushed
+     * apart so they do not stay stuck together.
+     */
+    private void collide(int i, int j) {
+        pairTests++;
+        double dx = x[j] - x[i];
+        double dy = y[j] - y[i];
+        double distSq = dx * dx + dy * dy;
+        if (distSq >= size * size || distSq == 0) {
+            return;
+        }
+        contacts++;
+        double dist = Math.sqrt(distSq);
+        double nx = dx / dist;
+        double ny = dy / dist;
+        double push = (size - dist) / 2;
+        x[i] -= nx * push;
+        y[i] -= ny * push;
+        x[j] += nx * push;
+        y[j] += ny * push;
+
+        double approach = (vx[i] - vx[j]) * nx + (vy[i] - vy[j]) * ny;
+        if (approach > 0) {
+            vx[i] -= approach * nx;
+            vy[i] -= approach * ny;
+            vx[j] += approach * nx;
+            vy[j] += approach * ny;
+        }
+    }
+
+    /**
+     * Chooses between the grid broadphase and testing every pair of balls.
+     * @param option True for the grid (the default), false for all pairs
+     */
+    public void setBroadphase(boolean option) {
+        this.broadphase = option;
+    }
+
+    /**
+     * Checks the field for overlapping balls the slow way. Used to confirm the broadphase
+     * misses no contacts.
+     * @return Number of overlapping pairs
+     */
+    public int countOverlaps() {
+        int overlaps = 0;
+        for (int i = 0; i < count; i++) {
+            for (int j = i + 1; j < count; j++) {
+                double dx = x[j] - x[i];
+                double dy = y[j] - y[i];
+                if (dx * dx + dy * dy < size * size) {
+                    overlaps++;
+                }
+            }
+        }
+        return overlaps;
+    }
+
+    // Getters
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    /** @return Number of balls */
+    public int getCount() { return count; }
+    /** @return Ball diameter */
+    public int getBallSize() { return size; }
+    public double getBallX(int i) { return x[i]; }
+    public double getBallY(int i) { return y[i]; }
+    public int getLeftPaddleY() { return leftPaddleY; }
+    public int getRightPaddleY() { return rightPaddleY; }
+    public int getLeftScore() { return leftScore; }
+    public int getRightScore() { return rightScore; }
+    public long getTick() { return tick; }
+    public boolean isBroadphase() { return broadphase; }
+    /** @return Ball pairs tested so far */
+    public long getPairTests() { return pairTests; }
+    /** @return Ball pairs found touching so far */
+    public long getContacts() { return contacts; }
+}
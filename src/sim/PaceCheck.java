@@ -0,0 +1,70 @@
+package sim;
+
+/**
+ * Checks that the physics rate does not change how fast the game plays.
+ * <p>
+ * For each tick rate a sub-pixel match, as PongGame plays it, is stepped for half a second of
+ * game time: once untouched, measuring how far the serve carries the ball, and once with the
+ * left paddle held up, measuring how far the paddle moves. Both distances must match the 60 Hz
+ * ones to within TOLERANCE_PIXELS. The whole-pixel 60 Hz match of the headless default is
+ * printed for comparison but not checked: it truncates every move toward zero, so a ball going
+ * left covers a whole pixel more per tick than one going right.
+ * <p>
+ * Usage: {@code java -cp out sim.PaceCheck [rate...]}
+ * <br>
+ * Exits with 1 if any rate plays at a different pace.
+ */
+public class PaceCheck {
+    private static final int[] DEFAULT_RATES = {60, 90, 120, 144, 240, 1000};
+    private static final double SECONDS = 0.5;
+    // The speed-up compounds per tick, so rates differ slightly in how they sum it up
+    private static final double TOLERANCE_PIXELS = 0.5;
+    private static final long SEED = 42;
+
+    public static void main(String[] args) {
+        int[] rates = DEFAULT_RATES;
+        if (args.length > 0) {
+            rates = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                rates[i] = Integer.parseInt(args[i]);
+            }
+        }
+        System.out.printf("Travel in %.1f s of game time, tolerance %.1f px%n", SECONDS, TOLERANCE_PIXELS);
+        System.out.printf("%-22s %10s %10s %s%n", "rate", "ball px", "paddle px", "");
+        double[] whole = travel(PongSimulation.DEFAULT_TICKS_PER_SECOND, false);
+        System.out.printf("%-22s %10.1f %10.1f %s%n", "60 Hz whole-pixel", whole[0], whole[1], "(not checked)");
+        double[] reference = travel(PongSimulation.DEFAULT_TICKS_PER_SECOND, true);
+        boolean failed = false;
+        for (int rate : rates) {
+            double[] t = travel(rate, true);
+            boolean ok = Math.abs(t[0] - reference[0]) <= TOLERANCE_PIXELS
+                    && Math.abs(t[1] - reference[1]) <= TOLERANCE_PIXELS;
+            failed |= !ok;
+            System.out.printf("%-22s %10.1f %10.1f %s%n", rate + " Hz sub-pixel", t[0], t[1], ok ? "ok" : "DIFFERENT PACE");
+        }
+        System.exit(failed ? 1 : 0);
+    }
+
+    /**
+     * @return Distance the ball travels from the serve and the distance the held paddle moves
+     */
+    private static double[] travel(int ticksPerSecond, boolean subPixel) {
+        int ticks = (int) Math.round(SECONDS * ticksPerSecond);
+        PongSimulation sim = new PongSimulation(PongSimulation.DEFAULT_WIDTH, PongSimulation.DEFAULT_HEIGHT, SEED,
+                subPixel, ticksPerSecond);
+        double ballX = sim.getBall().getExactX();
+        for (int i = 0; i < ticks; i++) {
+            sim.step(0);
+        }
+        double ball = Math.abs(sim.getBall().getExactX() - ballX);
+
+        sim = new PongSimulation(PongSimulation.DEFAULT_WIDTH, PongSimulation.DEFAULT_HEIGHT, SEED, subPixel,
+                ticksPerSecond);
+        double paddleY = sim.getLeftPaddle().getExactY();
+        for (int i = 0; i < ticks; i++) {
+            sim.step(PongSimulation.LEFT_UP);
+        }
+        double paddle = Math.abs(sim.getLeftPaddle().getExactY() - paddleY);
+        return new double[]{ball, paddle};
+    }
+}
@@ -0,0 +1,307 @@
+package sim;
+
+/**
+ * Computer player for one paddle.
+ * <p>
+ * The AI predicts where the ball will reach its paddle in closed form: the time to cover the
+ * horizontal distance follows from the ball's geometric speed-up, and the vertical position
+ * after that time is found by folding the top and bottom wall bounces over one period of the
+ * ball's up-and-down motion. Prediction is O(1) no matter how far away the ball is or how often
+ * it bounces, so it never steps the simulation ahead.
+ * <p>
+ * Difficulty comes only from a reaction delay (ticks after each paddle hit or serve before the
+ * AI notices the new trajectory) and aim noise (a random offset from the predicted point, drawn
+ * once per approach from the AI's own seeded generator), so a match with AI players replays
+ * exactly from its seeds. The prediction is made once per trajectory, when the reaction delay
+ * runs out; on other ticks the AI only steers toward its target.
+ * <p>
+ * Reaction delays are given in ticks at the default 60 ticks per second and the prediction
+ * works in the match's own ticks, so the AI plays the same at any tick rate.
+ */
+public final class PaddleAI implements PaddleController {
+    // Ball settings per tick at the default tick rate, matching objects.Ball
+    private static final double MAX_SPEED = 8.0;
+    private static final double SPEED_UP = 1.001;
+    private static final double LOG_SPEED_UP = Math.log(SPEED_UP);
+
+    // A ball move longer than this between two ticks means it was served again
+    static final int SERVE_JUMP = 50;
+
+    /**
+     * Preset reaction delays and aim noise.
+     */
+    public enum Difficulty {
+        EASY(30, 65),
+        NORMAL(15, 55),
+        HARD(6, 48),
+        PERFECT(0, 0);
+
+        final int reactionTicks;
+        final double aimNoise;
+
+        Difficulty(int reactionTicks, double aimNoise) {
+            this.reactionTicks = reactionTicks;
+            this.aimNoise = aimNoise;
+        }
+
+        /** @return Ticks after a paddle hit or serve before the AI reacts */
+        public int getReactionTicks() { return reactionTicks; }
+        /** @return Largest aim offset in pixels */
+        public double getAimNoise() { return aimNoise; }
+    }
+
+    private final boolean left;
+    private final int reactionTicks;
+    private final double aimNoise;
+    private final Rng rng;
+
+    private int lastDirection = 0;
+    private int lastBallX = 0;
+    private int waiting = -1; // ticks until the next prediction, -1 once made
+    private double noise = 0;
+    private double target = Double.NaN;
+
+    /**
+     * @param left True to control the left paddle, false for the right one
+     * @param difficulty Reaction delay and aim noise
+     * @param seed Seed for the aim noise
+     */
+    public PaddleAI(boolean left, Difficulty difficulty, long seed) {
+        this(left, difficulty.reactionTicks, difficulty.aimNoise, seed);
+    }
+
+    /**
+     * @param left True to control the left paddle, false for the right one
+     * @param reactionTicks Ticks after a paddle hit or serve before the AI reacts
+     * @param aimNoise Largest random offset in pixels from the predicted point
+     * @param seed Seed for the aim noise
+     */
+    public PaddleAI(boolean left, int reactionTicks, double aimNoise, long seed) {
+        this.left = left;
+        this.reactionTicks = reactionTicks;
+        this.aimNoise = aimNoise;
+        this.rng = new Rng(seed);
+    }
+
+    /**
+     * Decides this tick's move from the current match state.
+     * @param sim Match to play
+     * @return LEFT_UP/LEFT_DOWN or RIGHT_UP/RIGHT_DOWN input bits for this AI's paddle, or 0
+     */
+    public int inputs(PongSimulation sim) {
+        if (sim.isGameOver()) {
+            return 0;
+        }
+        int ballX = sim.getBall().getX();
+        double vx = sim.getBall().getVelocityX();
+        int direction = vx < 0 ? -1 : 1;
+        if (direction != lastDirection || Math.abs(ballX - lastBallX) > SERVE_JUMP) {
+            waiting = reactionTicks * sim.getTicksPerSecond() / PongSimulation.DEFAULT_TICKS_PER_SECOND;
+            noise = aimNoise * (rng.nextDouble() * 2 - 1);
+        }
+        lastDirection = direction;
+        lastBallX = ballX;
+
+        int height = sim.getHeight();
+        if (Double.isNaN(target)) {
+            target = height / 2.0;
+        }
+        if (waiting == 0) {
+            int paddleX = left ? PongSimulation.PADDLE_OFFSET + PongSimulation.PADDLE_WIDTH
+                    : sim.getWidth() - PongSimulation.PADDLE_OFFSET - PongSimulation.PADDLE_WIDTH - PongSimulation.BALL_SIZE;
+            target = targetY(sim.getBall().getExactX(), sim.getBall().getExactY(), vx,
+                    sim.getBall().getVelocityY(), paddleX, left, height, sim.isSubPixel(), noise, sim.getTicksPerSecond());
+        }
+        if (waiting >= 0) {
+            waiting--;
+        }
+        int paddleY = left ? sim.getLeftPaddle().getY() : sim.getRightPaddle().getY();
+        return move(paddleY, target, left);
+    }
+
+    @Override
+    public int move(PongSimulation sim) {
+        int inputs = inputs(sim);
+        if ((inputs & (PongSimulation.LEFT_UP | PongSimulation.RIGHT_UP)) != 0) {
+            return UP;
+        }
+        if ((inputs & (PongSimulation.LEFT_DOWN | PongSimulation.RIGHT_DOWN)) != 0) {
+            return DOWN;
+        }
+        return NONE;
+    }
+
+    /**
+     * @return Creates computer players of the given difficulty, seeding their aim noise
+     */
+    public static PaddleController.Factory factory(Difficulty difficulty) {
+        return (left, seed) -> new PaddleAI(left, difficulty, seed);
+    }
+
+    /**
+     * Where a paddle should put its center: the predicted crossing plus the aim offset while the
+     * ball approaches, otherwise the middle of the field.
+     */
+    static double targetY(double x, double y, double vx, double vy, double paddleX, boolean left,
+                          int height, boolean subPixel, double noise, int ticksPerSecond) {
+        if ((vx < 0) == left) {
+            double crossing = interceptY(x, y, vx, vy, paddleX, PongSimulation.BALL_SIZE, height, subPixel,
+                    ticksPerSecond);
+            if (!Double.isNaN(crossing)) {
+                return crossing + PongSimulation.BALL_SIZE / 2.0 + noise;
+            }
+        }
+        return height / 2.0;
+    }
+
+    /**
+     * Turns a target center into input bits, holding still once the paddle is within one move.
+     */
+    static int move(int paddleY, double target, boolean left) {
+        double center = paddleY + PongSimulation.PADDLE_HEIGHT / 2.0;
+        if (target < center - PongSimulation.PADDLE_SPEED) {
+            return left ? PongSimulation.LEFT_UP : PongSimulation.RIGHT_UP;
+        }
+        if (target > center + PongSimulation.PADDLE_SPEED) {
+            return left ? PongSimulation.LEFT_DOWN : PongSimulation.RIGHT_DOWN;
+        }
+        return 0;
+    }
+
+    /**
+     * Predicts the ball's top edge when its left edge reaches targetX, including every wall
+     * bounce on the way.
+     * @param x Ball's left edge
+     * @param y Ball's top edge
+     * @param vx Horizontal velocity per tick
+     * @param vy Vertical velocity per tick
+     * @param targetX Left edge position to predict the crossing for
+     * @param size Ball size
+     * @param height Field height
+     * @param subPixel True if the ball keeps fractional positions, false if each move is
+     * truncated to whole pixels
+     * @return Predicted top edge, or NaN if the ball is moving away from targetX
+     */
+    public static double interceptY(double x, double y, double vx, double vy, double targetX,
+                                    int size, int height, boolean subPixel) {
+        return interceptY(x, y, vx, vy, targetX, size, height, subPixel, PongSimulation.DEFAULT_TICKS_PER_SECOND);
+    }
+
+    /**
+     * Predicts the ball's crossing for a match running at the given tick rate.
+     * @param ticksPerSecond Tick rate the velocities are measured against
+     * @see #interceptY(double, double, double, double, double, int, int, boolean)
+     */
+    public static double interceptY(double x, double y, double vx, double vy, double targetX,
+                                    int size, int height, boolean subPixel, int ticksPerSecond) {
+        double distance = vx > 0 ? targetX - x : x - targetX;
+        if (vx == 0 || distance < 0) {
+            return Double.NaN;
+        }
+        double speed = Math.abs(vx);
+        if (!subPixel) {
+            // a whole-pixel move is floor(v): half a pixel short going right, half over going left
+            speed += vx > 0 ? -0.5 : 0.5;
+        }
+        return travelY(y, vy, ticksToCover(distance, speed, ticksPerSecond), height - size, subPixel);
+    }
+
+    /**
+     * Ticks until a ball starting at the given speed covers the distance, with the speed growing
+     * by SPEED_UP per tick until it reaches MAX_SPEED. At other tick rates both are converted to
+     * that rate's ticks.
+     */
+    static double ticksToCover(double distance, double speed, int ticksPerSecond) {
+        if (speed <= 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double maxSpeed = MAX_SPEED;
+        double growth = SPEED_UP - 1;
+        double logSpeedUp = LOG_SPEED_UP;
+        if (ticksPerSecond != PongSimulation.DEFAULT_TICKS_PER_SECOND) {
+            double scale = (double) PongSimulation.DEFAULT_TICKS_PER_SECOND / ticksPerSecond;
+            maxSpeed *= scale;
+            growth = Math.pow(SPEED_UP, scale) - 1;
+            logSpeedUp *= scale;
+        }
+        if (speed >= maxSpeed) {
+            return distance / speed;
+        }
+        // distance covered while the speed grows to maxSpeed: a geometric series
+        double growing = (maxSpeed - speed) / growth;
+        if (distance <= growing) {
+            return Math.log1p(distance * growth / speed) / logSpeedUp;
+        }
+        return Math.log(maxSpeed / speed) / logSpeedUp + (distance - growing) / maxSpeed;
+    }
+
+    /**
+     * Top edge after the given time of bouncing between 0 and range.
+     */
+    static double travelY(double y, double vy, double ticks, double range, boolean subPixel) {
+        if (vy == 0 || Double.isInfinite(ticks)) {
+            return y;
+        }
+        return subPixel ? foldY(y, vy, ticks, range) : wholePixelY((int) y, vy, Math.round(ticks), (int) range);
+    }
+
+    /**
+     * Fractional positions bounce symmetrically, so the path folds into one period of
+     * 2 * range in closed form.
+     */
+    private static double foldY(double y, double vy, double ticks, double range) {
+        if ((vy > 0 && y + vy <= 0) || (vy < 0 && y + vy >= range)) {
+            return y; // pushed past a wall by spin: it reverses every tick and stays there
+        }
+        double period = 2 * range;
+        double unfolded = (Math.max(0, Math.min(range, y)) + vy * ticks) % period;
+        if (unfolded < 0) {
+            unfolded += period;
+        }
+        return unfolded <= range ? unfolded : period - unfolded;
+    }
+
+    /**
+     * Whole-pixel moves truncate toward zero: the ball moves down floor(|vy|) and up
+     * ceil(|vy|) pixels per tick, and a ball that ends a bounce at or above the top wall keeps
+     * bouncing in place. Each leg between walls is solved in closed form; legs last at least
+     * range / MAX_SPEED ticks, so only a few are ever needed.
+     */
+    private static double wholePixelY(int y, double vy, long ticks, int range) {
+        double speed = Math.abs(vy);
+        int down = (int) Math.floor(speed);
+        int up = (int) Math.ceil(speed);
+        boolean movingDown = vy > 0;
+        while (ticks > 0) {
+            if (movingDown) {
+                if (down == 0 || y + down <= 0) {
+                    return Math.max(0, y); // never moves down, or stuck against the top wall
+                }
+                long leg = Math.max(1, ceilDiv(range - y, down));
+                if (ticks <= leg) {
+                    return y + ticks * down;
+                }
+                y += (int) (leg * down);
+                ticks -= leg;
+            } else {
+                // whole steps of up until within one step of the wall, then the truncated step
+                long steps = y > up ? ceilDiv(y - up, up) : 0;
+                if (ticks <= steps) {
+                    return y - ticks * up;
+                }
+                y -= (int) (steps * up);
+                y = y >= speed ? y - up : y - down;
+                ticks -= steps + 1;
+            }
+            movingDown = !movingDown;
+        }
+        return Math.max(0, y);
+    }
+
+    private static long ceilDiv(long a, long b) {
+        return -Math.floorDiv(-a, b);
+    }
+
+    /** @return True if this AI controls the left paddle */
+    public boolean isLeft() { return left; }
+}
@@ -0,0 +1,49 @@
+package sim;
+
+/**
+ * Decides one paddle's move every tick.
+ * <p>
+ * A controller is created for one paddle of one match and is asked once per tick, before the
+ * tick is stepped, with the match as it stands. Keyboard, scripted and computer players all
+ * implement this interface, so anything that drives paddles (the game, game server rooms, the
+ * tournament runner) can use any of them.
+ */
+public interface PaddleController {
+    // Moves; the same bits as RollbackSession.UP and DOWN
+    int NONE = 0;
+    int UP = 1;
+    int DOWN = 1 << 1;
+
+    /**
+     * @param sim Match state before this tick
+     * @return UP, DOWN or NONE; both bits cancel out, as holding both keys does
+     */
+    int move(PongSimulation sim);
+
+    /**
+     * Creates controllers, one per paddle per match.
+     */
+    interface Factory {
+        /**
+         * @param left True for the left paddle, false for the right one
+         * @param seed Seed for any randomness of the controller
+         */
+        PaddleController create(boolean left, long seed);
+    }
+
+    /**
+     * @param move Bitmask of UP and DOWN
+     * @param left True for the left paddle, false for the right one
+     * @return The PongSimulation input bits for the move
+     */
+    static int toSimInputs(int move, boolean left) {
+        int inputs = 0;
+        if ((move & UP) != 0) {
+            inputs |= left ? PongSimulation.LEFT_UP : PongSimulation.RIGHT_UP;
+        }
+        if ((move & DOWN) != 0) {
+            inputs |= left ? PongSimulation.LEFT_DOWN : PongSimulation.RIGHT_DOWN;
+        }
+        return inputs;
+    }
+}
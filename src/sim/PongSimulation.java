@@ -0,0 +1,502 @@
+package sim;
+
+import objects.Ball;
+import objects.Paddle;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Headless Pong match: holds the ball, both paddles, the scores and the game over state.
+ * <p>
+ * The simulation does not touch AWT windowing code, so it can be stepped under
+ * {@code java.awt.headless=true} as fast as the CPU allows. Each call to {@link #step(int)}
+ * advances the match by exactly one tick using a bitmask of the inputs held during that tick.
+ * <p>
+ * Every match owns a seeded random generator, so a given seed and input stream always produce
+ * the same match. With sub-pixel positions enabled the ball also keeps fractional motion instead
+ * of truncating it each tick. {@link #stateHash()} condenses the state into one value for
+ * cheap regression checks.
+ * <p>
+ * A match runs at a fixed number of ticks per second, 60 by default. Speeds are defined per
+ * second, so with sub-pixel positions a faster tick rate only makes each tick smaller, not the
+ * game faster (see PaceCheck). Whole-pixel positions truncate every move toward zero, so at 60
+ * Hz a ball going left covers about 300 pixels per second and one going right 240; other rates
+ * always keep fractional positions, as truncation would lose more of each smaller move. States,
+ * replays and netplay assume the default rate. For smooth drawing at any refresh rate the
+ * positions before the last tick are kept and {@link #getBallDrawX(double)} and friends blend
+ * between the two.
+ * <p>
+ * A {@link MatchListener} can follow the match event by event: paddle hits, wall bounces,
+ * points, game over and restarts.
+ */
+public class PongSimulation {
+    // Input bits for step()
+    public static final int LEFT_UP = 1;
+    public static final int LEFT_DOWN = 1 << 1;
+    public static final int RIGHT_UP = 1 << 2;
+    public static final int RIGHT_DOWN = 1 << 3;
+    public static final int RESTART = 1 << 4;
+
+    // Game settings
+    public static final int DEFAULT_WIDTH = 1200;
+    public static final int DEFAULT_HEIGHT = 800;
+    public static final int PADDLE_WIDTH = 15;
+    public static final int PADDLE_HEIGHT = 80;
+    public static final int PADDLE_SPEED = 5; // pixels per tick at the default tick rate
+    public static final int PADDLE_SPEED_PER_SECOND = PADDLE_SPEED * Ball.DEFAULT_UPDATES_PER_SECOND;
+    public static final int PADDLE_OFFSET = 30;
+    public static final int BALL_SIZE = 15;
+    public static final int WINNING_SCORE = 10;
+    // Messages getWinner() returns once the game is over
+    public static final String LEFT_WINS = "Player 1 Wins!";
+    public static final String RIGHT_WINS = "Player 2 Wins!";
+    public static final int DEFAULT_TICKS_PER_SECOND = Ball.DEFAULT_UPDATES_PER_SECOND;
+    // Vertical speed an edge hit adds, in pixels per second
+    private static final double SPIN_SPEED = 120.0;
+
+    // Size of the state written by writeState
+    public static final int STATE_BYTES = 8 + 4 * 8 + 8 + 2 * 8 + 2 * 4 + 1;
+
+    private final int width;
+    private final int height;
+    private final long seed;
+    private final boolean subPixel;
+    private final Rng rng;
+    private long tick = 0;
+    private int ticksPerSecond;
+    private double spin; // SPIN_SPEED per tick
+
+    // Game objects
+    private Paddle leftPaddle; // Player 1 paddle
+    private Paddle rightPaddle; // Player 2 paddle
+    private Ball ball; // Ball object
+
+    // Scores for each player
+    private int leftScore = 0;
+    private int rightScore = 0;
+
+    // Game state
+    private boolean gameOver = false;
+    private String winner = "";
+
+    // Positions before the last tick, for interpolated drawing
+    private double previousBallX, previousBallY;
+    private double previousLeftY, previousRightY;
+
+    // Receives match events, or null
+    private MatchListener listener;
+
+    // Reused result of the swept paddle tests
+    private final Collision.Hit hit = new Collision.Hit();
+
+    /**
+     * Constructs a simulation for a playing field of the given size.
+     * @param width Width of the playing field in pixels
+     * @param height Height of the playing field in pixels
+     */
+    public PongSimulation(int width, int height) {
+        this(width, height, Rng.randomSeed(), false);
+    }
+
+    /**
+     * Constructs a reproducible simulation.
+     * @param width Width of the playing field in pixels
+     * @param height Height of the playing field in pixels
+     * @param seed Seed for the match's random generator
+     * @param subPixel True to keep fractional ball positions
+     */
+    public PongSimulation(int width, int height, long seed, boolean subPixel) {
+        this(width, height, seed, subPixel, DEFAULT_TICKS_PER_SECOND);
+    }
+
+    /**
+     * Constructs a reproducible simulation ticking at the given rate.
+     * @param width Width of the playing field in pixels
+     * @param height Height of the playing field in pixels
+     * @param seed Seed for the match's random generator
+     * @param subPixel True to keep fractional ball positions
+     * @param ticksPerSecond Calls to step() per second of game time
+     */
+    public PongSimulation(int width, int height, long seed, boolean subPixel, int ticksPerSecond) {
+        this.width = width;
+        this.height = height;
+        this.seed = seed;
+        this.subPixel = subPixel;
+        this.rng = new Rng(seed);
+        this.ticksPerSecond = ticksPerSecond;
+        this.spin = SPIN_SPEED / ticksPerSecond;
+        initializeGame();
+    }
+
+    /**
+     * Constructs a simulation for the default 1200x800 playing field.
+     */
+    public PongSimulation() {
+        this(DEFAULT_WIDTH, DEFAULT_HEIGHT);
+    }
+
+    /**
+     * Initializes paddles and ball to their starting positions.
+     */
+    private void initializeGame() {
+        // Create paddles at left and right sides, centered vertically
+        double paddleSpeed = (double) PADDLE_SPEED_PER_SECOND / ticksPerSecond;
+        leftPaddle = new Paddle(PADDLE_OFFSET, height / 2 - PADDLE_HEIGHT / 2, PADDLE_WIDTH, PADDLE_HEIGHT, paddleSpeed);
+        rightPaddle = new Paddle(width - PADDLE_OFFSET - PADDLE_WIDTH, height / 2 - PADDLE_HEIGHT / 2, PADDLE_WIDTH, PADDLE_HEIGHT, paddleSpeed);
+
+        // Create ball in center
+        ball = new Ball(width / 2 - BALL_SIZE / 2,
+                height / 2 - BALL_SIZE / 2,
+                BALL_SIZE, rng::nextDouble);
+        ball.setUpdatesPerSecond(ticksPerSecond);
+        ball.setSubPixel(isSubPixel());
+        keepPositions();
+    }
+
+    /**
+     * Changes the tick rate. Speeds stay the same per second, so the match keeps its pace.
+     * @param ticksPerSecond Calls to step() per second of game time
+     */
+    public void setTicksPerSecond(int ticksPerSecond) {
+        this.ticksPerSecond = ticksPerSecond;
+        this.spin = SPIN_SPEED / ticksPerSecond;
+        double paddleSpeed = (double) PADDLE_SPEED_PER_SECOND / ticksPerSecond;
+        leftPaddle.setSpeed(paddleSpeed);
+        rightPaddle.setSpeed(paddleSpeed);
+        ball.setUpdatesPerSecond(ticksPerSecond);
+        ball.setSubPixel(isSubPixel());
+    }
+
+    /**
+     * Makes the current positions the starting point of interpolation, so a jump (a serve, a
+     * restart, a restored state) is drawn at once instead of swept across the field.
+     */
+    private void keepPositions() {
+        previousBallX = ball.getExactX();
+        previousBallY = ball.getExactY();
+        previousLeftY = leftPaddle.getExactY();
+        previousRightY = rightPaddle.getExactY();
+    }
+
+    /**
+     * Advances the match by one tick. Handles input, movement, collision, scoring, and game over logic.
+     * @param inputs Bitmask of LEFT_UP, LEFT_DOWN, RIGHT_UP, RIGHT_DOWN and RESTART
+     */
+    public void step(int inputs) {
+        tick++;
+        keepPositions();
+        if (gameOver) {
+            if ((inputs & RESTART) != 0) {
+                restartGame();
+                if (listener != null) {
+                    listener.onRestart(tick);
+                }
+            }
+            return;
+        }
+
+        // Player 1 controls
+        if ((inputs & LEFT_UP) != 0) {
+            leftPaddle.moveUp();
+        }
+        if ((inputs & LEFT_DOWN) != 0) {
+            leftPaddle.moveDown();
+        }
+
+        // Player 2 controls
+        if ((inputs & RIGHT_UP) != 0) {
+            rightPaddle.moveUp();
+        }
+        if ((inputs & RIGHT_DOWN) != 0) {
+            rightPaddle.moveDown();
+        }
+
+        // Keep paddles in bounds of the field
+        leftPaddle.stayInBounds(0, height);
+        rightPaddle.stayInBounds(0, height);
+
+        // Update ball position and speed
+        double previousX = ball.getExactX();
+        double previousY = ball.getExactY();
+        ball.update();
+        double dx = ball.getExactX() - previousX;
+        double dy = ball.getExactY() - previousY;
+
+        // Ball collision with top/bottom walls
+        if (ball.getExactY() <= 0 || ball.getExactY() + ball.getSize() >= height) {
+            ball.reverseY(); // Bounce off wall
+            if (listener != null) {
+                listener.onWallBounce(tick, ball.getExactY() <= 0, ball.getX());
+            }
+        }
+
+        // Ball collision with paddles, swept over this tick's move so a fast ball cannot pass through
+        double leftImpact = impact(leftPaddle, previousX, previousY, dx, dy);
+        double rightImpact = impact(rightPaddle, previousX, previousY, dx, dy);
+
+        // Check collision with left paddle
+        if (leftImpact >= 0) {
+            double contactY = previousY + dy * leftImpact; // where the ball met the paddle, not where the tick left it
+            ball.reverseX(); // Bounce horizontally
+            ball.setX(leftPaddle.getX() + leftPaddle.getWidth() + 1); // Prevent ball sticking to paddle
+            double spinFactor = addSpin(leftPaddle, contactY); // Add spin based on hit position
+            if (listener != null) {
+                listener.onPaddleHit(tick, true, spinFactor, hitPosition(leftPaddle, contactY), ballSpeed());
+            }
+        }
+
+        // Check collision with right paddle
+        if (rightImpact >= 0) {
+            double contactY = previousY + dy * rightImpact;
+            ball.reverseX(); // Bounce horizontally
+            ball.setX(rightPaddle.getX() - ball.getSize() - 1); // Prevent ball sticking to paddle
+            double spinFactor = addSpin(rightPaddle, contactY); // Add spin based on hit position
+            if (listener != null) {
+                listener.onPaddleHit(tick, false, spinFactor, hitPosition(rightPaddle, contactY), ballSpeed());
+            }
+        }
+
+        // Scoring - ball goes off screen
+        if (ball.getExactX() < -ball.getSize()) {
+            // Right player scores
+            rightScore++;
+            resetBall(1); // Ball goes toward left player
+            checkGameOver();
+            if (listener != null) {
+                reportPoint(false);
+            }
+        } else if (ball.getExactX() > width) {
+            // Left player scores
+            leftScore++;
+            resetBall(-1); // Ball goes toward right player
+            checkGameOver();
+            if (listener != null) {
+                reportPoint(true);
+            }
+        }
+    }
+
+    private void reportPoint(boolean left) {
+        listener.onPoint(tick, left, leftScore, rightScore);
+        if (gameOver) {
+            listener.onGameOver(tick, left, leftScore, rightScore);
+        }
+    }
+
+    /**
+     * @return The ball's speed in pixels per second
+     */
+    private double ballSpeed() {
+        return Math.hypot(ball.getVelocityXPerSecond(), ball.getVelocityYPerSecond());
+    }
+
+    /**
+     * @param contactY Ball's top edge when it met the paddle
+     * @return The ball's center relative to the paddle's top edge, in fractional pixels
+     */
+    private double hitPosition(Paddle paddle, double contactY) {
+        return contactY + ball.getSize() / 2.0 - paddle.getExactY();
+    }
+
+    /**
+     * Tests whether the ball's move this tick reached the paddle.
+     * @return Fraction of the move at which the ball met the paddle, or -1 if it did not
+     */
+    private double impact(Paddle paddle, double previousX, double previousY, double dx, double dy) {
+        return Collision.sweep(previousX, previousY, ball.getSize(), ball.getSize(), dx, dy,
+                paddle.getX(), paddle.getExactY(), paddle.getWidth(), paddle.getHeight(), hit) ? hit.time : -1;
+    }
+
+    /**
+     * Adds spin to the ball based on where it met the paddle.
+     * @param paddle The paddle the ball collided with
+     * @param contactY Ball's top edge when it met the paddle
+     * @return The spin factor: -1, or 1 if the ball's center met the paddle below its bottom edge
+     */
+    private double addSpin(Paddle paddle, double contactY) {
+        // Relative position where ball hit paddle, in whole pixels like Ball.getCenterY (0 on the paddle)
+        double relativeHitPos = ((int) contactY + ball.getSize() / 2 - paddle.getY()) / paddle.getHeight();
+        // Convert to range -1.0 to 1.0
+        double spinFactor = (relativeHitPos - 0.5) * 2.0;
+        // Apply spin to ball's Y velocity
+        ball.adjustYVelocity(spinFactor * spin);
+        return spinFactor;
+    }
+
+    /**
+     * Resets the ball to the center and sets its direction.
+     * @param direction Direction for ball to move (-1 for left, 1 for right)
+     */
+    private void resetBall(int direction) {
+        ball.reset(width / 2 - BALL_SIZE / 2,
+                height / 2 - BALL_SIZE / 2,
+                direction);
+        previousBallX = ball.getExactX();
+        previousBallY = ball.getExactY();
+    }
+
+    /**
+     * Checks if either player has reached the winning score and sets game over state.
+     */
+    private void checkGameOver() {
+        if (leftScore >= WINNING_SCORE) {
+            gameOver = true;
+            winner = LEFT_WINS;
+        } else if (rightScore >= WINNING_SCORE) {
+            gameOver = true;
+            winner = RIGHT_WINS;
+        }
+    }
+
+    /**
+     * Restarts the game by resetting scores, state, paddles and ball. The objects are reused, so
+     * a restart allocates nothing.
+     */
+    private void restartGame() {
+        leftScore = 0;
+        rightScore = 0;
+        gameOver = false;
+        winner = "";
+        leftPaddle.setY(height / 2 - PADDLE_HEIGHT / 2);
+        rightPaddle.setY(height / 2 - PADDLE_HEIGHT / 2);
+        // Serve at the default rate and rescale, as a new Ball does, so replays stay bit for bit the same
+        ball.setUpdatesPerSecond(Ball.DEFAULT_UPDATES_PER_SECOND);
+        ball.reset(width / 2 - BALL_SIZE / 2, height / 2 - BALL_SIZE / 2, -1);
+        ball.setUpdatesPerSecond(ticksPerSecond);
+        keepPositions();
+    }
+
+    /**
+     * Writes the complete match state (everything stateHash covers) to the buffer.
+     * Exactly STATE_BYTES bytes are written.
+     */
+    public void writeState(ByteBuffer buf) {
+        buf.putLong(tick);
+        buf.putDouble(ball.getExactX());
+        buf.putDouble(ball.getExactY());
+        buf.putDouble(ball.getVelocityX());
+        buf.putDouble(ball.getVelocityY());
+        buf.putLong(rng.getState());
+        buf.putDouble(leftPaddle.getExactY());
+        buf.putDouble(rightPaddle.getExactY());
+        buf.putInt(leftScore);
+        buf.putInt(rightScore);
+        buf.put((byte) (gameOver ? 1 : 0));
+    }
+
+    /**
+     * Restores a match state written by writeState. The field size and seed of this simulation
+     * must match the one that wrote the state.
+     */
+    public void readState(ByteBuffer buf) {
+        tick = buf.getLong();
+        double x = buf.getDouble();
+        double y = buf.getDouble();
+        ball.setExactPosition(x, y);
+        double vx = buf.getDouble();
+        double vy = buf.getDouble();
+        ball.setVelocity(vx, vy);
+        rng.setState(buf.getLong());
+        leftPaddle.setExactY(buf.getDouble());
+        rightPaddle.setExactY(buf.getDouble());
+        leftScore = buf.getInt();
+        rightScore = buf.getInt();
+        gameOver = buf.get() != 0;
+        winner = "";
+        if (gameOver) {
+            checkGameOver();
+        }
+        keepPositions();
+    }
+
+    /**
+     * Hashes the complete match state. Two runs with the same seed and inputs have equal hashes
+     * after the same number of ticks.
+     * @return 64-bit hash of positions, velocities, scores, game state and random generator
+     */
+    public long stateHash() {
+        long h = 0xCBF29CE484222325L;
+        h = mixHash(h, Double.doubleToLongBits(ball.getExactX()));
+        h = mixHash(h, Double.doubleToLongBits(ball.getExactY()));
+        h = mixHash(h, Double.doubleToLongBits(ball.getVelocityX()));
+        h = mixHash(h, Double.doubleToLongBits(ball.getVelocityY()));
+        h = mixHash(h, Double.doubleToLongBits(leftPaddle.getExactY()));
+        h = mixHash(h, Double.doubleToLongBits(rightPaddle.getExactY()));
+        h = mixHash(h, ((long) leftScore << 32) | rightScore);
+        h = mixHash(h, gameOver ? 1 : 0);
+        h = mixHash(h, rng.getState());
+        return mixHash(h, tick);
+    }
+
+    private static long mixHash(long h, long value) {
+        return Rng.mix(h ^ value) + Rng.GOLDEN_GAMMA;
+    }
+
+    /**
+     * @param alpha Fraction of a tick since the last step(), 0 for the previous tick's
+     * positions and 1 for the current ones
+     * @return Ball X position to draw
+     */
+    public double getBallDrawX(double alpha) {
+        return previousBallX + (ball.getExactX() - previousBallX) * alpha;
+    }
+
+    /**
+     * @param alpha Fraction of a tick since the last step()
+     * @return Ball Y position to draw
+     */
+    public double getBallDrawY(double alpha) {
+        return previousBallY + (ball.getExactY() - previousBallY) * alpha;
+    }
+
+    /**
+     * @param alpha Fraction of a tick since the last step()
+     * @return Player 1 paddle Y position to draw
+     */
+    public double getLeftPaddleDrawY(double alpha) {
+        return previousLeftY + (leftPaddle.getExactY() - previousLeftY) * alpha;
+    }
+
+    /**
+     * @param alpha Fraction of a tick since the last step()
+     * @return Player 2 paddle Y position to draw
+     */
+    public double getRightPaddleDrawY(double alpha) {
+        return previousRightY + (rightPaddle.getExactY() - previousRightY) * alpha;
+    }
+
+    /**
+     * Sets the listener that receives this match's events from step(), or null for none.
+     */
+    public void setListener(MatchListener listener) {
+        this.listener = listener;
+    }
+
+    // Getters
+    /** @return Width of the playing field */
+    public int getWidth() { return width; }
+    /** @return Height of the playing field */
+    public int getHeight() { return height; }
+    /** @return Player 1 paddle */
+    public Paddle getLeftPaddle() { return leftPaddle; }
+    /** @return Player 2 paddle */
+    public Paddle getRightPaddle() { return rightPaddle; }
+    /** @return The ball */
+    public Ball getBall() { return ball; }
+    /** @return Player 1 score */
+    public int getLeftScore() { return leftScore; }
+    /** @return Player 2 score */
+    public int getRightScore() { return rightScore; }
+    /** @return True once a player has reached WINNING_SCORE */
+    public boolean isGameOver() { return gameOver; }
+    /** @return Winner message, empty while the game is running */
+    public String getWinner() { return winner; }
+    /** @return Seed the match's random generator started from */
+    public long getSeed() { return seed; }
+    /** @return True if the ball keeps fractional positions, as it always does away from the default tick rate */
+    public boolean isSubPixel() { return subPixel || ticksPerSecond != DEFAULT_TICKS_PER_SECOND; }
+    /** @return Calls to step() per second of game time */
+    public int getTicksPerSecond() { return ticksPerSecond; }
+    /** @return Number of ticks stepped so far */
+    public long getTick() { return tick; }
+}
@@ -0,0 +1,77 @@
+package sim;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Small seedable SplitMix64 generator.
+ * <p>
+ * Each match owns its own instance, so parallel matches never contend on a shared generator
+ * and a match replays bit for bit from its seed. The whole state is a single long, which makes
+ * snapshots cheap. The static helpers run the same sequence on state kept in a long array.
+ */
+public final class Rng {
+    public static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    // Spreads out seeds of generators created without one, like java.util.Random
+    private static final AtomicLong SEED_UNIQUIFIER = new AtomicLong(0x2545F4914F6CDD1DL);
+
+    private long state;
+
+    /**
+     * @param seed Initial state
+     */
+    public Rng(long seed) {
+        this.state = seed;
+    }
+
+    /**
+     * Constructs a generator with a seed that differs from every other unseeded generator.
+     */
+    public Rng() {
+        this(randomSeed());
+    }
+
+    /**
+     * @return A double in [0, 1)
+     */
+    public double nextDouble() {
+        state += GOLDEN_GAMMA;
+        return toDouble(mix(state));
+    }
+
+    public long getState() {
+        return state;
+    }
+
+    public void setState(long state) {
+        this.state = state;
+    }
+
+    /**
+     * Advances the generator whose state is states[i] and returns a double in [0, 1).
+     */
+    public static double nextDouble(long[] states, int i) {
+        states[i] += GOLDEN_GAMMA;
+        return toDouble(mix(states[i]));
+    }
+
+    /**
+     * @return A seed that differs from every other seed handed out by this method
+     */
+    public static long randomSeed() {
+        return mix(SEED_UNIQUIFIER.addAndGet(GOLDEN_GAMMA) ^ System.nanoTime());
+    }
+
+    /**
+     * SplitMix64 finalizer.
+     */
+    public static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static double toDouble(long bits) {
+        return (bits >>> 11) * 0x1.0p-53;
+    }
+}
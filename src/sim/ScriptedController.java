@@ -0,0 +1,44 @@
+package sim;
+
+/**
+ * Plays a fixed sequence of moves, one per tick, repeating it from the start once it runs out.
+ * <p>
+ * A script is a string with one character per tick: 'U' for up, 'D' for down and any other
+ * character (e.g. '.') for no move, so {@code "UUUU....DDDD...."} sweeps the paddle up and down.
+ * Scripted players make matches reproducible without any decision logic, for demos, tests and
+ * as a weak baseline in tournaments.
+ */
+public final class ScriptedController implements PaddleController {
+    private final int[] moves;
+    private int next = 0;
+
+    /**
+     * @param script One character per tick: 'U', 'D' or anything else for no move
+     * @throws IllegalArgumentException If the script is empty
+     */
+    public ScriptedController(String script) {
+        if (script.isEmpty()) {
+            throw new IllegalArgumentException("Empty script");
+        }
+        moves = new int[script.length()];
+        for (int i = 0; i < moves.length; i++) {
+            char c = Character.toUpperCase(script.charAt(i));
+            moves[i] = c == 'U' ? UP : c == 'D' ? DOWN : NONE;
+        }
+    }
+
+    @Override
+    public int move(PongSimulation sim) {
+        int move = moves[next];
+        next = next + 1 == moves.length ? 0 : next + 1;
+        return move;
+    }
+
+    /**
+     * @return Creates players of the script; it is the same for both sides and every seed
+     */
+    public static PaddleController.Factory factory(String script) {
+        new ScriptedController(script); // reject a bad script now rather than in every game
+        return (left, seed) -> new ScriptedController(script);
+    }
+}
@@ -0,0 +1,97 @@
+package sim;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Checks that writeState and readState carry the complete match state at every tick rate.
+ * <p>
+ * For each rate an AI vs AI match is played, and every CHECK_INTERVAL ticks its state is written
+ * and read into a fresh simulation of the same settings. The copy must have the same stateHash,
+ * write the same bytes back, and stay identical to the original while both are stepped with the
+ * same inputs for FOLLOW_TICKS ticks. At rates such as 144 Hz the paddles move a fraction of a
+ * pixel per tick, so any part of the state that is rounded on the way shows up here.
+ * <p>
+ * Usage: {@code java -cp out sim.StateCheck [rate...]}
+ * <br>
+ * Exits with 1 if any restored copy differs from its original.
+ */
+public class StateCheck {
+    private static final int[] DEFAULT_RATES = {60, 144, 240};
+    private static final int TICKS = 100_000;
+    private static final int CHECK_INTERVAL = 997;
+    private static final int FOLLOW_TICKS = 300;
+    private static final long SEED = 42;
+
+    public static void main(String[] args) {
+        int[] rates = DEFAULT_RATES;
+        if (args.length > 0) {
+            rates = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                rates[i] = Integer.parseInt(args[i]);
+            }
+        }
+        System.out.printf("%-22s %8s %10s %s%n", "rate", "restores", "differing", "");
+        boolean failed = false;
+        for (int rate : rates) {
+            if (rate == PongSimulation.DEFAULT_TICKS_PER_SECOND) {
+                failed |= !check(rate, false);
+            }
+            failed |= !check(rate, true);
+        }
+        System.exit(failed ? 1 : 0);
+    }
+
+    /**
+     * Plays one match, restoring copies along the way, and prints its row.
+     * @return False if any copy differed
+     */
+    private static boolean check(int rate, boolean subPixel) {
+        PongSimulation sim = newSimulation(rate, subPixel);
+        PaddleAI left = new PaddleAI(true, PaddleAI.Difficulty.NORMAL, Rng.mix(SEED));
+        PaddleAI right = new PaddleAI(false, PaddleAI.Difficulty.HARD, Rng.mix(SEED + 1));
+        ByteBuffer state = ByteBuffer.allocate(PongSimulation.STATE_BYTES);
+        ByteBuffer again = ByteBuffer.allocate(PongSimulation.STATE_BYTES);
+        PongSimulation copy = null;
+        int following = 0;
+        int restores = 0;
+        int differing = 0;
+        for (int t = 0; t < TICKS; t++) {
+            if (t % CHECK_INTERVAL == 0) {
+                state.clear();
+                sim.writeState(state);
+                state.flip();
+                copy = newSimulation(rate, subPixel);
+                copy.readState(state);
+                again.clear();
+                copy.writeState(again);
+                state.rewind();
+                again.flip();
+                restores++;
+                if (copy.stateHash() != sim.stateHash() || !again.equals(state)) {
+                    differing++;
+                    copy = null;
+                }
+                following = FOLLOW_TICKS;
+            }
+            int inputs = left.inputs(sim) | right.inputs(sim) | (sim.isGameOver() ? PongSimulation.RESTART : 0);
+            sim.step(inputs);
+            if (copy != null) {
+                copy.step(inputs);
+                if (copy.stateHash() != sim.stateHash()) {
+                    differing++;
+                    copy = null;
+                } else if (--following == 0) {
+                    copy = null;
+                }
+            }
+        }
+        boolean ok = differing == 0;
+        String name = rate + " Hz " + (subPixel ? "sub-pixel" : "whole-pixel");
+        System.out.printf("%-22s %8d %10d %s%n", name, restores, differing, ok ? "ok" : "NOT RESTORED");
+        return ok;
+    }
+
+    private static PongSimulation newSimulation(int rate, boolean subPixel) {
+        return new PongSimulation(PongSimulation.DEFAULT_WIDTH, PongSimulation.DEFAULT_HEIGHT, SEED, subPixel, rate);
+    }
+}
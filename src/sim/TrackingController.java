@@ -0,0 +1,46 @@
+package sim;
+
+/**
+ * Simple bot that chases the ball.
+ * <p>
+ * It steers its paddle's center toward the ball's current height on every tick, with no
+ * prediction of bounces and no delay, and returns to the middle while the ball moves away.
+ * Since the ball never climbs faster than a paddle moves, this alone returns nearly every shot;
+ * with no randomness it makes a fixed baseline to rate other controllers against.
+ */
+public final class TrackingController implements PaddleController {
+    private final boolean left;
+
+    /**
+     * @param left True to control the left paddle, false for the right one
+     */
+    public TrackingController(boolean left) {
+        this.left = left;
+    }
+
+    @Override
+    public int move(PongSimulation sim) {
+        if (sim.isGameOver()) {
+            return NONE;
+        }
+        boolean approaching = (sim.getBall().getVelocityX() < 0) == left;
+        double target = approaching ? sim.getBall().getExactY() + PongSimulation.BALL_SIZE / 2.0
+                : sim.getHeight() / 2.0;
+        int paddleY = left ? sim.getLeftPaddle().getY() : sim.getRightPaddle().getY();
+        int inputs = PaddleAI.move(paddleY, target, left);
+        if ((inputs & (PongSimulation.LEFT_UP | PongSimulation.RIGHT_UP)) != 0) {
+            return UP;
+        }
+        if ((inputs & (PongSimulation.LEFT_DOWN | PongSimulation.RIGHT_DOWN)) != 0) {
+            return DOWN;
+        }
+        return NONE;
+    }
+
+    /**
+     * @return Creates tracking bots; they use no randomness, so the seed is ignored
+     */
+    public static PaddleController.Factory factory() {
+        return (left, seed) -> new TrackingController(left);
+    }
+}
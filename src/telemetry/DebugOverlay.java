@@ -0,0 +1,74 @@
+package telemetry;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+
+/**
+ * Small on-screen panel showing a game loop's frame statistics.
+ * <p>
+ * The text is rebuilt at most twice a second, so drawing the overlay on other frames only
+ * paints a box and a few cached strings.
+ */
+public class DebugOverlay {
+    private static final Font FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+    private static final Color BACKGROUND = new Color(0, 0, 0, 200);
+    private static final long REFRESH_NANOS = 500_000_000L;
+    private static final int MARGIN = 6;
+
+    private final FrameStats stats;
+    private final String[] lines = new String[6];
+    private long lastRefresh = 0;
+    private boolean refreshed = false;
+    // the panel only grows, so a shorter line never leaves stale pixels behind in partial redraws
+    private int width = 0;
+
+    /**
+     * @param stats Statistics to display
+     */
+    public DebugOverlay(FrameStats stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * Draws the panel with its top left corner at (x, y).
+     */
+    public void draw(Graphics2D g, int x, int y) {
+        long now = System.nanoTime();
+        if (!refreshed || now - lastRefresh >= REFRESH_NANOS) {
+            refresh();
+            lastRefresh = now;
+            refreshed = true;
+        }
+        g.setFont(FONT);
+        FontMetrics fm = g.getFontMetrics();
+        for (String line : lines) {
+            width = Math.max(width, fm.stringWidth(line));
+        }
+        int lineHeight = fm.getHeight();
+        g.setColor(BACKGROUND);
+        g.fillRect(x, y, width + 2 * MARGIN, lines.length * lineHeight + 2 * MARGIN);
+        g.setColor(Color.WHITE);
+        int baseline = y + MARGIN + fm.getAscent();
+        for (String line : lines) {
+            g.drawString(line, x + MARGIN, baseline);
+            baseline += lineHeight;
+        }
+    }
+
+    private void refresh() {
+        lines[0] = String.format("%5.1f fps  %5.1f ups", stats.getFramesPerSecond(), stats.getUpdatesPerSecond());
+        lines[1] = String.format("%-8s%7s %7s %7s %7s", "us", "p50", "p99", "p99.9", "max");
+        lines[2] = row("update", stats.getUpdateHistogram());
+        lines[3] = row("draw", stats.getDrawHistogram());
+        lines[4] = row("present", stats.getPresentHistogram());
+        lines[5] = String.format("catch-up %d (max %d)  dropped %d  idle %d", stats.getCatchUpPasses(),
+                stats.getMaxCatchUpSteps(), stats.getDroppedUpdates(), stats.getIdlePeriods());
+    }
+
+    private static String row(String name, LatencyHistogram h) {
+        return String.format("%-8s%7.0f %7.0f %7.0f %7.0f", name, h.percentile(0.5) / 1e3,
+                h.percentile(0.99) / 1e3, h.percentile(0.999) / 1e3, h.getMax() / 1e3);
+    }
+}
@@ -0,0 +1,41 @@
+package telemetry;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event covering one pass of the game loop, from its first update to the end of the
+ * frame. Only created while a recording has the event enabled.
+ */
+@Name("game.Frame")
+@Label("Game Frame")
+@Category("Game")
+@Description("One pass of the game loop: updates, drawing and buffer flip")
+@StackTrace(false)
+class FrameEvent extends Event {
+    @Label("Updates")
+    @Description("Updates run in this pass; more than one means the loop was catching up")
+    int updates;
+
+    @Label("Dropped Updates")
+    @Description("Updates skipped because the loop fell more than the catch-up cap behind")
+    long droppedUpdates;
+
+    @Label("Update Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long updateTime;
+
+    @Label("Draw Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long drawTime;
+
+    @Label("Present Time")
+    @Description("Time spent flipping the buffer strategy")
+    @Timespan(Timespan.NANOSECONDS)
+    long presentTime;
+}
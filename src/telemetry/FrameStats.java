@@ -0,0 +1,253 @@
+package telemetry;
+
+import jdk.jfr.EventType;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Frame-time statistics for a game loop.
+ * <p>
+ * The loop reports each pass: the time of every update, the time spent drawing and presenting
+ * the frame, and how many updates it ran to catch up. Times go into latency histograms and
+ * effective frame and update rates are computed once a second. Recording takes a handful of
+ * System.nanoTime() calls and array increments per frame and never allocates, so it stays on
+ * all the time.
+ * <p>
+ * The statistics can be read from code, through JMX after {@link #register(String)}, and as
+ * "game.Frame" JFR events whenever a flight recording enables them, after
+ * {@link #enableEvents()}.
+ */
+public class FrameStats implements FrameStatsMBean {
+    private static final long RATE_WINDOW_NANOS = 1_000_000_000L;
+    private static final double MICROS = 1e-3;
+
+    private final LatencyHistogram update = new LatencyHistogram();
+    private final LatencyHistogram draw = new LatencyHistogram();
+    private final LatencyHistogram present = new LatencyHistogram();
+    private final LatencyHistogram frameInterval = new LatencyHistogram();
+
+    private long frames = 0;
+    private long updates = 0;
+    private long catchUpPasses = 0;
+    private int maxCatchUpSteps = 0;
+    private long droppedUpdates = 0;
+    private long lastPresented = 0;
+    // false after an idle wait, so the gap is not taken for a slow frame
+    private boolean intervalValid = false;
+    private long idlePeriods = 0;
+    private long idleNanos = 0;
+
+    // effective rates over the last complete window
+    private long windowStart = System.nanoTime();
+    private long windowFrames = 0;
+    private long windowUpdates = 0;
+    private volatile double framesPerSecond = 0;
+    private volatile double updatesPerSecond = 0;
+
+    // current pass; frameEvent stays null until enableEvents()
+    private volatile EventType frameEvent;
+    private FrameEvent event;
+    private long passUpdateNanos;
+    private long passDrawNanos;
+    private long passPresentNanos;
+    private volatile boolean resetRequested = false;
+    private ObjectName registeredName;
+
+    /**
+     * Starts a pass of the game loop.
+     */
+    public void beginPass() {
+        if (resetRequested) {
+            clear();
+        }
+        passUpdateNanos = 0;
+        passDrawNanos = 0;
+        passPresentNanos = 0;
+        EventType type = frameEvent;
+        if (type != null && type.isEnabled()) {
+            event = new FrameEvent();
+            event.begin();
+        }
+    }
+
+    /**
+     * @param nanos Time taken by one update
+     */
+    public void recordUpdate(long nanos) {
+        update.record(nanos);
+        passUpdateNanos += nanos;
+        updates++;
+    }
+
+    /**
+     * Records a rendered frame.
+     * @param drawNanos Time spent drawing into the back buffer
+     * @param presentNanos Time spent showing the back buffer
+     * @param presentedAt System.nanoTime() once the frame was shown
+     */
+    public void recordFrame(long drawNanos, long presentNanos, long presentedAt) {
+        draw.record(drawNanos);
+        present.record(presentNanos);
+        if (intervalValid) {
+            frameInterval.record(presentedAt - lastPresented);
+        }
+        lastPresented = presentedAt;
+        intervalValid = true;
+        passDrawNanos += drawNanos;
+        passPresentNanos += presentNanos;
+        frames++;
+    }
+
+    /**
+     * Ends the pass started by beginPass().
+     * @param steps Updates run in the pass
+     * @param dropped Updates dropped in the pass because the loop fell too far behind
+     */
+    public void endPass(int steps, long dropped) {
+        if (steps > 1) {
+            catchUpPasses++;
+            maxCatchUpSteps = Math.max(maxCatchUpSteps, steps);
+        }
+        droppedUpdates += dropped;
+
+        long now = System.nanoTime();
+        long elapsed = now - windowStart;
+        if (elapsed >= RATE_WINDOW_NANOS) {
+            framesPerSecond = (frames - windowFrames) * 1e9 / elapsed;
+            updatesPerSecond = (updates - windowUpdates) * 1e9 / elapsed;
+            windowStart = now;
+            windowFrames = frames;
+            windowUpdates = updates;
+        }
+
+        if (event != null) {
+            event.updates = steps;
+            event.droppedUpdates = dropped;
+            event.updateTime = passUpdateNanos;
+            event.drawTime = passDrawNanos;
+            event.presentTime = passPresentNanos;
+            event.commit();
+            event = null;
+        }
+    }
+
+    /**
+     * Records a time the loop slept because nothing on screen could change. The next frame
+     * interval is not recorded, since the gap is not a slow frame.
+     * @param nanos Time spent idle
+     */
+    public void recordIdle(long nanos) {
+        idlePeriods++;
+        idleNanos += nanos;
+        intervalValid = false;
+    }
+
+    private void clear() {
+        resetRequested = false;
+        update.reset();
+        draw.reset();
+        present.reset();
+        frameInterval.reset();
+        frames = 0;
+        updates = 0;
+        catchUpPasses = 0;
+        maxCatchUpSteps = 0;
+        droppedUpdates = 0;
+        intervalValid = false;
+        idlePeriods = 0;
+        idleNanos = 0;
+        windowStart = System.nanoTime();
+        windowFrames = 0;
+        windowUpdates = 0;
+    }
+
+    /**
+     * Registers these statistics with the platform MBean server as game:type=FrameStats,name=...
+     * @param name Name distinguishing this game loop from others in the same process
+     * @return False if registration failed
+     */
+    public synchronized boolean register(String name) {
+        try {
+            ObjectName objectName = new ObjectName("game:type=FrameStats,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            registeredName = objectName;
+            return true;
+        } catch (JMException e) {
+            System.out.println("Error registering frame statistics -> " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Removes the registration made by register(), if any, so that another game loop can use
+     * the name.
+     */
+    public synchronized void unregister() {
+        if (registeredName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+        } catch (JMException e) {
+            System.out.println("Error unregistering frame statistics -> " + e.getMessage());
+        }
+        registeredName = null;
+    }
+
+    /**
+     * Starts emitting "game.Frame" JFR events while a recording enables them. Loading the event
+     * class sets up JFR, which takes a few hundred milliseconds unless a recording was started
+     * with the JVM, so call this off the startup path.
+     */
+    public void enableEvents() {
+        frameEvent = EventType.getEventType(FrameEvent.class);
+    }
+
+    @Override
+    public void reset() {
+        resetRequested = true;
+    }
+
+    /** @return Histogram of update times */
+    public LatencyHistogram getUpdateHistogram() { return update; }
+    /** @return Histogram of draw times */
+    public LatencyHistogram getDrawHistogram() { return draw; }
+    /** @return Histogram of buffer flip times */
+    public LatencyHistogram getPresentHistogram() { return present; }
+    /** @return Histogram of times between presented frames */
+    public LatencyHistogram getFrameIntervalHistogram() { return frameInterval; }
+
+    @Override public double getFramesPerSecond() { return framesPerSecond; }
+    @Override public double getUpdatesPerSecond() { return updatesPerSecond; }
+    @Override public long getFrames() { return frames; }
+    @Override public long getUpdates() { return updates; }
+    /** @return Loop passes that ran more than one update */
+    @Override public long getCatchUpPasses() { return catchUpPasses; }
+    /** @return Most updates run in a single pass */
+    @Override public int getMaxCatchUpSteps() { return maxCatchUpSteps; }
+    @Override public long getDroppedUpdates() { return droppedUpdates; }
+    @Override public long getIdlePeriods() { return idlePeriods; }
+    @Override public double getIdleSeconds() { return idleNanos * 1e-9; }
+
+    @Override public double getUpdateP50Micros() { return update.percentile(0.5) * MICROS; }
+    @Override public double getUpdateP99Micros() { return update.percentile(0.99) * MICROS; }
+    @Override public double getUpdateP999Micros() { return update.percentile(0.999) * MICROS; }
+    @Override public double getUpdateMaxMicros() { return update.getMax() * MICROS; }
+
+    @Override public double getDrawP50Micros() { return draw.percentile(0.5) * MICROS; }
+    @Override public double getDrawP99Micros() { return draw.percentile(0.99) * MICROS; }
+    @Override public double getDrawP999Micros() { return draw.percentile(0.999) * MICROS; }
+    @Override public double getDrawMaxMicros() { return draw.getMax() * MICROS; }
+
+    @Override public double getPresentP50Micros() { return present.percentile(0.5) * MICROS; }
+    @Override public double getPresentP99Micros() { return present.percentile(0.99) * MICROS; }
+    @Override public double getPresentP999Micros() { return present.percentile(0.999) * MICROS; }
+    @Override public double getPresentMaxMicros() { return present.getMax() * MICROS; }
+
+    @Override public double getFrameIntervalP50Micros() { return frameInterval.percentile(0.5) * MICROS; }
+    @Override public double getFrameIntervalP99Micros() { return frameInterval.percentile(0.99) * MICROS; }
+    @Override public double getFrameIntervalP999Micros() { return frameInterval.percentile(0.999) * MICROS; }
+    @Override public double getFrameIntervalMaxMicros() { return frameInterval.getMax() * MICROS; }
+}
@@ -0,0 +1,42 @@
+package telemetry;
+
+/**
+ * JMX view of {@link FrameStats}. Times are in microseconds.
+ */
+public interface FrameStatsMBean {
+    double getFramesPerSecond();
+    double getUpdatesPerSecond();
+
+    long getFrames();
+    long getUpdates();
+    long getCatchUpPasses();
+    int getMaxCatchUpSteps();
+    long getDroppedUpdates();
+    long getIdlePeriods();
+    double getIdleSeconds();
+
+    double getUpdateP50Micros();
+    double getUpdateP99Micros();
+    double getUpdateP999Micros();
+    double getUpdateMaxMicros();
+
+    double getDrawP50Micros();
+    double getDrawP99Micros();
+    double getDrawP999Micros();
+    double getDrawMaxMicros();
+
+    double getPresentP50Micros();
+    double getPresentP99Micros();
+    double getPresentP999Micros();
+    double getPresentMaxMicros();
+
+    double getFrameIntervalP50Micros();
+    double getFrameIntervalP99Micros();
+    double getFrameIntervalP999Micros();
+    double getFrameIntervalMaxMicros();
+
+    /**
+     * Clears every histogram and counter on the game thread's next frame.
+     */
+    void reset();
+}
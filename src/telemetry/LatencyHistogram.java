@@ -0,0 +1,106 @@
+package telemetry;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size log-linear histogram of durations in nanoseconds.
+ * <p>
+ * Each power of two is split into 16 linear buckets, so any recorded value is reported within
+ * about 6% of its true value, over the full range of a long. Recording is a few shifts and an
+ * array increment and never allocates. One thread records; other threads may read at any time
+ * without locking and may see slightly stale counts.
+ */
+public final class LatencyHistogram {
+    // Linear buckets per power of two, as a power of two
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_COUNT;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count = 0;
+    private long max = 0;
+    private long total = 0;
+
+    /**
+     * Adds one duration. Negative values count as zero.
+     * @param nanos Duration in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[bucketOf(value)]++;
+        count++;
+        total += value;
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    /**
+     * Adds every value recorded in another histogram, e.g. to combine per-thread histograms
+     * into a report. Must be called from this histogram's recording thread.
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Removes every recorded value. Must be called from the recording thread.
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        max = 0;
+        total = 0;
+    }
+
+    /**
+     * @param fraction Quantile between 0 and 1, e.g. 0.99
+     * @return Upper bound of the bucket holding the quantile, never above the maximum, or 0 if
+     * nothing was recorded
+     */
+    public long percentile(double fraction) {
+        long n = count;
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    private static int bucketOf(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+        return (exponent - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_COUNT) {
+            return bucket;
+        }
+        int shift = bucket / SUB_COUNT - 1;
+        long lower = (long) (SUB_COUNT + bucket % SUB_COUNT) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    /** @return Number of recorded values */
+    public long getCount() { return count; }
+    /** @return Largest recorded value */
+    public long getMax() { return max; }
+    /** @return Mean of the recorded values, or 0 if there are none */
+    public double getMean() { return count == 0 ? 0 : (double) total / count; }
+}
@@ -0,0 +1,79 @@
+package telemetry;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+
+/**
+ * Milestones from the launch of the JVM to the first frame on screen.
+ * <p>
+ * Any thread can mark a milestone. Marking reads the clock and appends to a few arrays, and
+ * loads nothing, so it is cheap enough for the startup path it measures. Times are reported
+ * from the start of the JVM, which is only looked up (through JMX) when the report is printed.
+ */
+public final class StartupTimer {
+    private static final int CAPACITY = 64;
+
+    // Guarded by the class
+    private static final String[] milestones = new String[CAPACITY];
+    private static final String[] threads = new String[CAPACITY];
+    private static final long[] nanos = new long[CAPACITY];
+    private static int count = 0;
+    // Clock readings taken together at the first mark, to place the milestones after the JVM start
+    private static long baseNanos;
+    private static long baseMillis;
+
+    private StartupTimer() {
+    }
+
+    /**
+     * Records that a milestone was reached now, on the current thread. Marks beyond the first
+     * CAPACITY are ignored.
+     * @param milestone Name of the milestone
+     */
+    public static void mark(String milestone) {
+        String thread = Thread.currentThread().getName();
+        synchronized (StartupTimer.class) {
+            // read under the lock, so the marks are in order of time
+            long now = System.nanoTime();
+            if (count == 0) {
+                baseNanos = now;
+                baseMillis = System.currentTimeMillis();
+            }
+            if (count < CAPACITY) {
+                milestones[count] = milestone;
+                threads[count] = thread;
+                nanos[count] = now;
+                count++;
+            }
+        }
+    }
+
+    /**
+     * Prints every milestone so far in order of time: milliseconds since the JVM started, the
+     * step since the previous milestone on the same thread, and the thread.
+     */
+    public static void report(PrintStream out) {
+        RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+        String sharing = !System.getProperty("java.vm.info", "").contains("sharing") ? "off"
+                : runtime.getInputArguments().stream().anyMatch(arg -> arg.startsWith("-XX:SharedArchiveFile"))
+                ? "application archive" : "JDK classes only";
+        synchronized (StartupTimer.class) {
+            // both clocks were read within a microsecond or so; the JVM start time is in whole milliseconds
+            double offsetMillis = baseMillis - runtime.getStartTime();
+            out.printf("Startup, %d milestones (class data sharing: %s)%n", count, sharing);
+            out.printf("%9s %8s  %-28s %s%n", "ms", "step", "milestone", "thread");
+            for (int i = 0; i < count; i++) {
+                String step = "";
+                for (int j = i - 1; j >= 0; j--) {
+                    if (threads[j].equals(threads[i])) {
+                        step = String.format("%8.1f", (nanos[i] - nanos[j]) / 1e6);
+                        break;
+                    }
+                }
+                out.printf("%9.1f %8s  %-28s %s%n", offsetMillis + (nanos[i] - baseNanos) / 1e6, step,
+                        milestones[i], threads[i]);
+            }
+        }
+    }
+}
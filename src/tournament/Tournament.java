@@ -0,0 +1,398 @@
+package tournament;
+
+import sim.PaddleAI;
+import sim.PaddleController;
+import sim.PongSimulation;
+import sim.Rng;
+import sim.ScriptedController;
+import sim.TrackingController;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Round-robin tournament between paddle controllers, played headless on every processor.
+ * <p>
+ * Every pair of entrants plays a series of games, alternating sides. Consecutive games of a
+ * series share a seed, so each sequence of serves is played once from each side. A game ends
+ * when a player reaches WINNING_SCORE, or after maxTicks ticks, when the leader wins and an even
+ * score is a draw.
+ * <p>
+ * Games are numbered and dealt out in chunks of GAMES_PER_CHUNK from one shared counter, so
+ * threads that finish early take more work and all stay busy until the end. Each thread adds up
+ * its own results and merges them once at the end, and hands each chunk's CSV rows to a single
+ * writer thread through a bounded queue, so the output never holds back the games (or runs out
+ * of memory when the disk is slow) and nothing per game is shared between threads. Results and
+ * ratings are the same for any number of threads; only the order of the CSV rows differs.
+ * <p>
+ * Usage: {@code java -Djava.awt.headless=true -cp out tournament.Tournament [gamesPerPair threads results.csv seed]}
+ */
+public class Tournament {
+    public static final int DEFAULT_MAX_TICKS = 5 * 60 * PongSimulation.DEFAULT_TICKS_PER_SECOND;
+    public static final String CSV_HEADER = "game,seed,left,right,left_score,right_score,ticks,winner";
+    private static final int GAMES_PER_CHUNK = 256;
+
+    /**
+     * A named controller factory taking part in the tournament.
+     */
+    public static final class Entrant {
+        final String name;
+        final PaddleController.Factory factory;
+
+        Entrant(String name, PaddleController.Factory factory) {
+            this.name = name;
+            this.factory = factory;
+        }
+
+        /** @return Name used in results */
+        public String getName() { return name; }
+    }
+
+    private final List<Entrant> entrants = new ArrayList<>();
+    private final long seed;
+    private int maxTicks = DEFAULT_MAX_TICKS;
+
+    // Results of the last run, [a * n + b] for entrants a and b
+    private long[] games = new long[0];
+    private long[] wins = new long[0];
+    private long[] draws = new long[0];
+    private double[] ratings = new double[0];
+    private final AtomicLong gamesPlayed = new AtomicLong();
+    private long ticksPlayed = 0;
+    private long elapsedNanos = 0;
+    private long cpuNanos = 0;
+    private int threadsUsed = 0;
+
+    /**
+     * Results added up by one thread.
+     */
+    private static final class Tally {
+        final long[] games;
+        final long[] wins;
+        final long[] draws;
+        long ticks = 0;
+
+        Tally(int n) {
+            games = new long[n * n];
+            wins = new long[n * n];
+            draws = new long[n * n];
+        }
+    }
+
+    /**
+     * @param seed Seed all game seeds are derived from
+     */
+    public Tournament(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Adds an entrant.
+     * @param name Name used in results; must not contain commas, quotes or line breaks
+     * @param factory Creates the entrant's controller for each game
+     */
+    public void add(String name, PaddleController.Factory factory) {
+        if (name.isEmpty() || name.matches(".*[,\"\\r\\n].*")) {
+            throw new IllegalArgumentException("Bad entrant name: " + name);
+        }
+        for (Entrant entrant : entrants) {
+            if (entrant.name.equals(name)) {
+                throw new IllegalArgumentException("Duplicate entrant name: " + name);
+            }
+        }
+        entrants.add(new Entrant(name, factory));
+    }
+
+    /**
+     * @param maxTicks Ticks after which an unfinished game is decided on the score
+     */
+    public void setMaxTicks(int maxTicks) {
+        this.maxTicks = maxTicks;
+    }
+
+    /**
+     * Plays every pair of entrants and fits their ratings.
+     * @param gamesPerPair Games each pair plays, half of them on each side
+     * @param threads Threads to play on
+     * @param csv Receives one row per game after CSV_HEADER, or null for none. Not closed.
+     * @throws IOException If writing the CSV fails
+     */
+    public void run(long gamesPerPair, int threads, Writer csv) throws IOException, InterruptedException {
+        int n = entrants.size();
+        if (n < 2) {
+            throw new IllegalStateException("A tournament needs at least 2 entrants");
+        }
+        int[] pairs = new int[n * (n - 1)];
+        int pairCount = 0;
+        for (int a = 0; a < n; a++) {
+            for (int b = a + 1; b < n; b++) {
+                pairs[2 * pairCount] = a;
+                pairs[2 * pairCount + 1] = b;
+                pairCount++;
+            }
+        }
+        long total = pairCount * gamesPerPair;
+        gamesPlayed.set(0);
+
+        // CSV rows go through one writer thread; a chunk per queue entry
+        BlockingQueue<String> rows = new ArrayBlockingQueue<>(4 * threads);
+        String end = new String("end");
+        IOException[] writeFailure = new IOException[1];
+        Thread writer = null;
+        if (csv != null) {
+            csv.write(CSV_HEADER);
+            csv.write('\n');
+            writer = new Thread(() -> {
+                try {
+                    for (String chunk = rows.take(); chunk != end; chunk = rows.take()) {
+                        if (writeFailure[0] == null) {
+                            try {
+                                csv.write(chunk);
+                            } catch (IOException e) {
+                                writeFailure[0] = e;
+                            }
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "Tournament writer");
+            writer.start();
+        }
+
+        AtomicLong nextGame = new AtomicLong();
+        AtomicLong cpu = new AtomicLong();
+        List<Tally> tallies = Collections.synchronizedList(new ArrayList<>());
+        RuntimeException[] failure = new RuntimeException[1];
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        boolean cpuTime = threadBean.isCurrentThreadCpuTimeSupported();
+
+        long start = System.nanoTime();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                Tally tally = new Tally(n);
+                StringBuilder chunk = csv != null ? new StringBuilder() : null;
+                try {
+                    for (long from = nextGame.getAndAdd(GAMES_PER_CHUNK); from < total;
+                         from = nextGame.getAndAdd(GAMES_PER_CHUNK)) {
+                        long to = Math.min(total, from + GAMES_PER_CHUNK);
+                        for (long game = from; game < to; game++) {
+                            int pair = (int) (game / gamesPerPair);
+                            play(game, game % gamesPerPair, pairs[2 * pair], pairs[2 * pair + 1], tally, chunk);
+                        }
+                        gamesPlayed.addAndGet(to - from);
+                        if (chunk != null) {
+                            rows.put(chunk.toString());
+                            chunk.setLength(0);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException e) {
+                    synchronized (failure) {
+                        if (failure[0] == null) {
+                            failure[0] = e;
+                        }
+                    }
+                    nextGame.set(total); // stop the other threads
+                }
+                tallies.add(tally);
+                if (cpuTime) {
+                    cpu.addAndGet(threadBean.getCurrentThreadCpuTime());
+                }
+            }, "Tournament " + t);
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        if (writer != null) {
+            rows.put(end);
+            writer.join();
+            csv.flush();
+        }
+        elapsedNanos = System.nanoTime() - start;
+        cpuNanos = cpu.get();
+        threadsUsed = threads;
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        if (writeFailure[0] != null) {
+            throw writeFailure[0];
+        }
+
+        games = new long[n * n];
+        wins = new long[n * n];
+        draws = new long[n * n];
+        ticksPlayed = 0;
+        for (Tally tally : tallies) {
+            for (int i = 0; i < n * n; i++) {
+                games[i] += tally.games[i];
+                wins[i] += tally.wins[i];
+                draws[i] += tally.draws[i];
+            }
+            ticksPlayed += tally.ticks;
+        }
+        double[] points = new double[n * n];
+        for (int i = 0; i < n * n; i++) {
+            points[i] = wins[i] + 0.5 * draws[i];
+        }
+        ratings = EloRatings.fit(n, games, points);
+    }
+
+    /**
+     * Plays one game and adds it to a thread's results.
+     * @param game Number of the game in the tournament
+     * @param inSeries Number of the game in its pair's series; the first entrant plays left in
+     * even ones
+     */
+    private void play(long game, long inSeries, int a, int b, Tally tally, StringBuilder rows) {
+        boolean swap = (inSeries & 1) != 0;
+        int left = swap ? b : a;
+        int right = swap ? a : b;
+        // the game before a swapped one has the same serves
+        long gameSeed = Rng.mix(seed + (swap ? game - 1 : game) * Rng.GOLDEN_GAMMA);
+
+        PongSimulation sim = new PongSimulation(PongSimulation.DEFAULT_WIDTH, PongSimulation.DEFAULT_HEIGHT, gameSeed, false);
+        PaddleController leftController = entrants.get(left).factory.create(true, Rng.mix(gameSeed + Rng.GOLDEN_GAMMA));
+        PaddleController rightController = entrants.get(right).factory.create(false, Rng.mix(gameSeed + 2 * Rng.GOLDEN_GAMMA));
+        int ticks = 0;
+        while (!sim.isGameOver() && ticks < maxTicks) {
+            sim.step(PaddleController.toSimInputs(leftController.move(sim), true)
+                    | PaddleController.toSimInputs(rightController.move(sim), false));
+            ticks++;
+        }
+
+        int n = entrants.size();
+        int leftScore = sim.getLeftScore();
+        int rightScore = sim.getRightScore();
+        tally.games[left * n + right]++;
+        tally.games[right * n + left]++;
+        tally.ticks += ticks;
+        String winner;
+        if (leftScore > rightScore) {
+            tally.wins[left * n + right]++;
+            winner = entrants.get(left).name;
+        } else if (rightScore > leftScore) {
+            tally.wins[right * n + left]++;
+            winner = entrants.get(right).name;
+        } else {
+            tally.draws[left * n + right]++;
+            tally.draws[right * n + left]++;
+            winner = "draw";
+        }
+        if (rows != null) {
+            rows.append(game).append(',').append(gameSeed).append(',')
+                    .append(entrants.get(left).name).append(',').append(entrants.get(right).name).append(',')
+                    .append(leftScore).append(',').append(rightScore).append(',')
+                    .append(ticks).append(',').append(winner).append('\n');
+        }
+    }
+
+    /**
+     * Prints entrants by rating, with their results against the field, and the run's throughput.
+     */
+    public void report(PrintStream out) {
+        int n = entrants.size();
+        if (ratings.length != n) {
+            return;
+        }
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (x, y) -> Double.compare(ratings[y], ratings[x]));
+        out.printf("%-4s %-16s %7s %10s %10s %10s %10s %7s%n", "#", "Entrant", "Elo", "Games", "Wins", "Draws",
+                "Losses", "Score");
+        for (int rank = 0; rank < n; rank++) {
+            int a = order[rank];
+            long played = 0, won = 0, drawn = 0, lost = 0;
+            for (int b = 0; b < n; b++) {
+                played += games[a * n + b];
+                won += wins[a * n + b];
+                drawn += draws[a * n + b];
+                lost += wins[b * n + a];
+            }
+            out.printf("%-4d %-16s %7.0f %10d %10d %10d %10d %6.1f%%%n", rank + 1, entrants.get(a).name, ratings[a],
+                    played, won, drawn, lost, 100.0 * (won + 0.5 * drawn) / Math.max(1, played));
+        }
+        double seconds = elapsedNanos / 1e9;
+        long played = gamesPlayed.get();
+        out.printf("%d games, %d ticks in %.2f s on %d threads: %.0f games/s, %.2f M ticks/s, CPU %.0f%% of %d threads%n",
+                played, ticksPlayed, seconds, threadsUsed, played / seconds, ticksPlayed / seconds / 1e6,
+                100.0 * cpuNanos / Math.max(1, elapsedNanos * threadsUsed), threadsUsed);
+    }
+
+    /** @return Entrants in the order they were added */
+    public List<Entrant> getEntrants() { return Collections.unmodifiableList(entrants); }
+    /** @return Ratings of the last run, in entrant order */
+    public double[] getRatings() { return ratings.clone(); }
+    /** @return Games a won against b in the last run */
+    public long getWins(int a, int b) { return wins[a * entrants.size() + b]; }
+    /** @return Games a and b drew in the last run */
+    public long getDraws(int a, int b) { return draws[a * entrants.size() + b]; }
+    /** @return Games finished so far in the current or last run */
+    public long getGamesPlayed() { return gamesPlayed.get(); }
+    /** @return Ticks played in the last run */
+    public long getTicksPlayed() { return ticksPlayed; }
+    /** @return Wall time of the last run */
+    public long getElapsedNanos() { return elapsedNanos; }
+
+    /**
+     * Plays the built-in controllers against each other: the computer player at every
+     * difficulty, the tracking bot and a scripted sweep.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        long gamesPerPair = args.length > 0 ? Long.parseLong(args[0]) : 200;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        String csvPath = args.length > 2 ? args[2] : null;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+
+        Tournament tournament = new Tournament(seed);
+        for (PaddleAI.Difficulty difficulty : PaddleAI.Difficulty.values()) {
+            tournament.add("ai-" + difficulty.name().toLowerCase(), PaddleAI.factory(difficulty));
+        }
+        tournament.add("tracker", TrackingController.factory());
+        tournament.add("sweeper", ScriptedController.factory("U".repeat(40) + "D".repeat(80) + "U".repeat(40)));
+
+        Thread progress = new Thread(() -> {
+            int n = tournament.entrants.size();
+            long total = gamesPerPair * n * (n - 1) / 2;
+            try {
+                while (true) {
+                    Thread.sleep(10000);
+                    System.out.printf("%d of %d games played%n", tournament.getGamesPlayed(), total);
+                }
+            } catch (InterruptedException e) {
+                // finished
+            }
+        }, "Tournament progress");
+        progress.setDaemon(true);
+        progress.start();
+
+        if (csvPath != null) {
+            try (Writer csv = new BufferedWriter(Files.newBufferedWriter(Paths.get(csvPath)), 1 << 16)) {
+                tournament.run(gamesPerPair, threads, csv);
+            }
+            System.out.println("Results written to " + csvPath);
+        } else {
+            tournament.run(gamesPerPair, threads, null);
+        }
+        progress.interrupt();
+        tournament.report(System.out);
+    }
+}